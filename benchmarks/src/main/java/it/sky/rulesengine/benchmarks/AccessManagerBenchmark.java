@@ -0,0 +1,77 @@
+package it.sky.rulesengine.benchmarks;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.StreamingRulesEngine;
+import it.sky.rulesengine.factory.impl.RuleParsers;
+import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
+import it.sky.rulesengine.rbac.impl.BasicRole;
+import it.sky.rulesengine.rbac.impl.DefaultAccessManager;
+import it.sky.rulesengine.rbac.impl.util.CrudPermission;
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.MapContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DefaultAccessManager#capabilities(Object)} on the restrictive RBAC scenario.
+ *
+ * <p>The rules are loaded once, so that only the rules evaluation and
+ * the capabilities accumulation are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessManagerBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    int ruleCount;
+
+    @Param({"FIRST", "MIDDLE", "NONE"})
+    HitPosition hitPosition;
+
+    @Param({"SMALL", "WIDE"})
+    FactsShape factsShape;
+
+    DefaultAccessManager<JexlContext, BasicRole<CrudPermission>, CrudPermission> accessManager;
+    JexlContext facts;
+
+    @Setup
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void setup() {
+        Scenarios scenarios = Scenarios.expand(Scenarios.RBAC, ruleCount);
+        Map<String, Object> namespaces = new HashMap<>();
+        namespaces.put("instant", Instant.class);
+        namespaces.put("chronoUnit", ChronoUnit.class);
+        JexlEngine jexlEngine = new JexlBuilder().namespaces(namespaces).create();
+        Class<BasicRole<CrudPermission>> resultType = (Class) BasicRole.class;
+        List<Rule<JexlContext, BasicRole<CrudPermission>>> rules = YamlRulesFactory.create(scenarios.inputSupplier(),
+                RuleParsers.<JexlContext, BasicRole<CrudPermission>>jexlRuleParser(resultType, jexlEngine),
+                BasicRole.class, CrudPermission.class).get();
+        accessManager = new DefaultAccessManager<>(() -> rules, StreamingRulesEngine.create(), CrudPermission.ALL,
+                DefaultAccessManager::intersection);
+
+        MapContext context = factsShape.context();
+        context.set("isAdmin", false);
+        context.set("lastLoginInstant", Instant.now().minus(400, ChronoUnit.DAYS));
+        context.set("zone", scenarios.zone(hitPosition));
+        facts = context;
+    }
+
+    @Benchmark
+    public Map<String, Set<CrudPermission>> capabilities() {
+        return accessManager.capabilities(facts);
+    }
+
+}
@@ -0,0 +1,75 @@
+package it.sky.rulesengine.benchmarks;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.api.RulesEngine;
+import it.sky.rulesengine.core.impl.StreamingRulesEngine;
+import it.sky.rulesengine.factory.impl.jexl.AlphaNetworkRulesEngine;
+import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.MapContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link StreamingRulesEngine} with the {@link AlphaNetworkRulesEngine}
+ * on a rule book whose conditions share most of their predicates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlphaNetworkRulesEngineBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int ruleCount;
+
+    @Param({"FIRST", "MIDDLE", "NONE"})
+    HitPosition hitPosition;
+
+    RulesEngine streamingRulesEngine;
+    RulesEngine alphaNetworkRulesEngine;
+    List<Rule<JexlContext, Object>> rules;
+    JexlContext facts;
+
+    @Setup
+    public void setup() {
+        Scenarios scenarios = Scenarios.expand(Scenarios.OVERLAPPING, ruleCount);
+        rules = YamlRulesFactory.<JexlContext, Object>create(scenarios.inputSupplier(), Object.class).get();
+        streamingRulesEngine = StreamingRulesEngine.create();
+        alphaNetworkRulesEngine = AlphaNetworkRulesEngine.create(rules);
+        MapContext context = new MapContext();
+        context.set("temperature", 25);
+        context.set("isRaining", false);
+        context.set("isHoliday", false);
+        context.set("season", "summer");
+        context.set("zone", scenarios.zone(hitPosition));
+        facts = context;
+    }
+
+    @Benchmark
+    public Optional<Object> applyFirstStreaming() {
+        return streamingRulesEngine.applyFirst(rules, facts);
+    }
+
+    @Benchmark
+    public Optional<Object> applyFirstAlphaNetwork() {
+        return alphaNetworkRulesEngine.applyFirst(rules, facts);
+    }
+
+    @Benchmark
+    public Map<String, Object> applyAllStreaming() {
+        return streamingRulesEngine.applyAll(rules, facts);
+    }
+
+    @Benchmark
+    public Map<String, Object> applyAllAlphaNetwork() {
+        return alphaNetworkRulesEngine.applyAll(rules, facts);
+    }
+
+}
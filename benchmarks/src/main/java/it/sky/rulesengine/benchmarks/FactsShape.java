@@ -0,0 +1,38 @@
+package it.sky.rulesengine.benchmarks;
+
+import org.apache.commons.jexl3.MapContext;
+
+/**
+ * The shape of the facts given to JEXL rules.
+ */
+public enum FactsShape {
+
+    /**
+     * Only the variables referenced by the rules.
+     */
+    SMALL(0),
+    /**
+     * The variables referenced by the rules plus a hundred unrelated ones.
+     */
+    WIDE(100);
+
+    private final int extraVariables;
+
+    FactsShape(int extraVariables) {
+        this.extraVariables = extraVariables;
+    }
+
+    /**
+     * Creates an empty context with this shape.
+     *
+     * @return the context
+     */
+    public MapContext context() {
+        MapContext context = new MapContext();
+        for (int i = 0; i < extraVariables; i++) {
+            context.set("var" + i, i);
+        }
+        return context;
+    }
+
+}
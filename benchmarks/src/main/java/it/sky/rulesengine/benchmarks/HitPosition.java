@@ -0,0 +1,37 @@
+package it.sky.rulesengine.benchmarks;
+
+/**
+ * Where the first matching rule is placed in a scenario's rule book.
+ */
+public enum HitPosition {
+
+    FIRST, MIDDLE, NONE;
+
+    /**
+     * Returns the zone that makes the rules of the block at this position match.
+     *
+     * @param blocks the number of blocks in the rule book
+     * @return the zone, -1 if no block has to match
+     */
+    public int zone(int blocks) {
+        switch (this) {
+            case FIRST:
+                return 0;
+            case MIDDLE:
+                return blocks / 2;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Returns the index of the matching rule in a list of rules.
+     *
+     * @param ruleCount the number of rules
+     * @return the index, -1 if no rule has to match
+     */
+    public int index(int ruleCount) {
+        return zone(ruleCount);
+    }
+
+}
@@ -0,0 +1,85 @@
+package it.sky.rulesengine.benchmarks;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.api.RuleSet;
+import it.sky.rulesengine.core.impl.CompositeRule;
+import it.sky.rulesengine.core.impl.DefaultEqualityCondition;
+import it.sky.rulesengine.core.impl.ImmutableRuleSet;
+import it.sky.rulesengine.core.impl.IndexedRuleSet;
+import it.sky.rulesengine.core.impl.IndexedRulesEngine;
+import it.sky.rulesengine.core.impl.StreamingRulesEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Compares the linear evaluation of a {@link RuleSet} with the {@link IndexedRulesEngine}
+ * on rules of the form <code>country == X &amp;&amp; channel == Y</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexedRulesEngineBenchmark {
+
+    private static final String[] CHANNELS = {"web", "app", "tv", "shop"};
+    private static final BiFunction<Map<String, Object>, String, Object> ATTRIBUTES = Map::get;
+
+    @Param({"100", "1000", "10000"})
+    int ruleCount;
+
+    @Param({"FIRST", "MIDDLE", "NONE"})
+    HitPosition hitPosition;
+
+    StreamingRulesEngine linearEngine;
+    IndexedRulesEngine indexedEngine;
+    RuleSet<Map<String, Object>, Integer> ruleSet;
+    IndexedRuleSet<Map<String, Object>, Integer> indexedRuleSet;
+    Map<String, Object> facts;
+
+    @Setup
+    public void setup() {
+        linearEngine = StreamingRulesEngine.create();
+        indexedEngine = IndexedRulesEngine.create();
+        List<Rule<Map<String, Object>, Integer>> rules = new ArrayList<>();
+        for (int i = 0; i < ruleCount; i++) {
+            rules.add(CompositeRule.create("rule-" + i, DefaultEqualityCondition.of(values(i), ATTRIBUTES), i)
+                    .withPriority(ruleCount - i));
+        }
+        ruleSet = ImmutableRuleSet.of(rules);
+        indexedRuleSet = IndexedRuleSet.of(rules, ATTRIBUTES);
+        facts = new HashMap<>(values(hitPosition.index(ruleCount)));
+    }
+
+    private static Map<String, Object> values(int index) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("country", index < 0 ? "none" : "country-" + index / CHANNELS.length);
+        values.put("channel", CHANNELS[Math.max(index, 0) % CHANNELS.length]);
+        return values;
+    }
+
+    @Benchmark
+    public Optional<Integer> applyFirstLinear() {
+        return linearEngine.applyFirst(ruleSet, facts);
+    }
+
+    @Benchmark
+    public Optional<Integer> applyFirstIndexed() {
+        return indexedEngine.applyFirst(indexedRuleSet, facts);
+    }
+
+    @Benchmark
+    public Map<String, Integer> applyAllLinear() {
+        return linearEngine.applyAll(ruleSet, facts);
+    }
+
+    @Benchmark
+    public Map<String, Integer> applyAllIndexed() {
+        return indexedEngine.applyAll(indexedRuleSet, facts);
+    }
+
+}
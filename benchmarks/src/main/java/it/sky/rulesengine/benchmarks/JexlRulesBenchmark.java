@@ -0,0 +1,96 @@
+package it.sky.rulesengine.benchmarks;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.api.RulesEngine;
+import it.sky.rulesengine.core.impl.StreamingRulesEngine;
+import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.MapContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the evaluation of JEXL rules loaded by a {@link YamlRulesFactory}
+ * from the weather and math functions scenarios.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JexlRulesBenchmark {
+
+    @Param({"WEATHER", "MATH"})
+    Scenario scenario;
+
+    @Param({"10", "100", "1000", "10000"})
+    int ruleCount;
+
+    @Param({"FIRST", "MIDDLE", "NONE"})
+    HitPosition hitPosition;
+
+    @Param({"SMALL", "WIDE"})
+    FactsShape factsShape;
+
+    RulesEngine rulesEngine;
+    List<Rule<JexlContext, Object>> rules;
+    JexlContext facts;
+
+    @Setup
+    public void setup() {
+        Scenarios scenarios = Scenarios.expand(scenario.template, ruleCount);
+        rulesEngine = StreamingRulesEngine.create();
+        rules = YamlRulesFactory.<JexlContext, Object>create(scenarios.inputSupplier(), Object.class).get();
+        facts = scenario.facts(factsShape, scenarios.zone(hitPosition));
+    }
+
+    @Benchmark
+    public Optional<Object> applyFirst() {
+        return rulesEngine.applyFirst(rules, facts);
+    }
+
+    @Benchmark
+    public Map<String, Object> applyAll() {
+        return rulesEngine.applyAll(rules, facts);
+    }
+
+    public enum Scenario {
+
+        WEATHER(Scenarios.WEATHER) {
+            @Override
+            void setFacts(MapContext facts) {
+                facts.set("temperature", 25);
+                facts.set("isRaining", false);
+                facts.set("partyLocation", null);
+            }
+        },
+        MATH(Scenarios.MATH) {
+            @Override
+            void setFacts(MapContext facts) {
+                facts.set("x", 2.0);
+            }
+        };
+
+        final String template;
+
+        Scenario(String template) {
+            this.template = template;
+        }
+
+        abstract void setFacts(MapContext facts);
+
+        JexlContext facts(FactsShape factsShape, int zone) {
+            MapContext facts = factsShape.context();
+            setFacts(facts);
+            facts.set("zone", zone);
+            return facts;
+        }
+
+    }
+
+}
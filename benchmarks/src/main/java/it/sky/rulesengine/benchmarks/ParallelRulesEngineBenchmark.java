@@ -0,0 +1,105 @@
+package it.sky.rulesengine.benchmarks;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.api.RuleSet;
+import it.sky.rulesengine.core.impl.CompositeRule;
+import it.sky.rulesengine.core.impl.ImmutableRuleSet;
+import it.sky.rulesengine.core.impl.Parallelism;
+import it.sky.rulesengine.core.impl.StreamingRulesEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the sequential and parallel evaluation of CPU-heavy rules.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelRulesEngineBenchmark {
+
+    @Param({"100", "1000"})
+    int ruleCount;
+
+    @Param({"4"})
+    int parallelism;
+
+    /*
+     * The cost of each condition, in Blackhole.consumeCPU tokens
+     */
+    @Param({"100", "1000"})
+    long conditionCost;
+
+    ForkJoinPool pool;
+    StreamingRulesEngine rulesEngine;
+    StreamingRulesEngine parallelStreamRulesEngine;
+    StreamingRulesEngine parallelRulesEngine;
+    List<Rule<Integer, Integer>> rules;
+    RuleSet<Integer, Integer> ruleSet;
+    Integer facts;
+
+    @Setup
+    public void setup() {
+        pool = new ForkJoinPool(parallelism);
+        rulesEngine = StreamingRulesEngine.create();
+        parallelStreamRulesEngine = rulesEngine.withStreamMapping(Stream::parallel);
+        parallelRulesEngine = rulesEngine.withParallelism(Parallelism.of(pool, 2 * parallelism));
+        rules = new ArrayList<>();
+        for (int i = 0; i < ruleCount; i++) {
+            int index = i;
+            rules.add(CompositeRule.<Integer, Integer>create("rule-" + i, f -> {
+                Blackhole.consumeCPU(conditionCost);
+                return index >= f && index % f == 0;
+            }, index));
+        }
+        ruleSet = ImmutableRuleSet.of(rules);
+        // the first matching rule is in the top 5%
+        facts = Math.max(1, ruleCount / 20);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Optional<Integer> applyFirst() {
+        return rulesEngine.applyFirst(ruleSet, facts);
+    }
+
+    @Benchmark
+    public Optional<Integer> applyFirstParallelStream() {
+        return parallelStreamRulesEngine.applyFirst(rules, facts);
+    }
+
+    @Benchmark
+    public Optional<Integer> applyFirstParallel() {
+        return parallelRulesEngine.applyFirst(ruleSet, facts);
+    }
+
+    @Benchmark
+    public Map<String, Integer> applyAll() {
+        return rulesEngine.applyAll(ruleSet, facts);
+    }
+
+    @Benchmark
+    public Map<String, Integer> applyAllParallelStream() {
+        return parallelStreamRulesEngine.applyAll(rules, facts);
+    }
+
+    @Benchmark
+    public Map<String, Integer> applyAllParallel() {
+        return parallelRulesEngine.applyAll(ruleSet, facts);
+    }
+
+}
@@ -0,0 +1,67 @@
+package it.sky.rulesengine.benchmarks;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.CompositeRule;
+import it.sky.rulesengine.x.impl.decorator.RuleDecorator;
+import it.sky.rulesengine.x.impl.decorator.RuleMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of {@link RuleMetrics} on a rule invocation, that is a test followed by an apply,
+ * compared to the bare rule and to a no-op {@link RuleDecorator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleMetricsBenchmark {
+
+    Rule<Integer, Integer> rule;
+    Rule<Integer, Integer> decoratedRule;
+    Rule<Integer, Integer> measuredRule;
+    Integer facts;
+
+    @Setup
+    public void setup() {
+        rule = CompositeRule.<Integer, Integer>create("rule", f -> f > 0, f -> f + 1);
+        decoratedRule = new RuleDecorator<>(rule);
+        measuredRule = new RuleMetrics<>(rule);
+        facts = 42;
+    }
+
+    @Benchmark
+    public Integer bare() {
+        return invoke(rule);
+    }
+
+    @Benchmark
+    public Integer decorated() {
+        return invoke(decoratedRule);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Integer decoratedContended() {
+        return invoke(decoratedRule);
+    }
+
+    @Benchmark
+    public Integer measured() {
+        return invoke(measuredRule);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Integer measuredContended() {
+        return invoke(measuredRule);
+    }
+
+    private Integer invoke(Rule<Integer, Integer> r) {
+        return r.test(facts) ? r.apply(facts) : null;
+    }
+
+}
@@ -0,0 +1,75 @@
+package it.sky.rulesengine.benchmarks;
+
+import it.sky.rulesengine.core.impl.Parallelism;
+import it.sky.rulesengine.x.api.RulesGraph;
+import it.sky.rulesengine.x.impl.FrozenRulesGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link RulesGraph#applyAll(Object)} on rules arranged in dependency chains.
+ *
+ * <p>Each chain starts with a rule returning the facts and every other rule
+ * adds one to the result of the previous rule in the chain.
+ * The same rules are also evaluated {@link FrozenRulesGraph#of(RulesGraph) frozen}, with the traced dependencies,
+ * sequentially and in parallel: the chains are independent of each other.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesGraphBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int ruleCount;
+
+    @Param({"1", "10", "1000"})
+    int chainLength;
+
+    RulesGraph<Integer, Integer> rulesGraph;
+    FrozenRulesGraph<Integer, Integer> frozenRulesGraph;
+    FrozenRulesGraph<Integer, Integer> parallelRulesGraph;
+    ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        rulesGraph = RulesGraph.of();
+        for (int i = 0; i < ruleCount; i++) {
+            String previous = "rule-" + (i - 1);
+            if (i % chainLength == 0) {
+                rulesGraph.add(r -> r.withId("rule-" + rulesGraph.size()).then(c -> c.getFacts()));
+            } else {
+                rulesGraph.add(r -> r.withId("rule-" + rulesGraph.size()).then(c -> c.getRule(previous).getResult() + 1));
+            }
+        }
+        frozenRulesGraph = FrozenRulesGraph.of(rulesGraph.trace(42));
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        parallelRulesGraph = frozenRulesGraph.withParallelism(Parallelism.of(pool, 1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Map<String, Integer> applyAll() {
+        return rulesGraph.applyAll(42);
+    }
+
+    @Benchmark
+    public Map<String, Integer> applyAllFrozen() {
+        return frozenRulesGraph.applyAll(42);
+    }
+
+    @Benchmark
+    public Map<String, Integer> applyAllFrozenParallel() {
+        return parallelRulesGraph.applyAll(42);
+    }
+
+}
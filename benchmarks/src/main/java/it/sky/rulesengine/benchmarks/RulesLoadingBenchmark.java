@@ -0,0 +1,61 @@
+package it.sky.rulesengine.benchmarks;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.factory.impl.binary.BinaryRulesCompiler;
+import it.sky.rulesengine.factory.impl.binary.BinaryRulesFactory;
+import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
+import org.apache.commons.jexl3.JexlContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures loading a rule book from YAML with a {@link YamlRulesFactory}
+ * and from its binary form with a {@link BinaryRulesFactory}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesLoadingBenchmark {
+
+    @Param({"1000", "10000"})
+    int ruleCount;
+
+    Supplier<InputStream> yaml;
+    Path rulesBook;
+
+    @Setup
+    public void setup() throws IOException {
+        yaml = Scenarios.expand(Scenarios.WEATHER, ruleCount).inputSupplier();
+        rulesBook = Files.createTempFile("rules", ".rbk");
+        try (InputStream in = yaml.get(); OutputStream out = Files.newOutputStream(rulesBook)) {
+            BinaryRulesCompiler.compile(in, out);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(rulesBook);
+    }
+
+    @Benchmark
+    public List<Rule<JexlContext, Object>> yaml() {
+        return YamlRulesFactory.<JexlContext, Object>create(yaml, Object.class).get();
+    }
+
+    @Benchmark
+    public List<Rule<JexlContext, Object>> binary() {
+        return BinaryRulesFactory.<JexlContext, Object>create(rulesBook, Object.class).get();
+    }
+
+}
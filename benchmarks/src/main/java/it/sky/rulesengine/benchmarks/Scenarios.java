@@ -0,0 +1,119 @@
+package it.sky.rulesengine.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Builds rule books of arbitrary size out of the YAML templates
+ * in the <code>scenarios</code> resource folder.
+ *
+ * <p>A template document containing the <code>{i}</code> placeholder is repeated once per block,
+ * replacing the placeholder with the block index, while the other documents are copied once.
+ */
+public final class Scenarios {
+
+    public static final String WEATHER = "scenarios/weather-rules.yaml";
+    public static final String MATH = "scenarios/math-functions.yaml";
+    public static final String RBAC = "scenarios/restrictive-rbac-rules.yaml";
+    public static final String OVERLAPPING = "scenarios/overlapping-rules.yaml";
+
+    private static final String PLACEHOLDER = "{i}";
+
+    private final List<String> documents = new ArrayList<>();
+    private int blocks;
+
+    private Scenarios(String template, int ruleCount) {
+        List<String> templateDocuments = documents(template);
+        List<String> repeated = templateDocuments.stream().filter(d -> d.contains(PLACEHOLDER)).collect(Collectors.toList());
+        templateDocuments.stream().filter(d -> !d.contains(PLACEHOLDER)).forEach(documents::add);
+        while (documents.size() < ruleCount && !repeated.isEmpty()) {
+            for (int i = 0; i < repeated.size() && documents.size() < ruleCount; i++) {
+                documents.add(repeated.get(i).replace(PLACEHOLDER, String.valueOf(blocks)));
+            }
+            blocks++;
+        }
+    }
+
+    /**
+     * Expands the given template up to the given number of rules.
+     *
+     * @param template  the template resource
+     * @param ruleCount the number of rules
+     * @return the scenario
+     */
+    public static Scenarios expand(String template, int ruleCount) {
+        return new Scenarios(template, ruleCount);
+    }
+
+    /**
+     * Returns the number of blocks, that is the number of distinct zones.
+     *
+     * @return the blocks
+     */
+    public int blocks() {
+        return blocks;
+    }
+
+    /**
+     * Returns the zone that makes the block at the given position match.
+     *
+     * @param hitPosition the position
+     * @return the zone
+     */
+    public int zone(HitPosition hitPosition) {
+        return hitPosition.zone(blocks);
+    }
+
+    /**
+     * Returns the rule book as YAML.
+     *
+     * @return the YAML text
+     */
+    public String yaml() {
+        return String.join("---\n", documents);
+    }
+
+    /**
+     * Returns a supplier of the rule book as YAML.
+     *
+     * @return the input supplier
+     */
+    public Supplier<InputStream> inputSupplier() {
+        byte[] bytes = yaml().getBytes(StandardCharsets.UTF_8);
+        return () -> new ByteArrayInputStream(bytes);
+    }
+
+    private static List<String> documents(String template) {
+        InputStream is = Scenarios.class.getClassLoader().getResourceAsStream(template);
+        if (is == null) {
+            throw new IllegalArgumentException(String.format("template '%s' not found", template));
+        }
+        List<String> documents = new ArrayList<>();
+        StringBuilder document = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().equals("---")) {
+                    documents.add(document.toString());
+                    document.setLength(0);
+                } else if (!line.trim().startsWith("#")) {
+                    document.append(line).append('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        documents.add(document.toString());
+        return documents;
+    }
+
+}
@@ -0,0 +1,92 @@
+package it.sky.rulesengine.benchmarks;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.api.RuleSet;
+import it.sky.rulesengine.core.impl.CompositeRule;
+import it.sky.rulesengine.core.impl.ImmutableRuleSet;
+import it.sky.rulesengine.core.impl.RuleResults;
+import it.sky.rulesengine.core.impl.StreamingRulesEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the {@link StreamingRulesEngine} overhead with plain Java rules.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamingRulesEngineBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    int ruleCount;
+
+    @Param({"FIRST", "MIDDLE", "NONE"})
+    HitPosition hitPosition;
+
+    StreamingRulesEngine rulesEngine;
+    StreamingRulesEngine sortingRulesEngine;
+    List<Rule<Integer, Integer>> rules;
+    RuleSet<Integer, Integer> ruleSet;
+    RuleResults<Integer> results;
+    Integer facts;
+
+    @Setup
+    public void setup() {
+        rulesEngine = StreamingRulesEngine.create();
+        sortingRulesEngine = rulesEngine.withStreamMapping(Stream::sorted);
+        rules = new ArrayList<>();
+        for (int i = 0; i < ruleCount; i++) {
+            int index = i;
+            rules.add(CompositeRule.<Integer, Integer>create("rule-" + i, f -> f == index, index)
+                    .withPriority(ruleCount - i));
+        }
+        ruleSet = ImmutableRuleSet.of(rules);
+        results = new RuleResults<>(ruleCount);
+        facts = hitPosition.index(ruleCount);
+    }
+
+    @Benchmark
+    public Optional<Integer> applyFirst() {
+        return rulesEngine.applyFirst(rules, facts);
+    }
+
+    @Benchmark
+    public Optional<Integer> applyFirstSorted() {
+        return sortingRulesEngine.applyFirst(rules, facts);
+    }
+
+    @Benchmark
+    public Optional<Integer> applyFirstRuleSet() {
+        return rulesEngine.applyFirst(ruleSet, facts);
+    }
+
+    @Benchmark
+    public Map<String, Integer> applyAll() {
+        return rulesEngine.applyAll(rules, facts);
+    }
+
+    @Benchmark
+    public Map<String, Integer> applyAllRuleSet() {
+        return rulesEngine.applyAll(ruleSet, facts);
+    }
+
+    /*
+     * Expected to report 0 B/op with the GC profiler, see BenchmarksMain
+     */
+    @Benchmark
+    public RuleResults<Integer> applyAllRuleSetSink() {
+        results.clear();
+        rulesEngine.applyAll(ruleSet, facts, results);
+        return results;
+    }
+
+}
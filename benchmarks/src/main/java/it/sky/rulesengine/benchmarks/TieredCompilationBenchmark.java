@@ -0,0 +1,76 @@
+package it.sky.rulesengine.benchmarks;
+
+import it.sky.rulesengine.factory.impl.jexl.JexlCondition;
+import it.sky.rulesengine.factory.impl.jexl.JexlScriptParser;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.MapContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a JEXL condition interpreted and compiled by {@link JexlScriptParser#withTieredCompilation(int)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TieredCompilationBenchmark {
+
+    @Param({"temperature > 20 && !isRaining", "user.age >= 18 && user.score * 2 + 1 > limit || vip"})
+    String condition;
+
+    JexlCondition<JexlContext> interpreted;
+    JexlCondition<JexlContext> compiled;
+    JexlContext facts;
+
+    @Setup
+    public void setup() {
+        JexlScriptParser<JexlContext, Object> parser = JexlScriptParser.create(Object.class);
+        interpreted = parser.parseCondition(condition);
+        compiled = parser.withTieredCompilation(0).parseCondition(condition);
+        MapContext context = new MapContext();
+        context.set("temperature", 25);
+        context.set("isRaining", false);
+        context.set("user", new User(30, 12.5));
+        context.set("limit", 20);
+        context.set("vip", false);
+        facts = context;
+        if (!compiled.test(facts) || !compiled.isCompiled()) {
+            throw new IllegalStateException("not compiled: " + condition);
+        }
+    }
+
+    @Benchmark
+    public boolean interpreted() {
+        return interpreted.test(facts);
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return compiled.test(facts);
+    }
+
+    public static class User {
+
+        private final int age;
+        private final double score;
+
+        User(int age, double score) {
+            this.age = age;
+            this.score = score;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+    }
+
+}
@@ -0,0 +1,41 @@
+package it.sky.rulesengine.core.api;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A Rules Engine that evaluates the rules without blocking the caller's thread,
+ * which suits rules whose conditions or actions perform I/O.
+ *
+ * <p>The returned futures complete exceptionally with the exception that a {@link RulesEngine}
+ * would throw, e.g. a {@link it.sky.rulesengine.core.impl.exception.RuleEvaluationException}.
+ *
+ * @see RulesEngine
+ */
+public interface AsyncRulesEngine {
+
+    /**
+     * Applies the first applicable rule on the given facts.
+     *
+     * @param <A>   the facts type
+     * @param <B>   the result type
+     * @param rules the rules to evaluate
+     * @param facts the facts to test
+     * @return the future result of the rule
+     */
+    <A, B> CompletableFuture<Optional<B>> applyFirstAsync(Collection<Rule<A, B>> rules, A facts);
+
+    /**
+     * Applies all the applicable rules on the given facts.
+     *
+     * @param <A>   the facts type
+     * @param <B>   the result type
+     * @param rules the rules to evaluate
+     * @param facts the facts to test
+     * @return the future results of the rules. The key is the rule's id
+     */
+    <A, B> CompletableFuture<Map<String, B>> applyAllAsync(Collection<Rule<A, B>> rules, A facts);
+
+}
@@ -0,0 +1,25 @@
+package it.sky.rulesengine.core.api;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A structured condition that holds when each of the given facts' attributes
+ * equals the expected value, e.g. <code>country == 'IT' &amp;&amp; channel == 'web'</code>.
+ *
+ * <p>Unlike an opaque predicate, such a condition can be indexed by a {@link RulesEngine}
+ * so that only the candidate rules are tested.
+ * Integral and floating point numbers are compared by value, regardless of their type.
+ *
+ * @param <A> the facts type
+ */
+public interface EqualityCondition<A> extends Predicate<A> {
+
+    /**
+     * Returns the expected values. The key is the attribute's name.
+     *
+     * @return the expected values
+     */
+    Map<String, Object> getValues();
+
+}
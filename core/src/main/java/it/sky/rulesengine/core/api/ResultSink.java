@@ -0,0 +1,29 @@
+package it.sky.rulesengine.core.api;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A consumer of the results of the applied rules, keyed by rule id.
+ *
+ * <p>When the rules are evaluated as a {@link RuleSet}, the sink is also given
+ * the position of each applied rule within the set, see {@link #accept(int, String, Object)}.
+ *
+ * @param <B> the result type
+ */
+@FunctionalInterface
+public interface ResultSink<B> extends BiConsumer<String, B> {
+
+    /**
+     * Accepts the result of the rule at the given position of a {@link RuleSet}.
+     *
+     * <p>The default implementation ignores the position.
+     *
+     * @param position the position of the rule within the rule set
+     * @param id       the rule id
+     * @param result   the rule result
+     */
+    default void accept(int position, String id, B result) {
+        accept(id, result);
+    }
+
+}
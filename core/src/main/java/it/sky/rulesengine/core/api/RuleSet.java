@@ -0,0 +1,17 @@
+package it.sky.rulesengine.core.api;
+
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable, pre-sorted list of rules.
+ *
+ * <p>The rules are sorted once, at creation time, following their natural order
+ * (see {@link Rule#compareTo(Object)}), so that a {@link RulesEngine} can evaluate
+ * them with a plain indexed loop instead of sorting or streaming them on every call.
+ *
+ * @param <A> the facts type
+ * @param <B> the result type
+ */
+public interface RuleSet<A, B> extends List<Rule<A, B>>, RandomAccess {
+}
@@ -1,8 +1,11 @@
 package it.sky.rulesengine.core.api;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
 
 /**
  * The purpose of a Rules Engine is to {@link Rule#test(Object) test} some facts
@@ -32,4 +35,182 @@ public interface RulesEngine {
      */
     <A, B> Map<String, B> applyAll(Collection<Rule<A, B>> rules, A facts);
 
+    /**
+     * Applies the first applicable rule of the given rule set on the given facts.
+     *
+     * <p>The rules are evaluated in the rule set's order.
+     * The default implementation delegates to {@link #applyFirst(Collection, Object)}.
+     *
+     * @param <A>   the facts type
+     * @param <B>   the result type
+     * @param rules the rules to evaluate
+     * @param facts the facts to test
+     * @return the result of the rule
+     */
+    default <A, B> Optional<B> applyFirst(RuleSet<A, B> rules, A facts) {
+        return applyFirst((Collection<Rule<A, B>>) rules, facts);
+    }
+
+    /**
+     * Applies all the applicable rules of the given rule set on the given facts.
+     *
+     * <p>The default implementation delegates to {@link #applyAll(Collection, Object)}.
+     *
+     * @param <A>   the facts type
+     * @param <B>   the result type
+     * @param rules the rules to evaluate
+     * @param facts the facts to test
+     * @return the results of the rules. The key is the rule's id
+     */
+    default <A, B> Map<String, B> applyAll(RuleSet<A, B> rules, A facts) {
+        return applyAll((Collection<Rule<A, B>>) rules, facts);
+    }
+
+    /**
+     * Applies all the applicable rules on the given facts, passing each result to the given sink.
+     *
+     * <p>Unlike {@link #applyAll(Collection, Object)}, no result map is required,
+     * so implementations can evaluate the rules without allocating.
+     * The default implementation delegates to {@link #applyAll(Collection, Object)}.
+     *
+     * @param <A>   the facts type
+     * @param <B>   the result type
+     * @param rules the rules to evaluate
+     * @param facts the facts to test
+     * @param sink  the consumer of the rules' ids and results
+     */
+    default <A, B> void applyAll(Collection<Rule<A, B>> rules, A facts, BiConsumer<String, ? super B> sink) {
+        applyAll(rules, facts).forEach(sink);
+    }
+
+    /**
+     * Applies all the applicable rules of the given rule set on the given facts,
+     * passing each result, together with the rule's position, to the given sink.
+     *
+     * <p>The default implementation delegates to {@link #applyAll(RuleSet, Object)}.
+     *
+     * @param <A>   the facts type
+     * @param <B>   the result type
+     * @param rules the rules to evaluate
+     * @param facts the facts to test
+     * @param sink  the consumer of the rules' positions, ids and results
+     */
+    default <A, B> void applyAll(RuleSet<A, B> rules, A facts, ResultSink<? super B> sink) {
+        Map<String, B> results = applyAll(rules, facts);
+        for (int i = 0, size = rules.size(); i < size; i++) {
+            String id = rules.get(i).getId();
+            if (results.containsKey(id)) {
+                sink.accept(i, id, results.get(id));
+            }
+        }
+    }
+
+    /**
+     * Applies the first applicable rule on each of the given facts,
+     * passing the facts and the result to the given sink.
+     *
+     * <p>The results are the same as calling {@link #applyFirst(Collection, Object)} for each facts,
+     * but implementations can prepare the rules only once for the whole batch.
+     * A stream of facts can be given as <code>stream::iterator</code>.
+     *
+     * @param <A>   the facts type
+     * @param <B>   the result type
+     * @param rules the rules to evaluate
+     * @param facts the facts to test
+     * @param sink  the consumer of each facts and its result
+     */
+    default <A, B> void applyFirstBatch(Collection<Rule<A, B>> rules, Iterable<? extends A> facts,
+                                        BiConsumer<? super A, ? super Optional<B>> sink) {
+        for (A f : facts) {
+            sink.accept(f, applyFirst(rules, f));
+        }
+    }
+
+    /**
+     * Applies the first applicable rule on each of the given facts,
+     * storing the results at the facts' indexes in the given array.
+     *
+     * <p>A null element means that no rule applied or that the rule's result was null.
+     *
+     * @param <A>     the facts type
+     * @param <B>     the result type
+     * @param rules   the rules to evaluate
+     * @param facts   the facts to test
+     * @param results the results, at least as long as the facts
+     * @throws IllegalArgumentException if the results array is too short
+     * @see #applyFirstBatch(Collection, Iterable, BiConsumer)
+     */
+    <A, B> void applyFirstBatch(Collection<Rule<A, B>> rules, List<? extends A> facts, B[] results);
+
+    /**
+     * Applies the first applicable rule on each of the given facts, splitting the batch
+     * across the given pool and storing the results at the facts' indexes in the given array.
+     *
+     * <p>If the evaluation fails on several facts, the exception of the first of them is thrown.
+     *
+     * @param <A>     the facts type
+     * @param <B>     the result type
+     * @param rules   the rules to evaluate
+     * @param facts   the facts to test
+     * @param results the results, at least as long as the facts
+     * @param pool    the pool
+     * @throws IllegalArgumentException if the results array is too short
+     * @see #applyFirstBatch(Collection, List, Object[])
+     */
+    <A, B> void applyFirstBatch(Collection<Rule<A, B>> rules, List<? extends A> facts, B[] results,
+                                ForkJoinPool pool);
+
+    /**
+     * Applies all the applicable rules on each of the given facts,
+     * passing the facts and the results to the given sink.
+     *
+     * <p>The results are the same as calling {@link #applyAll(Collection, Object)} for each facts,
+     * but implementations can prepare the rules only once for the whole batch.
+     * A stream of facts can be given as <code>stream::iterator</code>.
+     *
+     * @param <A>   the facts type
+     * @param <B>   the result type
+     * @param rules the rules to evaluate
+     * @param facts the facts to test
+     * @param sink  the consumer of each facts and its results
+     */
+    default <A, B> void applyAllBatch(Collection<Rule<A, B>> rules, Iterable<? extends A> facts,
+                                      BiConsumer<? super A, ? super Map<String, B>> sink) {
+        for (A f : facts) {
+            sink.accept(f, applyAll(rules, f));
+        }
+    }
+
+    /**
+     * Applies all the applicable rules on each of the given facts,
+     * storing the results at the facts' indexes in the given array.
+     *
+     * @param <A>     the facts type
+     * @param <B>     the result type
+     * @param rules   the rules to evaluate
+     * @param facts   the facts to test
+     * @param results the results, at least as long as the facts
+     * @throws IllegalArgumentException if the results array is too short
+     * @see #applyAllBatch(Collection, Iterable, BiConsumer)
+     */
+    <A, B> void applyAllBatch(Collection<Rule<A, B>> rules, List<? extends A> facts, Map<String, B>[] results);
+
+    /**
+     * Applies all the applicable rules on each of the given facts, splitting the batch
+     * across the given pool and storing the results at the facts' indexes in the given array.
+     *
+     * <p>If the evaluation fails on several facts, the exception of the first of them is thrown.
+     *
+     * @param <A>     the facts type
+     * @param <B>     the result type
+     * @param rules   the rules to evaluate
+     * @param facts   the facts to test
+     * @param results the results, at least as long as the facts
+     * @param pool    the pool
+     * @throws IllegalArgumentException if the results array is too short
+     * @see #applyAllBatch(Collection, List, Map[])
+     */
+    <A, B> void applyAllBatch(Collection<Rule<A, B>> rules, List<? extends A> facts, Map<String, B>[] results,
+                              ForkJoinPool pool);
+
 }
@@ -0,0 +1,264 @@
+package it.sky.rulesengine.core.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.api.RuleSet;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * A {@link RuleSet} whose rules are tested by <code>applyFirst</code> in an order that adapts,
+ * at runtime, to their observed match frequency and condition cost.
+ *
+ * <p>Only the rules of the bands of equal priority that the author marks as mutually exclusive,
+ * that is such that at most one of their rules can apply on any facts, are reordered,
+ * and never across bands, so that the first applicable rule does not change.
+ * Within such a band, the rules that match most often per unit of cost are tested first.
+ * The order is recomputed every adaptation interval calls, giving the past intervals
+ * an exponentially decreasing weight.
+ *
+ * <p>The list itself, as seen by <code>applyAll</code>, keeps the priority order.
+ * If a rule of a reordered band fails, another rule of the band may have been tested first.
+ *
+ * @param <A> the facts type
+ * @param <B> the result type
+ * @see AdaptiveRulesEngine
+ */
+public class AdaptiveRuleSet<A, B> extends ImmutableRuleSet<A, B> {
+
+    /**
+     * The default number of calls between two adaptations.
+     */
+    public static final int DEFAULT_ADAPTATION_INTERVAL = 1024;
+
+    /*
+     * One condition out of 16 is timed, since reading the clock may cost as much as a cheap condition
+     */
+    private static final int COST_SAMPLING_MASK = 15;
+
+    private final int[][] bands;
+    private final int adaptationInterval;
+    private final LongAdder[] matches;
+    private final LongAdder[] costNanos;
+    private final LongAdder[] costSamples;
+    private final AtomicLong calls = new AtomicLong();
+    private final LongAdder testedRules = new LongAdder();
+    private final double[] matchWeights;
+    private final double[] costs;
+    private volatile int[] order;
+    private volatile double initialTestsPerCall = Double.NaN;
+    private volatile double testsPerCall = Double.NaN;
+    private volatile int adaptations;
+
+    protected AdaptiveRuleSet(@NonNull Rule<A, B>[] rules, @NonNull Set<Integer> exclusivePriorities,
+                              int adaptationInterval) {
+        super(rules);
+        if (adaptationInterval < 1) {
+            throw new IllegalArgumentException("adaptation interval must be positive: " + adaptationInterval);
+        }
+        this.bands = bands(rules, exclusivePriorities);
+        this.adaptationInterval = adaptationInterval;
+        this.matches = adders(rules.length);
+        this.costNanos = adders(rules.length);
+        this.costSamples = adders(rules.length);
+        this.matchWeights = new double[rules.length];
+        this.costs = new double[rules.length];
+        int[] initialOrder = new int[rules.length];
+        for (int i = 0; i < initialOrder.length; i++) {
+            initialOrder[i] = i;
+        }
+        this.order = initialOrder;
+    }
+
+    /**
+     * Creates a rule set with the given rules, sorted by priority, whose bands with the given priorities are
+     * reordered every {@link #DEFAULT_ADAPTATION_INTERVAL} calls.
+     *
+     * @param rules               the rules
+     * @param exclusivePriorities the priorities whose rules are mutually exclusive
+     * @param <A>                 the facts type
+     * @param <B>                 the result type
+     * @return the rule set
+     */
+    public static <A, B> AdaptiveRuleSet<A, B> of(Collection<? extends Rule<A, B>> rules,
+                                                  Set<Integer> exclusivePriorities) {
+        return of(rules, exclusivePriorities, DEFAULT_ADAPTATION_INTERVAL);
+    }
+
+    /**
+     * Creates a rule set with the given rules, sorted by priority, whose bands with the given priorities are
+     * reordered every given number of calls.
+     *
+     * @param rules               the rules
+     * @param exclusivePriorities the priorities whose rules are mutually exclusive
+     * @param adaptationInterval  the number of calls between two adaptations
+     * @param <A>                 the facts type
+     * @param <B>                 the result type
+     * @return the rule set
+     * @throws IllegalArgumentException if the interval is not positive
+     */
+    public static <A, B> AdaptiveRuleSet<A, B> of(@NonNull Collection<? extends Rule<A, B>> rules,
+                                                  Set<Integer> exclusivePriorities, int adaptationInterval) {
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        Rule<A, B>[] array = rules.toArray(new Rule[0]);
+        return new AdaptiveRuleSet<>(sort(array), exclusivePriorities, adaptationInterval);
+    }
+
+    /**
+     * Returns the average number of rules tested per call before the first adaptation.
+     *
+     * @return the average, NaN until the first adaptation
+     */
+    public double getInitialTestsPerCall() {
+        return initialTestsPerCall;
+    }
+
+    /**
+     * Returns the average number of rules tested per call since the previous adaptation, up to the last one.
+     *
+     * @return the average, NaN until the first adaptation
+     */
+    public double getTestsPerCall() {
+        return testsPerCall;
+    }
+
+    /**
+     * Returns the number of adaptations so far.
+     *
+     * @return the number of adaptations
+     */
+    public int getAdaptations() {
+        return adaptations;
+    }
+
+    /**
+     * Returns the positions of the rules in the order they have to be tested by <code>applyFirst</code>.
+     * The returned array must not be modified.
+     *
+     * @return the positions
+     */
+    int[] order() {
+        return order;
+    }
+
+    /**
+     * Tells whether the cost of the next condition has to be measured.
+     *
+     * @return true to measure the cost
+     */
+    boolean isCostSampled() {
+        return (ThreadLocalRandom.current().nextInt() & COST_SAMPLING_MASK) == 0;
+    }
+
+    /**
+     * Records the cost of a condition.
+     *
+     * @param position the rule's position
+     * @param nanos    the cost in nanoseconds
+     */
+    void recordCost(int position, long nanos) {
+        costNanos[position].add(nanos);
+        costSamples[position].increment();
+    }
+
+    /**
+     * Records a call, adapting the order if the interval has elapsed.
+     *
+     * @param position the position of the rule that applied, -1 if none
+     * @param tested   the number of tested rules
+     */
+    void recordCall(int position, int tested) {
+        if (position >= 0) {
+            matches[position].increment();
+        }
+        testedRules.add(tested);
+        if (calls.incrementAndGet() % adaptationInterval == 0) {
+            adapt();
+        }
+    }
+
+    private synchronized void adapt() {
+        double average = (double) testedRules.sumThenReset() / adaptationInterval;
+        if (adaptations == 0) {
+            initialTestsPerCall = average;
+        }
+        testsPerCall = average;
+        for (int i = 0; i < matchWeights.length; i++) {
+            matchWeights[i] = matchWeights[i] / 2 + matches[i].sumThenReset();
+            long samples = costSamples[i].sumThenReset();
+            long nanos = costNanos[i].sumThenReset();
+            if (samples > 0) {
+                costs[i] = costs[i] == 0 ? (double) nanos / samples : (costs[i] + (double) nanos / samples) / 2;
+            }
+        }
+        int[] newOrder = order.clone();
+        for (int[] band : bands) {
+            Integer[] positions = new Integer[band.length];
+            for (int i = 0; i < band.length; i++) {
+                positions[i] = band[i];
+            }
+            double defaultCost = meanCost(band);
+            // the sort is stable, hence rules with the same score keep the priority order
+            Arrays.sort(positions, (p1, p2) -> Double.compare(score(p2, defaultCost), score(p1, defaultCost)));
+            for (int i = 0; i < band.length; i++) {
+                newOrder[band[i]] = positions[i];
+            }
+        }
+        order = newOrder;
+        adaptations++;
+    }
+
+    /*
+     * Rules whose cost was never sampled are given the mean cost of their band
+     */
+    private double meanCost(int[] band) {
+        double sum = 0;
+        int count = 0;
+        for (int position : band) {
+            if (costs[position] > 0) {
+                sum += costs[position];
+                count++;
+            }
+        }
+        return count == 0 ? 1 : sum / count;
+    }
+
+    private double score(int position, double defaultCost) {
+        return matchWeights[position] / Math.max(costs[position] > 0 ? costs[position] : defaultCost, 1);
+    }
+
+    /*
+     * Returns the positions of the bands of rules with the same, exclusive, priority
+     */
+    private static int[][] bands(Rule<?, ?>[] rules, Set<Integer> exclusivePriorities) {
+        List<int[]> bands = new ArrayList<>();
+        for (int start = 0, end; start < rules.length; start = end) {
+            int priority = rules[start].getPriority();
+            end = start + 1;
+            while (end < rules.length && rules[end].getPriority() == priority) {
+                end++;
+            }
+            if (end - start > 1 && exclusivePriorities.contains(priority)) {
+                bands.add(IntStream.range(start, end).toArray());
+            }
+        }
+        return bands.toArray(new int[0][]);
+    }
+
+    private static LongAdder[] adders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+}
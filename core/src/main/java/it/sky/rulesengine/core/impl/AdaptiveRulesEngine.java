@@ -0,0 +1,104 @@
+package it.sky.rulesengine.core.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.exception.RuleEvaluationException;
+import lombok.NonNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * A {@link StreamingRulesEngine} that, with <code>applyFirst</code>, tests the rules of
+ * {@link AdaptiveRuleSet adaptive rule sets} in their adaptive order, feeding back to the rule set
+ * the rule that applied, the number of rules tested and, for a sample of the tests, the conditions' cost.
+ *
+ * <p>Any other collection of rules, and <code>applyAll</code>, are evaluated as by a {@link StreamingRulesEngine}.
+ */
+public class AdaptiveRulesEngine extends StreamingRulesEngine {
+
+    private static final AdaptiveRulesEngine INSTANCE = new AdaptiveRulesEngine(s -> s, Function.identity(),
+            Parallelism.SEQUENTIAL);
+
+    protected AdaptiveRulesEngine(UnaryOperator<Stream<?>> streamMapper,
+                                  Function<? super RuleEvaluationException, ? extends RuntimeException> exceptionMapper,
+                                  Parallelism parallelism) {
+        super(streamMapper, exceptionMapper, parallelism);
+    }
+
+    /**
+     * Creates an instance.
+     *
+     * @return the engine
+     */
+    public static AdaptiveRulesEngine create() {
+        return INSTANCE;
+    }
+
+    @Override
+    public AdaptiveRulesEngine withStreamMapping(@NonNull UnaryOperator<Stream<?>> mapper) {
+        return (AdaptiveRulesEngine) super.withStreamMapping(mapper);
+    }
+
+    @Override
+    public AdaptiveRulesEngine withExceptionMapping(
+            @NonNull Function<? super RuleEvaluationException, ? extends RuntimeException> mapper) {
+        return (AdaptiveRulesEngine) super.withExceptionMapping(mapper);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Adaptive rule sets are always tested sequentially by <code>applyFirst</code>.
+     */
+    @Override
+    public AdaptiveRulesEngine withParallelism(@NonNull Parallelism parallelism) {
+        return (AdaptiveRulesEngine) super.withParallelism(parallelism);
+    }
+
+    @Override
+    public <A, B> Optional<B> applyFirst(@NonNull Collection<Rule<A, B>> rules, A facts) {
+        if (rules instanceof AdaptiveRuleSet) {
+            return applyFirstPrepared((AdaptiveRuleSet<A, B>) rules, facts);
+        }
+        return super.applyFirst(rules, facts);
+    }
+
+    @Override
+    protected <A, B> Optional<B> applyFirstPrepared(List<Rule<A, B>> rules, A facts) {
+        if (!(rules instanceof AdaptiveRuleSet)) {
+            return super.applyFirstPrepared(rules, facts);
+        }
+        AdaptiveRuleSet<A, B> ruleSet = (AdaptiveRuleSet<A, B>) rules;
+        int[] order = ruleSet.order();
+        for (int i = 0; i < order.length; i++) {
+            int position = order[i];
+            Rule<A, B> rule = resolve(ruleSet.get(position), facts);
+            boolean applies;
+            if (ruleSet.isCostSampled()) {
+                long start = System.nanoTime();
+                applies = test(rule, facts);
+                ruleSet.recordCost(position, System.nanoTime() - start);
+            } else {
+                applies = test(rule, facts);
+            }
+            if (applies) {
+                ruleSet.recordCall(position, i + 1);
+                return Optional.ofNullable(apply(rule, facts));
+            }
+        }
+        ruleSet.recordCall(-1, order.length);
+        return Optional.empty();
+    }
+
+    @Override
+    protected AdaptiveRulesEngine create(UnaryOperator<Stream<?>> streamMapper,
+                                         Function<? super RuleEvaluationException, ? extends RuntimeException> mapper,
+                                         Parallelism parallelism) {
+        return new AdaptiveRulesEngine(streamMapper, mapper, parallelism);
+    }
+
+}
@@ -0,0 +1,107 @@
+package it.sky.rulesengine.core.impl;
+
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Splits the evaluation of a batch of facts across a {@link ForkJoinPool}.
+ *
+ * <p>Exceptions are not propagated by the pool: the one thrown for the
+ * lowest index is rethrown as is by {@link #invoke(ForkJoinPool, int, IntConsumer)}.
+ */
+public final class BatchAction extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final int threshold;
+    private final transient IntConsumer action;
+    private final transient Failure failure;
+
+    private BatchAction(int from, int to, int threshold, IntConsumer action, Failure failure) {
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+        this.action = action;
+        this.failure = failure;
+    }
+
+    /**
+     * Performs the given action for every index in <code>[0, size)</code> using the given pool
+     * and waits for the completion.
+     *
+     * @param pool   the pool
+     * @param size   the batch size
+     * @param action the action
+     * @throws RuntimeException the exception thrown by the action for the lowest index, if any
+     */
+    public static void invoke(@NonNull ForkJoinPool pool, int size, @NonNull IntConsumer action) {
+        if (size == 0) {
+            return;
+        }
+        Failure failure = new Failure();
+        int threshold = Math.max(1, size / (pool.getParallelism() * 4));
+        pool.invoke(new BatchAction(0, size, threshold, action, failure));
+        failure.rethrow();
+    }
+
+    /**
+     * Checks that the given results array can hold a result for each of the given facts.
+     *
+     * @param facts   the facts
+     * @param results the results
+     * @throws IllegalArgumentException if the results array is too short
+     */
+    public static void checkCapacity(@NonNull List<?> facts, @NonNull Object[] results) {
+        if (results.length < facts.size()) {
+            throw new IllegalArgumentException(String.format("cannot store %d results in an array of length %d",
+                    facts.size(), results.length));
+        }
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= threshold) {
+            for (int i = from; i < to && i < failure.index; i++) {
+                try {
+                    action.accept(i);
+                } catch (RuntimeException e) {
+                    failure.record(i, e);
+                }
+            }
+        } else {
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchAction(from, middle, threshold, action, failure),
+                    new BatchAction(middle, to, threshold, action, failure));
+        }
+    }
+
+    /*
+     * Keeps the exception thrown for the lowest index
+     */
+    private static class Failure {
+
+        private volatile int index = Integer.MAX_VALUE;
+        private RuntimeException exception;
+
+        synchronized void record(int index, RuntimeException exception) {
+            if (index < this.index) {
+                this.index = index;
+                this.exception = exception;
+            }
+        }
+
+        synchronized void rethrow() {
+            if (exception != null) {
+                throw exception;
+            }
+        }
+
+    }
+
+}
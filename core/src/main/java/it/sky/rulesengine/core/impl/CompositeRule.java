@@ -2,6 +2,7 @@ package it.sky.rulesengine.core.impl;
 
 import it.sky.rulesengine.core.api.Rule;
 
+import java.util.Optional;
 import java.util.function.*;
 
 /**
@@ -59,6 +60,18 @@ public interface CompositeRule<A, B> extends Rule<A, B> {
         return CompositeRuleSupport.create(id, 0, predicate, f -> null, null, result, null, null, null);
     }
 
+    /**
+     * Returns the predicate that has to hold for this rule to apply.
+     *
+     * <p>If an else path is present the rule always applies, hence the result is empty.
+     * It's empty as well if the implementation doesn't expose its condition, which is the default.
+     *
+     * @return the predicate
+     */
+    default Optional<Predicate<? super A>> getCondition() {
+        return Optional.empty();
+    }
+
     /**
      * Returns a copy with the given id.
      *
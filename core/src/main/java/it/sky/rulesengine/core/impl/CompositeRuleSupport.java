@@ -4,6 +4,7 @@ import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 
+import java.util.Optional;
 import java.util.function.*;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -116,6 +117,14 @@ public class CompositeRuleSupport {
             this.elseResult = elseResult;
         }
 
+        @Override
+        public Optional<Predicate<? super A>> getCondition() {
+            if (elseFunction != null || elseConsumer != null || elseResult != null) {
+                return Optional.empty();
+            }
+            return Optional.of(predicate);
+        }
+
         @Override
         public boolean test(A facts) {
             if (elseFunction != null || elseConsumer != null || elseResult != null) {
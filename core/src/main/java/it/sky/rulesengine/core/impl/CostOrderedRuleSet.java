@@ -0,0 +1,69 @@
+package it.sky.rulesengine.core.impl;
+
+import it.sky.rulesengine.core.api.ResultSink;
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.api.RuleSet;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A {@link RuleSet} whose rules are tested by <code>applyAll</code> from the cheapest to the most expensive,
+ * according to a given cost estimate.
+ *
+ * <p>The results of <code>applyAll</code> do not depend on the evaluation order, hence only the order
+ * in which the rules are tested, and in which their results reach a {@link ResultSink}, changes: the list itself,
+ * as seen by <code>applyFirst</code> and by the sinks' positions, keeps the priority order.
+ * Rules with the same cost keep the priority order.
+ *
+ * @param <A> the facts type
+ * @param <B> the result type
+ * @see StreamingRulesEngine#applyAll(RuleSet, Object)
+ */
+public class CostOrderedRuleSet<A, B> extends ImmutableRuleSet<A, B> {
+
+    private final int[] evaluationOrder;
+
+    protected CostOrderedRuleSet(@NonNull Rule<A, B>[] rules, @NonNull int[] evaluationOrder) {
+        super(rules);
+        this.evaluationOrder = evaluationOrder;
+    }
+
+    /**
+     * Creates a rule set with the given rules, sorted by priority, that are tested by <code>applyAll</code>
+     * in ascending order of cost.
+     *
+     * @param rules the rules
+     * @param cost  the estimated cost of testing a rule
+     * @param <A>   the facts type
+     * @param <B>   the result type
+     * @return the rule set
+     */
+    public static <A, B> CostOrderedRuleSet<A, B> of(@NonNull Collection<? extends Rule<A, B>> rules,
+                                                     @NonNull ToDoubleFunction<? super Rule<A, B>> cost) {
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        Rule<A, B>[] sortedRules = sort(rules.toArray(new Rule[0]));
+        double[] costs = new double[sortedRules.length];
+        Integer[] positions = new Integer[sortedRules.length];
+        for (int i = 0; i < sortedRules.length; i++) {
+            costs[i] = cost.applyAsDouble(sortedRules[i]);
+            positions[i] = i;
+        }
+        // the sort is stable, hence rules with the same cost keep the priority order
+        Arrays.sort(positions, (p1, p2) -> Double.compare(costs[p1], costs[p2]));
+        return new CostOrderedRuleSet<>(sortedRules, Arrays.stream(positions).mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Returns the positions of the rules in the order they have to be tested by <code>applyAll</code>.
+     * The returned array must not be modified.
+     *
+     * @return the positions
+     */
+    int[] evaluationOrder() {
+        return evaluationOrder;
+    }
+
+}
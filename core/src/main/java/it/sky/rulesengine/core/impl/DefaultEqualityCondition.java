@@ -0,0 +1,104 @@
+package it.sky.rulesengine.core.impl;
+
+import it.sky.rulesengine.core.api.EqualityCondition;
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+
+/**
+ * An immutable implementation of the {@link EqualityCondition} interface.
+ *
+ * @param <A> the facts type
+ */
+@EqualsAndHashCode(of = "values")
+public class DefaultEqualityCondition<A> implements EqualityCondition<A> {
+
+    protected final Map<String, Object> values;
+    protected final BiFunction<? super A, String, ?> attributes;
+    private final String[] names;
+    private final Object[] expectedValues;
+
+    protected DefaultEqualityCondition(@NonNull Map<String, Object> values,
+                                       @NonNull BiFunction<? super A, String, ?> attributes) {
+        this.values = values;
+        this.attributes = attributes;
+        this.names = values.keySet().toArray(new String[0]);
+        this.expectedValues = values.values().toArray();
+    }
+
+    /**
+     * Creates a condition with the given expected values.
+     *
+     * @param values     the expected values. The key is the attribute's name
+     * @param attributes returns the facts' attribute with the given name
+     * @param <A>        the facts type
+     * @return the condition
+     */
+    public static <A> DefaultEqualityCondition<A> of(@NonNull Map<String, ?> values,
+                                                     BiFunction<? super A, String, ?> attributes) {
+        Map<String, Object> normalizedValues = new TreeMap<>();
+        values.forEach((attribute, value) -> normalizedValues.put(attribute, normalize(value)));
+        return new DefaultEqualityCondition<>(Collections.unmodifiableMap(normalizedValues), attributes);
+    }
+
+    /**
+     * Returns a value that equals any other number with the same value, if the given value is a number.
+     *
+     * @param value the value
+     * @return the normalized value
+     */
+    public static Object normalize(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double doubleValue = ((Number) value).doubleValue();
+            return doubleValue == Math.rint(doubleValue) && Math.abs(doubleValue) < Long.MAX_VALUE
+                    ? (Object) (long) doubleValue : (Object) doubleValue;
+        }
+        if (value instanceof BigInteger || value instanceof BigDecimal) {
+            return normalize(((Number) value).doubleValue());
+        }
+        return value;
+    }
+
+    @Override
+    public Map<String, Object> getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the facts' attribute with the given name, normalized.
+     *
+     * @param facts     the facts
+     * @param attribute the attribute's name
+     * @return the attribute's value
+     * @see #normalize(Object)
+     */
+    public Object attribute(A facts, String attribute) {
+        return normalize(attributes.apply(facts, attribute));
+    }
+
+    @Override
+    public boolean test(A facts) {
+        for (int i = 0; i < names.length; i++) {
+            if (!Objects.equals(expectedValues[i], attribute(facts, names[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+
+}
@@ -0,0 +1,281 @@
+package it.sky.rulesengine.core.impl;
+
+import it.sky.rulesengine.core.api.AsyncRulesEngine;
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.exception.RuleEvaluationException;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * An immutable implementation of the {@link AsyncRulesEngine} interface
+ * that runs every rule's condition and action as a separate task of an {@link Executor}.
+ *
+ * <p><code>applyFirstAsync</code> tests the rules one after the other, in the collection's order,
+ * while <code>applyAllAsync</code> evaluates all of them concurrently, and fails with the failure
+ * of the first failing rule in the collection's order, as a {@link StreamingRulesEngine} would.
+ * Either way, the caller's thread is never blocked.
+ *
+ * <p>A condition or an action that runs longer than the {@link #withRuleTimeout(Duration) rule timeout}
+ * fails with a {@link RuleEvaluationException} caused by a {@link TimeoutException}. The task is not
+ * interrupted, it just keeps running in the background while the evaluation fails.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public class ExecutorRulesEngine implements AsyncRulesEngine {
+
+    @NonNull
+    protected final Executor executor;
+    protected final Duration ruleTimeout;
+    @NonNull
+    protected final Function<? super RuleEvaluationException, ? extends RuntimeException> exceptionMapper;
+
+    /**
+     * Creates an instance that runs the tasks on virtual threads, if the JVM supports them,
+     * or on the given executor otherwise.
+     *
+     * @param fallbackExecutor the executor to use without virtual threads
+     * @return the engine
+     */
+    public static ExecutorRulesEngine create(@NonNull Executor fallbackExecutor) {
+        return new ExecutorRulesEngine(VirtualThreads.EXECUTOR.orElse(fallbackExecutor), null, Function.identity());
+    }
+
+    /**
+     * Tells whether the JVM supports virtual threads.
+     *
+     * @return true if {@link #create(Executor)} uses virtual threads
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return VirtualThreads.EXECUTOR.isPresent();
+    }
+
+    /**
+     * Returns a copy that runs the tasks on the given executor.
+     *
+     * @param executor the executor
+     * @return the new engine
+     */
+    public ExecutorRulesEngine withExecutor(@NonNull Executor executor) {
+        return this.executor == executor ? this : create(executor, ruleTimeout, exceptionMapper);
+    }
+
+    /**
+     * Returns a copy that fails the evaluation of any condition or action that runs longer than the given timeout.
+     *
+     * @param ruleTimeout the timeout, null for no timeout
+     * @return the new engine
+     * @throws IllegalArgumentException if the timeout is not positive
+     */
+    public ExecutorRulesEngine withRuleTimeout(Duration ruleTimeout) {
+        if (ruleTimeout != null && (ruleTimeout.isNegative() || ruleTimeout.isZero())) {
+            throw new IllegalArgumentException("timeout must be positive: " + ruleTimeout);
+        }
+        return create(executor, ruleTimeout, exceptionMapper);
+    }
+
+    /**
+     * Returns a copy that applies the given mapper to
+     * {@link RuleEvaluationException} before completing the futures.
+     *
+     * @param mapper the mapper
+     * @return the new engine
+     */
+    public ExecutorRulesEngine withExceptionMapping(
+            @NonNull Function<? super RuleEvaluationException, ? extends RuntimeException> mapper) {
+        return this.exceptionMapper == mapper ? this : create(executor, ruleTimeout, mapper);
+    }
+
+    @Override
+    public <A, B> CompletableFuture<Optional<B>> applyFirstAsync(@NonNull Collection<Rule<A, B>> rules, A facts) {
+        CompletableFuture<Optional<B>> result = new CompletableFuture<>();
+        applyFirstAsync(new ArrayList<>(rules), 0, facts, result);
+        return result;
+    }
+
+    /*
+     * Tests the rules from the given index, looping as long as the conditions are already known to be false,
+     * so that the stack does not grow with the number of rules when the executor runs the tasks synchronously
+     */
+    private <A, B> void applyFirstAsync(List<Rule<A, B>> rules, int index, A facts,
+                                        CompletableFuture<Optional<B>> result) {
+        for (int i = index, size = rules.size(); i < size; i++) {
+            Rule<A, B> rule = rules.get(i);
+            CompletableFuture<Boolean> applies = test(rule, facts);
+            if (!applies.isDone() || applies.isCompletedExceptionally() || applies.getNow(false)) {
+                int next = i + 1;
+                applies.whenComplete((tested, e) -> {
+                    if (e != null) {
+                        result.completeExceptionally(e);
+                    } else if (tested) {
+                        apply(rule, facts).whenComplete((applied, f) -> {
+                            if (f != null) {
+                                result.completeExceptionally(f);
+                            } else {
+                                result.complete(Optional.ofNullable(applied));
+                            }
+                        });
+                    } else {
+                        applyFirstAsync(rules, next, facts, result);
+                    }
+                });
+                return;
+            }
+        }
+        result.complete(Optional.empty());
+    }
+
+    @Override
+    public <A, B> CompletableFuture<Map<String, B>> applyAllAsync(@NonNull Collection<Rule<A, B>> rules, A facts) {
+        List<Rule<A, B>> ruleList = new ArrayList<>(rules);
+        List<CompletableFuture<Optional<B>>> results = new ArrayList<>(ruleList.size());
+        for (Rule<A, B> rule : ruleList) {
+            results.add(test(rule, facts).thenCompose(applies -> applies
+                    ? apply(rule, facts).thenApply(Optional::ofNullable)
+                    : CompletableFuture.completedFuture(null)));
+        }
+        CompletableFuture<Map<String, B>> merged = new CompletableFuture<>();
+        merge(ruleList, results, 0, new HashMap<>(), merged);
+        return merged;
+    }
+
+    /*
+     * Merges the results from the given index in the rules' order, failing with the first failure in that order,
+     * as a StreamingRulesEngine would do, and looping as long as the results are already known
+     */
+    private <A, B> void merge(List<Rule<A, B>> rules, List<CompletableFuture<Optional<B>>> results, int index,
+                              Map<String, B> merged, CompletableFuture<Map<String, B>> result) {
+        for (int i = index, size = results.size(); i < size; i++) {
+            CompletableFuture<Optional<B>> future = results.get(i);
+            if (!future.isDone() || future.isCompletedExceptionally()) {
+                Rule<A, B> rule = rules.get(i);
+                int next = i + 1;
+                future.whenComplete((applied, e) -> {
+                    if (e != null) {
+                        // the failures of the composed futures are wrapped
+                        result.completeExceptionally(e instanceof CompletionException && e.getCause() != null
+                                ? e.getCause() : e);
+                    } else {
+                        put(merged, rule, applied);
+                        merge(rules, results, next, merged, result);
+                    }
+                });
+                return;
+            }
+            put(merged, rules.get(i), future.join());
+        }
+        result.complete(merged);
+    }
+
+    private static <B> void put(Map<String, B> merged, Rule<?, B> rule, Optional<B> applied) {
+        if (applied != null) {
+            merged.put(rule.getId(), applied.orElse(null));
+        }
+    }
+
+    protected <A> CompletableFuture<Boolean> test(Rule<A, ?> rule, A facts) {
+        return supply(rule, facts, () -> rule.test(facts));
+    }
+
+    protected <A, B> CompletableFuture<B> apply(Rule<A, B> rule, A facts) {
+        return supply(rule, facts, () -> rule.apply(facts));
+    }
+
+    /*
+     * Runs the given supplier on the executor, mapping its failures and timeouts
+     */
+    private <A, T> CompletableFuture<T> supply(Rule<A, ?> rule, A facts, Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (ruleTimeout != null) {
+            ScheduledFuture<?> timeout = Timeouts.SCHEDULER.schedule(() -> fail(future, rule, facts,
+                    new TimeoutException(String.format("timed out after %s", ruleTimeout))),
+                    ruleTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            future.whenComplete((r, e) -> timeout.cancel(false));
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(supplier.get());
+                } catch (Throwable t) {
+                    fail(future, rule, facts, t);
+                }
+            });
+        } catch (Throwable t) {
+            fail(future, rule, facts, t);
+        }
+        return future;
+    }
+
+    /*
+     * Completes the future with the mapped exception, or with the mapper's own failure
+     */
+    private <A> void fail(CompletableFuture<?> future, Rule<A, ?> rule, A facts, Throwable cause) {
+        if (!future.isDone()) {
+            Throwable exception;
+            try {
+                exception = exceptionMapper.apply(new RuleEvaluationException(rule, facts, cause));
+            } catch (Throwable t) {
+                exception = t;
+            }
+            future.completeExceptionally(exception);
+        }
+    }
+
+    /*
+     * An overrideable factory method
+     */
+    protected ExecutorRulesEngine create(Executor executor, Duration ruleTimeout,
+                                         Function<? super RuleEvaluationException, ? extends RuntimeException> mapper) {
+        return new ExecutorRulesEngine(executor, ruleTimeout, mapper);
+    }
+
+    /*
+     * A lazy holder of the virtual thread per task executor, available since Java 21
+     */
+    private static final class VirtualThreads {
+
+        static final Optional<Executor> EXECUTOR = create();
+
+        private static Optional<Executor> create() {
+            try {
+                return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null));
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return Optional.empty();
+            }
+        }
+
+    }
+
+    /*
+     * A lazy holder of the scheduler of the rules' timeouts
+     */
+    private static final class Timeouts {
+
+        static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rules-engine-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    }
+
+}
@@ -0,0 +1,113 @@
+package it.sky.rulesengine.core.impl;
+
+import lombok.NonNull;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+
+/**
+ * Searches the lowest index that matches a predicate across a {@link ForkJoinPool}.
+ *
+ * <p>Indexes are tested concurrently in consecutive chunks, starting with a chunk as large as
+ * twice the pool's parallelism and doubling it at every step, so that a match among the first
+ * indexes is found quickly while a late match is not slowed down by too many steps.
+ * As soon as an index matches, the higher indexes that have not been tested yet are skipped,
+ * and no further chunk is searched.
+ *
+ * <p>An exception thrown by the predicate counts as a match: it is rethrown as is by
+ * {@link #invoke(ForkJoinPool, int, IntPredicate)} if no lower index matches,
+ * so that the outcome is the same as a sequential search.
+ */
+public final class FirstMatchAction extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_CHUNKS_PER_THREAD = 64;
+
+    private final int from;
+    private final int to;
+    private final int threshold;
+    private final transient IntPredicate predicate;
+    private final transient Match match;
+
+    private FirstMatchAction(int from, int to, int threshold, IntPredicate predicate, Match match) {
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+        this.predicate = predicate;
+        this.match = match;
+    }
+
+    /**
+     * Searches the lowest index in <code>[0, size)</code> that matches the given predicate using the given pool.
+     *
+     * @param pool      the pool
+     * @param size      the number of indexes
+     * @param predicate the predicate
+     * @return the lowest matching index, -1 if no index matches
+     * @throws RuntimeException the exception thrown by the predicate, if no lower index matches
+     */
+    public static int invoke(@NonNull ForkJoinPool pool, int size, @NonNull IntPredicate predicate) {
+        Match match = new Match();
+        int parallelism = pool.getParallelism();
+        int chunkSize = 2 * parallelism;
+        int from = 0;
+        while (from < size && match.index == Integer.MAX_VALUE) {
+            int to = (int) Math.min((long) from + chunkSize, size);
+            int threshold = Math.max(1, (to - from) / (2 * parallelism));
+            pool.invoke(new FirstMatchAction(from, to, threshold, predicate, match));
+            from = to;
+            chunkSize = Math.min(chunkSize * 2, MAX_CHUNKS_PER_THREAD * parallelism);
+        }
+        return match.get();
+    }
+
+    @Override
+    protected void compute() {
+        if (from >= match.index) {
+            return;
+        }
+        if (to - from <= threshold) {
+            for (int i = from; i < to && i < match.index; i++) {
+                try {
+                    if (predicate.test(i)) {
+                        match.record(i, null);
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    match.record(i, e);
+                    return;
+                }
+            }
+        } else {
+            int middle = (from + to) >>> 1;
+            invokeAll(new FirstMatchAction(from, middle, threshold, predicate, match),
+                    new FirstMatchAction(middle, to, threshold, predicate, match));
+        }
+    }
+
+    /*
+     * Keeps the lowest index that matched or failed
+     */
+    private static class Match {
+
+        private volatile int index = Integer.MAX_VALUE;
+        private RuntimeException exception;
+
+        synchronized void record(int index, RuntimeException exception) {
+            if (index < this.index) {
+                this.index = index;
+                this.exception = exception;
+            }
+        }
+
+        synchronized int get() {
+            if (exception != null) {
+                throw exception;
+            }
+            return index == Integer.MAX_VALUE ? -1 : index;
+        }
+
+    }
+
+}
@@ -0,0 +1,88 @@
+package it.sky.rulesengine.core.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.api.RuleSet;
+import lombok.NonNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * An array backed implementation of the {@link RuleSet} interface.
+ *
+ * @param <A> the facts type
+ * @param <B> the result type
+ */
+public class ImmutableRuleSet<A, B> extends AbstractList<Rule<A, B>> implements RuleSet<A, B> {
+
+    private final Rule<A, B>[] rules;
+
+    protected ImmutableRuleSet(@NonNull Rule<A, B>[] rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Creates a rule set with the given rules, sorted by priority.
+     *
+     * @param rules the rules
+     * @param <A>   the facts type
+     * @param <B>   the result type
+     * @return the rule set
+     */
+    public static <A, B> ImmutableRuleSet<A, B> of(@NonNull Collection<? extends Rule<A, B>> rules) {
+        if (rules instanceof ImmutableRuleSet) {
+            @SuppressWarnings("unchecked")
+            ImmutableRuleSet<A, B> ruleSet = (ImmutableRuleSet<A, B>) rules;
+            return ruleSet;
+        }
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        Rule<A, B>[] array = rules.toArray(new Rule[0]);
+        return sorted(array);
+    }
+
+    /**
+     * Creates a rule set with the given rules, sorted by priority.
+     *
+     * @param rules the rules
+     * @param <A>   the facts type
+     * @param <B>   the result type
+     * @return the rule set
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public static <A, B> ImmutableRuleSet<A, B> of(@NonNull Rule<A, B>... rules) {
+        return sorted(rules.clone());
+    }
+
+    private static <A, B> ImmutableRuleSet<A, B> sorted(Rule<A, B>[] rules) {
+        return new ImmutableRuleSet<>(sort(rules));
+    }
+
+    /**
+     * Sorts the given rules by priority.
+     *
+     * @param rules the rules
+     * @return the given array, sorted
+     * @throws NullPointerException if a rule is null
+     */
+    protected static <A, B> Rule<A, B>[] sort(Rule<A, B>[] rules) {
+        for (Rule<A, B> rule : rules) {
+            Objects.requireNonNull(rule, "rules cannot contain null elements");
+        }
+        Arrays.sort(rules);
+        return rules;
+    }
+
+    @Override
+    public Rule<A, B> get(int index) {
+        return rules[index];
+    }
+
+    @Override
+    public int size() {
+        return rules.length;
+    }
+
+}
@@ -0,0 +1,154 @@
+package it.sky.rulesengine.core.impl;
+
+import it.sky.rulesengine.core.api.EqualityCondition;
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.api.RuleSet;
+import it.sky.rulesengine.core.impl.exception.RuleEvaluationException;
+import lombok.NonNull;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * A {@link RuleSet} that indexes the rules whose condition is an {@link EqualityCondition},
+ * so that only the candidate rules for some given facts have to be tested.
+ *
+ * <p>Each indexable rule is put in a hash index on one of its condition's attributes,
+ * the one with the most distinct values among all the rules. The other rules are always candidates.
+ * Only {@link CompositeRule composite rules} without an else path are indexable.
+ *
+ * <p>The candidates are a superset of the applicable rules, and follow the rule set's order.
+ *
+ * @param <A> the facts type
+ * @param <B> the result type
+ * @see IndexedRulesEngine
+ */
+public class IndexedRuleSet<A, B> extends ImmutableRuleSet<A, B> {
+
+    protected final BiFunction<? super A, String, ?> attributes;
+    protected final Map<String, Map<Object, int[]>> indexes;
+    protected final int[] unindexed;
+
+    protected IndexedRuleSet(@NonNull Rule<A, B>[] rules, @NonNull BiFunction<? super A, String, ?> attributes) {
+        super(rules);
+        this.attributes = attributes;
+        this.indexes = new HashMap<>();
+        this.unindexed = index(rules, indexes);
+    }
+
+    /**
+     * Creates a rule set with the given rules, sorted by priority and indexed.
+     *
+     * @param rules      the rules
+     * @param attributes returns the facts' attribute with the given name,
+     *                   consistently with the rules' {@link EqualityCondition conditions}
+     * @param <A>        the facts type
+     * @param <B>        the result type
+     * @return the rule set
+     */
+    public static <A, B> IndexedRuleSet<A, B> of(@NonNull Collection<? extends Rule<A, B>> rules,
+                                                 BiFunction<? super A, String, ?> attributes) {
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        Rule<A, B>[] array = rules.toArray(new Rule[0]);
+        return new IndexedRuleSet<>(sort(array), attributes);
+    }
+
+    /**
+     * Returns the positions of the rules that could apply on the given facts.
+     *
+     * @param facts the facts
+     * @return the candidates
+     * @throws RuleEvaluationException if an indexed attribute can't be read from the facts,
+     *                                 on behalf of the first rule indexed on it
+     */
+    public BitSet candidates(A facts) {
+        BitSet candidates = new BitSet(size());
+        for (int position : unindexed) {
+            candidates.set(position);
+        }
+        for (Map.Entry<String, Map<Object, int[]>> index : indexes.entrySet()) {
+            Object value;
+            try {
+                value = DefaultEqualityCondition.normalize(attributes.apply(facts, index.getKey()));
+            } catch (RuntimeException e) {
+                throw new RuleEvaluationException(get(first(index.getValue())), facts, e);
+            }
+            int[] positions = index.getValue().get(value);
+            if (positions != null) {
+                for (int position : positions) {
+                    candidates.set(position);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns the number of indexed rules.
+     *
+     * @return the number of indexed rules
+     */
+    public int indexedCount() {
+        return size() - unindexed.length;
+    }
+
+    private static <A, B> int[] index(Rule<A, B>[] rules, Map<String, Map<Object, int[]>> indexes) {
+        List<Map<String, Object>> conditions = new ArrayList<>(rules.length);
+        Map<String, Set<Object>> distinctValues = new HashMap<>();
+        for (Rule<A, B> rule : rules) {
+            Map<String, Object> values = equalities(rule);
+            conditions.add(values);
+            if (values != null) {
+                values.forEach((attribute, value) -> distinctValues.computeIfAbsent(attribute, a -> new HashSet<>())
+                        .add(value));
+            }
+        }
+
+        Map<String, Map<Object, List<Integer>>> positions = new HashMap<>();
+        List<Integer> unindexed = new ArrayList<>();
+        for (int i = 0; i < rules.length; i++) {
+            Map<String, Object> values = conditions.get(i);
+            if (values == null || values.isEmpty()) {
+                unindexed.add(i);
+                continue;
+            }
+            String attribute = Collections.max(values.keySet(), Comparator
+                    .<String>comparingInt(a -> distinctValues.get(a).size())
+                    .thenComparing(Comparator.reverseOrder()));
+            positions.computeIfAbsent(attribute, a -> new HashMap<>())
+                    .computeIfAbsent(values.get(attribute), v -> new ArrayList<>())
+                    .add(i);
+        }
+
+        positions.forEach((attribute, index) -> {
+            Map<Object, int[]> arrays = new HashMap<>();
+            index.forEach((value, list) -> arrays.put(value, toArray(list)));
+            indexes.put(attribute, arrays);
+        });
+        return toArray(unindexed);
+    }
+
+    private static Map<String, Object> equalities(Rule<?, ?> rule) {
+        if (rule instanceof CompositeRule) {
+            Optional<? extends Predicate<?>> condition = ((CompositeRule<?, ?>) rule).getCondition();
+            if (condition.isPresent() && condition.get() instanceof EqualityCondition) {
+                return ((EqualityCondition<?>) condition.get()).getValues();
+            }
+        }
+        return null;
+    }
+
+    private static int first(Map<Object, int[]> index) {
+        int first = Integer.MAX_VALUE;
+        for (int[] positions : index.values()) {
+            first = Math.min(first, positions[0]);
+        }
+        return first;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+}
@@ -0,0 +1,125 @@
+package it.sky.rulesengine.core.impl;
+
+import it.sky.rulesengine.core.api.ResultSink;
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.exception.RuleEvaluationException;
+import lombok.NonNull;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * A {@link StreamingRulesEngine} that tests only the candidate rules of {@link IndexedRuleSet indexed rule sets},
+ * in the rule set's order.
+ *
+ * <p>Any other collection of rules is evaluated as by a {@link StreamingRulesEngine}.
+ */
+public class IndexedRulesEngine extends StreamingRulesEngine {
+
+    private static final IndexedRulesEngine INSTANCE = new IndexedRulesEngine(s -> s, Function.identity(),
+            Parallelism.SEQUENTIAL);
+
+    protected IndexedRulesEngine(UnaryOperator<Stream<?>> streamMapper,
+                                 Function<? super RuleEvaluationException, ? extends RuntimeException> exceptionMapper,
+                                 Parallelism parallelism) {
+        super(streamMapper, exceptionMapper, parallelism);
+    }
+
+    /**
+     * Creates an instance.
+     *
+     * @return the engine
+     */
+    public static IndexedRulesEngine create() {
+        return INSTANCE;
+    }
+
+    @Override
+    public IndexedRulesEngine withStreamMapping(@NonNull UnaryOperator<Stream<?>> mapper) {
+        return (IndexedRulesEngine) super.withStreamMapping(mapper);
+    }
+
+    @Override
+    public IndexedRulesEngine withExceptionMapping(
+            @NonNull Function<? super RuleEvaluationException, ? extends RuntimeException> mapper) {
+        return (IndexedRulesEngine) super.withExceptionMapping(mapper);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The candidate rules of indexed rule sets are always evaluated sequentially.
+     */
+    @Override
+    public IndexedRulesEngine withParallelism(@NonNull Parallelism parallelism) {
+        return (IndexedRulesEngine) super.withParallelism(parallelism);
+    }
+
+    @Override
+    public <A, B> Optional<B> applyFirst(@NonNull Collection<Rule<A, B>> rules, A facts) {
+        if (rules instanceof IndexedRuleSet) {
+            return applyFirstPrepared((IndexedRuleSet<A, B>) rules, facts);
+        }
+        return super.applyFirst(rules, facts);
+    }
+
+    @Override
+    public <A, B> Map<String, B> applyAll(@NonNull Collection<Rule<A, B>> rules, A facts) {
+        if (rules instanceof IndexedRuleSet) {
+            return applyAll((IndexedRuleSet<A, B>) rules, facts);
+        }
+        return super.applyAll(rules, facts);
+    }
+
+    @Override
+    protected <A, B> Optional<B> applyFirstPrepared(List<Rule<A, B>> rules, A facts) {
+        if (!(rules instanceof IndexedRuleSet)) {
+            return super.applyFirstPrepared(rules, facts);
+        }
+        BitSet candidates = candidates((IndexedRuleSet<A, B>) rules, facts);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            Rule<A, B> rule = resolve(rules.get(i), facts);
+            if (test(rule, facts)) {
+                return Optional.ofNullable(apply(rule, facts));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    protected <A, B> void applyAllPrepared(List<Rule<A, B>> rules, A facts, ResultSink<? super B> sink) {
+        if (!(rules instanceof IndexedRuleSet)) {
+            super.applyAllPrepared(rules, facts, sink);
+            return;
+        }
+        BitSet candidates = candidates((IndexedRuleSet<A, B>) rules, facts);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            Rule<A, B> rule = resolve(rules.get(i), facts);
+            if (test(rule, facts)) {
+                sink.accept(i, rule.getId(), apply(rule, facts));
+            }
+        }
+    }
+
+    private <A, B> BitSet candidates(IndexedRuleSet<A, B> rules, A facts) {
+        try {
+            return rules.candidates(facts);
+        } catch (RuleEvaluationException e) {
+            throw exceptionMapper.apply(e);
+        }
+    }
+
+    @Override
+    protected IndexedRulesEngine create(UnaryOperator<Stream<?>> streamMapper,
+                                        Function<? super RuleEvaluationException, ? extends RuntimeException> mapper,
+                                        Parallelism parallelism) {
+        return new IndexedRulesEngine(streamMapper, mapper, parallelism);
+    }
+
+}
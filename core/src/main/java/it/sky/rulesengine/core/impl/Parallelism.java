@@ -0,0 +1,58 @@
+package it.sky.rulesengine.core.impl;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tells a {@link StreamingRulesEngine} whether to evaluate some rules in parallel and on which pool.
+ *
+ * <p>Rules are evaluated in parallel only if they are at least as many as the threshold,
+ * since the cost of splitting a few cheap rules across threads outweighs the gain.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class Parallelism {
+
+    /**
+     * Evaluates the rules in the caller's thread.
+     */
+    public static final Parallelism SEQUENTIAL = new Parallelism(null, Integer.MAX_VALUE);
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Evaluates the rules in parallel on the given pool, if they are at least as many as the given threshold.
+     *
+     * @param pool      the pool
+     * @param threshold the minimum number of rules to evaluate in parallel
+     * @return the parallelism
+     * @throws IllegalArgumentException if the threshold is not positive
+     */
+    public static Parallelism of(@NonNull ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive: " + threshold);
+        }
+        return new Parallelism(pool, threshold);
+    }
+
+    /**
+     * Tells whether the given number of rules has to be evaluated in parallel.
+     *
+     * @param size the number of rules
+     * @return true if the rules have to be evaluated in parallel
+     */
+    public boolean isParallel(int size) {
+        return pool != null && size >= threshold;
+    }
+
+    @Override
+    public String toString() {
+        return pool == null ? "sequential" : String.format("parallel on %s from %d rules", pool, threshold);
+    }
+
+}
@@ -0,0 +1,162 @@
+package it.sky.rulesengine.core.impl;
+
+import it.sky.rulesengine.core.api.ResultSink;
+import it.sky.rulesengine.core.api.RuleSet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A reusable {@link ResultSink} that stores the results by rule position.
+ *
+ * <p>Once grown to the size of the evaluated {@link RuleSet}, it can be
+ * {@link #clear() cleared} and filled again without allocating.
+ * Results accepted without a position are stored after the last used one.
+ *
+ * <p>This class is not thread safe.
+ *
+ * @param <B> the result type
+ */
+public class RuleResults<B> implements ResultSink<B> {
+
+    private String[] ids;
+    private Object[] results;
+    private int[] positions;
+    private int size;
+    private int end;
+
+    public RuleResults() {
+        this(16);
+    }
+
+    public RuleResults(int capacity) {
+        ids = new String[capacity];
+        results = new Object[capacity];
+        positions = new int[capacity];
+    }
+
+    @Override
+    public void accept(String id, B result) {
+        accept(end, id, result);
+    }
+
+    @Override
+    public void accept(int position, String id, B result) {
+        if (position < 0) {
+            throw new IndexOutOfBoundsException(String.format("negative position %d", position));
+        }
+        if (position >= ids.length) {
+            grow(position + 1);
+        }
+        if (ids[position] == null) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, ids.length);
+            }
+            positions[size++] = position;
+            end = Math.max(end, position + 1);
+        }
+        ids[position] = id;
+        results[position] = result;
+    }
+
+    /**
+     * Returns the number of stored results.
+     *
+     * @return the number of stored results
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if there are no stored results.
+     *
+     * @return true if there are no stored results
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns true if a result is stored at the given position.
+     *
+     * @param position the rule position
+     * @return true if a result is stored at the given position
+     */
+    public boolean contains(int position) {
+        return position >= 0 && position < ids.length && ids[position] != null;
+    }
+
+    /**
+     * Returns the id of the rule whose result is stored at the given position.
+     *
+     * @param position the rule position
+     * @return the rule id, or null if no result is stored at the given position
+     */
+    public String getId(int position) {
+        return contains(position) ? ids[position] : null;
+    }
+
+    /**
+     * Returns the result stored at the given position.
+     *
+     * @param position the rule position
+     * @return the result, or null if no result is stored at the given position
+     */
+    @SuppressWarnings("unchecked")
+    public B get(int position) {
+        return contains(position) ? (B) results[position] : null;
+    }
+
+    /**
+     * Passes the stored results to the given consumer, following the rule positions.
+     *
+     * @param consumer the consumer
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<String, ? super B> consumer) {
+        for (int position = 0, found = 0; found < size; position++) {
+            if (ids[position] != null) {
+                consumer.accept(ids[position], (B) results[position]);
+                found++;
+            }
+        }
+    }
+
+    /**
+     * Returns a new map with the stored results, keyed by rule id.
+     *
+     * @return the results
+     */
+    public Map<String, B> toMap() {
+        Map<String, B> map = new HashMap<>();
+        forEach(map::put);
+        return map;
+    }
+
+    /**
+     * Removes all the stored results, keeping the capacity.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            ids[positions[i]] = null;
+            results[positions[i]] = null;
+        }
+        size = 0;
+        end = 0;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        results = Arrays.copyOf(results, capacity);
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+}
@@ -1,6 +1,8 @@
 package it.sky.rulesengine.core.impl;
 
+import it.sky.rulesengine.core.api.ResultSink;
 import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.api.RuleSet;
 import it.sky.rulesengine.core.api.RulesEngine;
 import it.sky.rulesengine.core.impl.exception.RuleEvaluationException;
 import lombok.AccessLevel;
@@ -9,23 +11,37 @@ import lombok.RequiredArgsConstructor;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * An immutable implementation of the {@link RulesEngine} interface
  * with a fluent API to customize the rules evaluation strategy.
+ *
+ * <p>{@link RuleSet Rule sets} are already sorted, hence they are evaluated
+ * with a plain indexed loop, without applying the stream mapping.
+ * Batches of facts are evaluated with the same loop, stream mapping the rules only once.
+ *
+ * <p>With a {@link #withParallelism(Parallelism) parallelism}, large enough collections of rules
+ * are split across a dedicated pool.
  */
 @RequiredArgsConstructor(access = AccessLevel.PROTECTED)
 public class StreamingRulesEngine implements RulesEngine {
 
-    private static final StreamingRulesEngine INSTANCE = new StreamingRulesEngine(s -> s, Function.identity());
+    private static final StreamingRulesEngine INSTANCE = new StreamingRulesEngine(s -> s, Function.identity(),
+            Parallelism.SEQUENTIAL);
 
     protected final UnaryOperator<Stream<?>> streamMapper;
     protected final Function<? super RuleEvaluationException, ? extends RuntimeException> exceptionMapper;
+    @NonNull
+    protected final Parallelism parallelism;
 
     /**
      * Creates an instance.
@@ -38,6 +54,8 @@ public class StreamingRulesEngine implements RulesEngine {
 
     /**
      * Returns a copy that applies the given mapper to the rules's stream.
+     *
+     * <p>The mapper is not applied to {@link RuleSet rule sets}.
      * <p>Example:
      * <pre>
      *     RulesEngine sortedEngine = RulesEngine.create()
@@ -49,7 +67,7 @@ public class StreamingRulesEngine implements RulesEngine {
      * @return the new engine
      */
     public StreamingRulesEngine withStreamMapping(@NonNull UnaryOperator<Stream<?>> mapper) {
-        return create(s -> mapper.apply(streamMapper.apply(s)), exceptionMapper);
+        return create(s -> mapper.apply(streamMapper.apply(s)), exceptionMapper, parallelism);
     }
 
     /**
@@ -61,11 +79,40 @@ public class StreamingRulesEngine implements RulesEngine {
      */
     public StreamingRulesEngine withExceptionMapping(
             @NonNull Function<? super RuleEvaluationException, ? extends RuntimeException> mapper) {
-        return this.exceptionMapper == mapper ? this : create(streamMapper, mapper);
+        return this.exceptionMapper == mapper ? this : create(streamMapper, mapper, parallelism);
+    }
+
+    /**
+     * Returns a copy that evaluates the rules with the given parallelism.
+     *
+     * <p>With <code>applyAll</code>, the rules are tested and applied concurrently, then the results are
+     * passed to the sink, or put into the result map, sequentially and in the rules' order.
+     * With <code>applyFirst</code>, the rules are tested concurrently in chunks that follow the rules' order:
+     * the chunks following a matching rule are not tested any more, and only the first matching rule is applied.
+     * Either way, the results and the thrown exception are those of a sequential evaluation: if several rules fail,
+     * the exception of the first of them is thrown. The side effects may differ instead, since more rules
+     * may be tested or applied, e.g. the rules following a failing one with <code>applyAll</code>, or
+     * the rules of the same chunk following a matching one with <code>applyFirst</code>.
+     * The stream mapping is applied before the evaluation, hence it should not make the stream parallel.
+     *
+     * <p>Example:
+     * <pre>
+     *     RulesEngine parallelEngine = StreamingRulesEngine.create()
+     *          .withParallelism(Parallelism.of(new ForkJoinPool(4), 64));
+     * </pre>
+     *
+     * @param parallelism the parallelism
+     * @return the new engine
+     */
+    public StreamingRulesEngine withParallelism(@NonNull Parallelism parallelism) {
+        return this.parallelism == parallelism ? this : create(streamMapper, exceptionMapper, parallelism);
     }
 
     @Override
     public <A, B> Optional<B> applyFirst(@NonNull Collection<Rule<A, B>> rules, A facts) {
+        if (parallelism.isParallel(rules.size())) {
+            return applyFirstPrepared(prepare(rules), facts);
+        }
         return stream(rules, facts)
                 .filter(r -> test(r, facts))
                 .findFirst()
@@ -74,16 +121,252 @@ public class StreamingRulesEngine implements RulesEngine {
 
     @Override
     public <A, B> Map<String, B> applyAll(@NonNull Collection<Rule<A, B>> rules, A facts) {
+        if (parallelism.isParallel(rules.size())) {
+            return applyAllPrepared(prepare(rules), facts);
+        }
         return stream(rules, facts)
                 .filter(r -> test(r, facts))
                 .collect(HashMap::new, (m, r) -> m.put(r.getId(), apply(r, facts)), Map::putAll);
     }
 
+    @Override
+    public <A, B> Optional<B> applyFirst(@NonNull RuleSet<A, B> rules, A facts) {
+        return applyFirstPrepared(rules, facts);
+    }
+
+    @Override
+    public <A, B> Map<String, B> applyAll(@NonNull RuleSet<A, B> rules, A facts) {
+        return applyAllPrepared(rules, facts);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Rule sets are evaluated with an indexed loop that doesn't allocate.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <A, B> void applyAll(@NonNull Collection<Rule<A, B>> rules, A facts,
+                                @NonNull BiConsumer<String, ? super B> sink) {
+        applyAllPrepared(prepare(rules), facts,
+                sink instanceof ResultSink ? (ResultSink<? super B>) sink : (ResultSink<B>) sink::accept);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The rules are evaluated with an indexed loop that doesn't allocate.
+     */
+    @Override
+    public <A, B> void applyAll(@NonNull RuleSet<A, B> rules, A facts, @NonNull ResultSink<? super B> sink) {
+        applyAllPrepared(rules, facts, sink);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The rules are prepared, that is stream mapped, only once for the whole batch.
+     */
+    @Override
+    public <A, B> void applyFirstBatch(@NonNull Collection<Rule<A, B>> rules, @NonNull Iterable<? extends A> facts,
+                                       @NonNull BiConsumer<? super A, ? super Optional<B>> sink) {
+        List<Rule<A, B>> preparedRules = prepare(rules);
+        for (A f : facts) {
+            sink.accept(f, applyFirstPrepared(preparedRules, f));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The rules are prepared, that is stream mapped, only once for the whole batch.
+     */
+    @Override
+    public <A, B> void applyFirstBatch(@NonNull Collection<Rule<A, B>> rules, @NonNull List<? extends A> facts,
+                                       @NonNull B[] results) {
+        BatchAction.checkCapacity(facts, results);
+        List<Rule<A, B>> preparedRules = prepare(rules);
+        for (int i = 0, size = facts.size(); i < size; i++) {
+            results[i] = applyFirstPrepared(preparedRules, facts.get(i)).orElse(null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The rules are prepared, that is stream mapped, only once for the whole batch.
+     */
+    @Override
+    public <A, B> void applyFirstBatch(@NonNull Collection<Rule<A, B>> rules, @NonNull List<? extends A> facts,
+                                       @NonNull B[] results, @NonNull ForkJoinPool pool) {
+        BatchAction.checkCapacity(facts, results);
+        List<Rule<A, B>> preparedRules = prepare(rules);
+        BatchAction.invoke(pool, facts.size(), i -> results[i] = applyFirstPrepared(preparedRules, facts.get(i)).orElse(null));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The rules are prepared, that is stream mapped, only once for the whole batch.
+     */
+    @Override
+    public <A, B> void applyAllBatch(@NonNull Collection<Rule<A, B>> rules, @NonNull Iterable<? extends A> facts,
+                                     @NonNull BiConsumer<? super A, ? super Map<String, B>> sink) {
+        List<Rule<A, B>> preparedRules = prepare(rules);
+        for (A f : facts) {
+            sink.accept(f, applyAllPrepared(preparedRules, f));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The rules are prepared, that is stream mapped, only once for the whole batch.
+     */
+    @Override
+    public <A, B> void applyAllBatch(@NonNull Collection<Rule<A, B>> rules, @NonNull List<? extends A> facts,
+                                     @NonNull Map<String, B>[] results) {
+        BatchAction.checkCapacity(facts, results);
+        List<Rule<A, B>> preparedRules = prepare(rules);
+        for (int i = 0, size = facts.size(); i < size; i++) {
+            results[i] = applyAllPrepared(preparedRules, facts.get(i));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The rules are prepared, that is stream mapped, only once for the whole batch.
+     */
+    @Override
+    public <A, B> void applyAllBatch(@NonNull Collection<Rule<A, B>> rules, @NonNull List<? extends A> facts,
+                                     @NonNull Map<String, B>[] results, @NonNull ForkJoinPool pool) {
+        BatchAction.checkCapacity(facts, results);
+        List<Rule<A, B>> preparedRules = prepare(rules);
+        BatchAction.invoke(pool, facts.size(), i -> results[i] = applyAllPrepared(preparedRules, facts.get(i)));
+    }
+
     @SuppressWarnings({"unchecked", "unused"})
     protected <A, B> Stream<Rule<A, B>> stream(Collection<Rule<A, B>> rules, A facts) {
         return (Stream<Rule<A, B>>) streamMapper.apply(rules.stream());
     }
 
+    /**
+     * Prepares the given rules for an indexed evaluation.
+     *
+     * <p>Rule sets are returned as they are, while other collections are stream mapped.
+     *
+     * @param rules the rules
+     * @return the prepared rules
+     */
+    @SuppressWarnings("unchecked")
+    protected <A, B> List<Rule<A, B>> prepare(Collection<Rule<A, B>> rules) {
+        if (rules instanceof RuleSet) {
+            return (RuleSet<A, B>) rules;
+        }
+        return ((Stream<Rule<A, B>>) streamMapper.apply(rules.stream())).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the rule to evaluate in place of the given one for the given facts.
+     * The default implementation returns the rule itself.
+     *
+     * @param rule  the rule
+     * @param facts the facts
+     * @return the rule to evaluate
+     */
+    @SuppressWarnings("unused")
+    protected <A, B> Rule<A, B> resolve(Rule<A, B> rule, A facts) {
+        return rule;
+    }
+
+    /**
+     * Applies the first applicable rule among the given prepared rules.
+     *
+     * @param rules the prepared rules
+     * @param facts the facts to test
+     * @return the result of the rule
+     * @see #prepare(Collection)
+     */
+    protected <A, B> Optional<B> applyFirstPrepared(List<Rule<A, B>> rules, A facts) {
+        if (parallelism.isParallel(rules.size())) {
+            int first = FirstMatchAction.invoke(parallelism.getPool(), rules.size(),
+                    i -> test(resolve(rules.get(i), facts), facts));
+            return first < 0 ? Optional.empty() : Optional.ofNullable(apply(resolve(rules.get(first), facts), facts));
+        }
+        for (int i = 0, size = rules.size(); i < size; i++) {
+            Rule<A, B> rule = resolve(rules.get(i), facts);
+            if (test(rule, facts)) {
+                return Optional.ofNullable(apply(rule, facts));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Applies all the applicable rules among the given prepared rules,
+     * passing each result, together with the rule's position, to the given sink.
+     * The rules of a {@link CostOrderedRuleSet} are sequentially tested from the cheapest.
+     *
+     * @param rules the prepared rules
+     * @param facts the facts to test
+     * @param sink  the consumer of the rules' positions, ids and results
+     * @see #prepare(Collection)
+     */
+    protected <A, B> void applyAllPrepared(List<Rule<A, B>> rules, A facts, ResultSink<? super B> sink) {
+        if (parallelism.isParallel(rules.size())) {
+            applyAllParallel(rules, facts, sink);
+            return;
+        }
+        if (rules instanceof CostOrderedRuleSet) {
+            for (int i : ((CostOrderedRuleSet<A, B>) rules).evaluationOrder()) {
+                Rule<A, B> rule = resolve(rules.get(i), facts);
+                if (test(rule, facts)) {
+                    sink.accept(i, rule.getId(), apply(rule, facts));
+                }
+            }
+            return;
+        }
+        for (int i = 0, size = rules.size(); i < size; i++) {
+            Rule<A, B> rule = resolve(rules.get(i), facts);
+            if (test(rule, facts)) {
+                sink.accept(i, rule.getId(), apply(rule, facts));
+            }
+        }
+    }
+
+    /*
+     * Evaluates the rules on the parallelism's pool, then merges the results in the rules' order
+     */
+    private <A, B> void applyAllParallel(List<Rule<A, B>> rules, A facts, ResultSink<? super B> sink) {
+        int size = rules.size();
+        boolean[] applied = new boolean[size];
+        String[] ids = new String[size];
+        Object[] results = new Object[size];
+        BatchAction.invoke(parallelism.getPool(), size, i -> {
+            Rule<A, B> rule = resolve(rules.get(i), facts);
+            if (test(rule, facts)) {
+                results[i] = apply(rule, facts);
+                ids[i] = rule.getId();
+                applied[i] = true;
+            }
+        });
+        for (int i = 0; i < size; i++) {
+            if (applied[i]) {
+                @SuppressWarnings("unchecked")
+                B result = (B) results[i];
+                sink.accept(i, ids[i], result);
+            }
+        }
+    }
+
+    private <A, B> Map<String, B> applyAllPrepared(List<Rule<A, B>> rules, A facts) {
+        Map<String, B> results = new HashMap<>();
+        ResultSink<B> sink = results::put;
+        applyAllPrepared(rules, facts, sink);
+        return results;
+    }
+
     protected <A> boolean test(Rule<A, ?> rule, A facts) {
         try {
             return rule.test(facts);
@@ -104,8 +387,9 @@ public class StreamingRulesEngine implements RulesEngine {
      * An overrideable factory method
      */
     protected StreamingRulesEngine create(UnaryOperator<Stream<?>> streamMapper,
-                                          Function<? super RuleEvaluationException, ? extends RuntimeException> mapper) {
-        return new StreamingRulesEngine(streamMapper, mapper);
+                                          Function<? super RuleEvaluationException, ? extends RuntimeException> mapper,
+                                          Parallelism parallelism) {
+        return new StreamingRulesEngine(streamMapper, mapper, parallelism);
     }
 
 }
@@ -0,0 +1,72 @@
+package it.sky.rulesengine.core.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveRulesEngineTest {
+
+    private final AdaptiveRulesEngine instance = AdaptiveRulesEngine.create();
+
+    private final List<Rule<Integer, String>> rules = Arrays.asList(
+            CompositeRule.create("negative", (Integer f) -> f < 0, "negative").withPriority(10),
+            CompositeRule.create("zero", (Integer f) -> f % 4 == 0, "zero").withPriority(5),
+            CompositeRule.create("one", (Integer f) -> f % 4 == 1, "one").withPriority(5),
+            CompositeRule.create("two", (Integer f) -> f % 4 == 2, "two").withPriority(5),
+            CompositeRule.create("three", (Integer f) -> f % 4 == 3, "three").withPriority(5),
+            CompositeRule.create("small", (Integer f) -> f < 100, "small").withPriority(1),
+            CompositeRule.create("any", (Integer f) -> true, "any").withPriority(1));
+
+    @Test
+    void shouldReorderExclusiveBand() {
+        AdaptiveRuleSet<Integer, String> ruleSet = AdaptiveRuleSet.of(rules, Collections.singleton(5), 100);
+        assertEquals(0, ruleSet.getAdaptations());
+        assertTrue(Double.isNaN(ruleSet.getTestsPerCall()));
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Optional.of("three"), instance.applyFirst(ruleSet, 4 * i + 3));
+        }
+
+        // equal priority rules are sorted by id: one, three, two, zero
+        int three = ruleSet.indexOf(rules.get(4));
+        assertEquals(2, three);
+        assertEquals(10, ruleSet.getAdaptations());
+        assertEquals(3.0, ruleSet.getInitialTestsPerCall());
+        assertEquals(2.0, ruleSet.getTestsPerCall());
+        assertArrayEquals(new int[]{0, 2, 1, 3, 4, 5, 6}, ruleSet.order());
+        assertEquals(rules.get(4), ruleSet.get(three));
+    }
+
+    @Test
+    void shouldPreserveResults() {
+        AdaptiveRuleSet<Integer, String> ruleSet = AdaptiveRuleSet.of(rules, Collections.singleton(5), 16);
+        StreamingRulesEngine linearEngine = StreamingRulesEngine.create();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 1000; i++) {
+            int facts = random.nextInt(10) == 0 ? random.nextInt(200) - 100 : 4 * random.nextInt(50) + 2;
+            assertEquals(linearEngine.applyFirst(ImmutableRuleSet.of(rules), facts), instance.applyFirst(ruleSet, facts));
+            assertEquals(linearEngine.applyAll(ImmutableRuleSet.of(rules), facts), instance.applyAll(ruleSet, facts));
+        }
+        assertTrue(ruleSet.getAdaptations() > 0);
+        assertEquals(ruleSet.indexOf(rules.get(3)), ruleSet.order()[1]);
+    }
+
+    @Test
+    void shouldNotReorderOtherBands() {
+        AdaptiveRuleSet<Integer, String> ruleSet = AdaptiveRuleSet.of(rules, Collections.emptySet(), 10);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Optional.of("three"), instance.applyFirst(ruleSet, 4 * i + 3));
+        }
+
+        assertEquals(10, ruleSet.getAdaptations());
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6}, ruleSet.order());
+        assertEquals(ruleSet.getInitialTestsPerCall(), ruleSet.getTestsPerCall());
+        assertThrows(IllegalArgumentException.class, () -> AdaptiveRuleSet.of(rules, Collections.emptySet(), 0));
+    }
+
+}
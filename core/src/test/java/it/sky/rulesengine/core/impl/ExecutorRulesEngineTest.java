@@ -0,0 +1,173 @@
+package it.sky.rulesengine.core.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.exception.RuleEvaluationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+class ExecutorRulesEngineTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final ExecutorRulesEngine instance = ExecutorRulesEngine.create(executor).withExecutor(executor);
+    private final List<Rule<Integer, String>> rules = Arrays.asList(
+            CompositeRule.create("even", (Integer f) -> f % 2 == 0, "even"),
+            CompositeRule.create("three", (Integer f) -> f % 3 == 0, "three"),
+            CompositeRule.create("null", (Integer f) -> f % 5 == 0, (Integer f) -> null));
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldMatchSynchronousEvaluation() throws Exception {
+        StreamingRulesEngine rulesEngine = StreamingRulesEngine.create();
+
+        for (int f = 1; f <= 30; f++) {
+            assertEquals(rulesEngine.applyFirst(rules, f), instance.applyFirstAsync(rules, f).get(1, TimeUnit.SECONDS));
+            assertEquals(rulesEngine.applyAll(rules, f), instance.applyAllAsync(rules, f).get(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void shouldNotBlockTheCaller() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+        List<Rule<Integer, Thread>> blockingRules = Collections.singletonList(CompositeRule.create("blocking",
+                (Integer f) -> {
+                    try {
+                        return latch.await(1, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }, (Integer f) -> Thread.currentThread()));
+
+        CompletableFuture<Optional<Thread>> result = instance.applyFirstAsync(blockingRules, 0);
+        assertFalse(result.isDone());
+        latch.countDown();
+        assertNotSame(caller, result.get(1, TimeUnit.SECONDS).orElse(caller));
+    }
+
+    @Test
+    void shouldMapTimeouts() {
+        RuntimeException mappedException = new RuntimeException();
+        List<Rule<Integer, String>> slowRules = Arrays.asList(
+                CompositeRule.create("fast", (Integer f) -> false, "fast"),
+                CompositeRule.create("slow", (Integer f) -> {
+                    try {
+                        Thread.sleep(1_000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return true;
+                }, "slow"));
+        ExecutorRulesEngine rulesEngine = instance.withRuleTimeout(Duration.ofMillis(20));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> rulesEngine.applyFirstAsync(slowRules, 0).get(1, TimeUnit.SECONDS));
+        RuleEvaluationException cause = (RuleEvaluationException) e.getCause();
+        assertEquals("slow", cause.getRule().getId());
+        assertTrue(cause.getCause() instanceof TimeoutException);
+
+        e = assertThrows(ExecutionException.class, () -> rulesEngine.withExceptionMapping(ex -> mappedException)
+                .applyAllAsync(slowRules, 0).get(1, TimeUnit.SECONDS));
+        assertSame(mappedException, e.getCause());
+    }
+
+    @Test
+    void shouldMapEvaluationErrors() {
+        RuntimeException exception = new RuntimeException();
+        List<Rule<Integer, String>> brokenRules = Collections.singletonList(CompositeRule.create("broken",
+                (Integer f) -> true, (Integer f) -> {
+                    throw exception;
+                }));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> instance.applyFirstAsync(brokenRules, 0).get(1, TimeUnit.SECONDS));
+        assertSame(exception, e.getCause().getCause());
+
+        e = assertThrows(ExecutionException.class, () -> instance.withExceptionMapping(ex -> (RuntimeException) ex.getCause())
+                .applyAllAsync(brokenRules, 0).get(1, TimeUnit.SECONDS));
+        assertSame(exception, e.getCause());
+    }
+
+    @Test
+    void shouldFailWithTheFirstFailureInTheRulesOrder() {
+        List<Rule<Integer, String>> brokenRules = Arrays.asList(
+                CompositeRule.create("ok", (Integer f) -> true, "ok"),
+                CompositeRule.create("slow", (Integer f) -> {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IllegalArgumentException();
+                }, "slow"),
+                CompositeRule.create("fast", (Integer f) -> true, (Integer f) -> {
+                    throw new IllegalArgumentException();
+                }));
+
+        Throwable failure = instance.withExceptionMapping(e -> new IllegalStateException(e.getRule().getId()))
+                .applyAllAsync(brokenRules, 0).handle((results, e) -> e).join();
+        assertTrue(failure instanceof IllegalStateException);
+        assertEquals("slow", failure.getMessage());
+    }
+
+    @Test
+    void shouldCompleteOnErrors() {
+        List<Rule<Integer, String>> brokenRules = Collections.singletonList(CompositeRule.create("broken",
+                (Integer f) -> {
+                    throw new AssertionError();
+                }, "broken"));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> instance.applyAllAsync(brokenRules, 0).get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause().getCause() instanceof AssertionError);
+
+        IllegalStateException mapperFailure = new IllegalStateException();
+        e = assertThrows(ExecutionException.class, () -> instance.withExceptionMapping(ex -> {
+            throw mapperFailure;
+        }).applyFirstAsync(brokenRules, 0).get(1, TimeUnit.SECONDS));
+        assertSame(mapperFailure, e.getCause());
+    }
+
+    @Test
+    void shouldFallBackToTheGivenExecutor() throws Exception {
+        assumeFalse(ExecutorRulesEngine.isVirtualThreadsSupported());
+        AtomicInteger tasks = new AtomicInteger();
+
+        ExecutorRulesEngine.create(task -> {
+            tasks.incrementAndGet();
+            executor.execute(task);
+        }).applyAllAsync(rules, 6).get(1, TimeUnit.SECONDS);
+        // three conditions and two actions
+        assertEquals(5, tasks.get());
+    }
+
+    @Test
+    void shouldTestManyRulesOnTheCallerThread() throws Exception {
+        List<Rule<Integer, String>> manyRules = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            manyRules.add(CompositeRule.create("rule-" + i, (Integer f) -> false, "never"));
+        }
+        manyRules.add(CompositeRule.create("last", (Integer f) -> true, "last"));
+        ExecutorRulesEngine sameThreadEngine = instance.withExecutor(Runnable::run);
+
+        assertEquals(Optional.of("last"), sameThreadEngine.applyFirstAsync(manyRules, 0).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldRejectNonPositiveTimeouts() {
+        assertThrows(IllegalArgumentException.class, () -> instance.withRuleTimeout(Duration.ZERO));
+    }
+
+}
@@ -0,0 +1,66 @@
+package it.sky.rulesengine.core.impl;
+
+import com.flextrade.jfixture.FixtureAnnotations;
+import com.flextrade.jfixture.annotations.Fixture;
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.api.RuleSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImmutableRuleSetTest {
+
+    @Fixture
+    String id1;
+    @Fixture
+    String id2;
+    @Fixture
+    String id3;
+
+    @BeforeEach
+    void beforeEach() {
+        FixtureAnnotations.initFixtures(this);
+    }
+
+    @Test
+    void shouldSortByPriority() {
+        Rule<Object, Object> rule1 = CompositeRule.create(id1).withPriority(-1);
+        Rule<Object, Object> rule2 = CompositeRule.create(id2).withPriority(10);
+        Rule<Object, Object> rule3 = CompositeRule.create(id3).withPriority(5);
+
+        RuleSet<Object, Object> ruleSet = ImmutableRuleSet.of(rule1, rule2, rule3);
+
+        assertEquals(Arrays.asList(rule2, rule3, rule1), ruleSet);
+    }
+
+    @Test
+    void shouldNotReflectSourceChanges() {
+        List<Rule<Object, Object>> rules = new ArrayList<>();
+        rules.add(CompositeRule.create(id1));
+        RuleSet<Object, Object> ruleSet = ImmutableRuleSet.of(rules);
+
+        rules.add(CompositeRule.create(id2));
+
+        assertEquals(1, ruleSet.size());
+    }
+
+    @Test
+    void shouldBeImmutable() {
+        RuleSet<Object, Object> ruleSet = ImmutableRuleSet.of(CompositeRule.create(id1));
+
+        assertThrows(UnsupportedOperationException.class, () -> ruleSet.add(CompositeRule.create(id2)));
+        assertThrows(UnsupportedOperationException.class, () -> ruleSet.remove(0));
+        assertThrows(UnsupportedOperationException.class, ruleSet::clear);
+    }
+
+    @Test
+    void shouldRejectNullRules() {
+        assertThrows(NullPointerException.class, () -> ImmutableRuleSet.of(Arrays.asList(CompositeRule.create(id1), null)));
+    }
+
+}
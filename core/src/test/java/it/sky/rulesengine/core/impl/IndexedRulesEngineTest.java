@@ -0,0 +1,124 @@
+package it.sky.rulesengine.core.impl;
+
+import it.sky.rulesengine.core.api.EqualityCondition;
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.exception.RuleEvaluationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IndexedRulesEngineTest {
+
+    private static final BiFunction<Map<String, Object>, String, Object> ATTRIBUTES = Map::get;
+
+    private final IndexedRulesEngine instance = IndexedRulesEngine.create();
+
+    @Test
+    void shouldTestOnlyCandidateRules() {
+        List<Rule<Map<String, Object>, String>> rules = new ArrayList<>();
+        for (String country : Arrays.asList("IT", "DE", "FR")) {
+            for (String channel : Arrays.asList("web", "app")) {
+                rules.add(CompositeRule.create(country + "-" + channel, condition("country", country, "channel", channel),
+                        country + "-" + channel));
+            }
+        }
+        IndexedRuleSet<Map<String, Object>, String> ruleSet = IndexedRuleSet.of(rules, ATTRIBUTES);
+
+        assertEquals(6, ruleSet.indexedCount());
+        assertEquals(2, ruleSet.candidates(facts("country", "IT", "channel", "web")).cardinality());
+        assertEquals(Optional.of("IT-web"), instance.applyFirst(ruleSet, facts("country", "IT", "channel", "web")));
+        assertEquals(Collections.singletonMap("FR-app", "FR-app"),
+                instance.applyAll(ruleSet, facts("country", "FR", "channel", "app")));
+        assertTrue(instance.applyAll(ruleSet, facts("country", "US", "channel", "app")).isEmpty());
+    }
+
+    @Test
+    void shouldPreservePriorityOrder() {
+        Rule<Map<String, Object>, String> lowIndexed = CompositeRule
+                .create("low", condition("country", "IT"), "low").withPriority(1);
+        Rule<Map<String, Object>, String> unindexed = CompositeRule
+                .create("unindexed", (Map<String, Object> f) -> !"FR".equals(f.get("country")), "unindexed")
+                .withPriority(5);
+        Rule<Map<String, Object>, String> highIndexed = CompositeRule
+                .create("high", condition("country", "IT"), "high").withPriority(10);
+        List<Rule<Map<String, Object>, String>> rules = Arrays.asList(lowIndexed, unindexed, highIndexed);
+        IndexedRuleSet<Map<String, Object>, String> ruleSet = IndexedRuleSet.of(rules, ATTRIBUTES);
+        StreamingRulesEngine linearEngine = StreamingRulesEngine.create().withStreamMapping(Stream::sorted);
+
+        assertEquals(2, ruleSet.indexedCount());
+        for (String country : Arrays.asList("IT", "DE", "FR")) {
+            Map<String, Object> facts = facts("country", country);
+            assertEquals(linearEngine.applyFirst(rules, facts), instance.applyFirst(ruleSet, facts));
+            assertEquals(linearEngine.applyAll(rules, facts), instance.applyAll(ruleSet, facts));
+        }
+        assertEquals(Optional.of("high"), instance.applyFirst(ruleSet, facts("country", "IT")));
+        assertEquals(Optional.of("unindexed"), instance.applyFirst(ruleSet, facts("country", "DE")));
+    }
+
+    @Test
+    void shouldNotIndexAlwaysApplyingRules() {
+        Rule<Map<String, Object>, String> elseRule = CompositeRule
+                .create("else", condition("country", "IT"), "then")
+                .orElseReturn("else");
+        IndexedRuleSet<Map<String, Object>, String> ruleSet = IndexedRuleSet.of(Collections.singleton(elseRule), ATTRIBUTES);
+
+        assertEquals(0, ruleSet.indexedCount());
+        assertEquals(Optional.of("else"), instance.applyFirst(ruleSet, facts("country", "DE")));
+    }
+
+    @Test
+    void shouldCompareNumbersByValue() {
+        Rule<Map<String, Object>, String> rule = CompositeRule.create("rule", condition("zone", 1), "result");
+        IndexedRuleSet<Map<String, Object>, String> ruleSet = IndexedRuleSet.of(Collections.singleton(rule), ATTRIBUTES);
+
+        assertEquals(Optional.of("result"), instance.applyFirst(ruleSet, facts("zone", 1L)));
+        assertEquals(Optional.of("result"), instance.applyFirst(ruleSet, facts("zone", 1.0)));
+        assertFalse(instance.applyFirst(ruleSet, facts("zone", 2)).isPresent());
+    }
+
+    @Test
+    void shouldEvaluateOtherCollectionsLinearly() {
+        Rule<Map<String, Object>, String> rule = spy(CompositeRule.create("rule", condition("country", "IT"), "result"));
+        Collection<Rule<Map<String, Object>, String>> rules = Collections.singletonList(rule);
+
+        assertEquals(Optional.of("result"), instance.applyFirst(rules, facts("country", "IT")));
+        assertTrue(instance.applyAll(rules, facts("country", "DE")).isEmpty());
+        verify(rule, times(2)).test(any());
+    }
+
+    @Test
+    void shouldMapAttributeFailures() {
+        IllegalStateException failure = new IllegalStateException("no country");
+        Rule<Map<String, Object>, String> low = CompositeRule.create("low", condition("country", "IT"), "low");
+        Rule<Map<String, Object>, String> high = CompositeRule.create("high", condition("country", "DE"), "high")
+                .withPriority(1);
+        IndexedRuleSet<Map<String, Object>, String> ruleSet = IndexedRuleSet.of(Arrays.asList(low, high), (f, a) -> {
+            throw failure;
+        });
+
+        RuleEvaluationException e = assertThrows(RuleEvaluationException.class,
+                () -> instance.applyFirst(ruleSet, facts()));
+        assertSame(high, e.getRule());
+        assertSame(failure, e.getCause());
+        IndexedRulesEngine rulesEngine = instance.withExceptionMapping(ex -> (RuntimeException) ex.getCause());
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> rulesEngine.applyAll(ruleSet, facts())));
+    }
+
+    private static EqualityCondition<Map<String, Object>> condition(Object... keyValues) {
+        return DefaultEqualityCondition.of(facts(keyValues), ATTRIBUTES);
+    }
+
+    private static Map<String, Object> facts(Object... keyValues) {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            map.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+
+}
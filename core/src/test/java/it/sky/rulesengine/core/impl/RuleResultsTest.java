@@ -0,0 +1,88 @@
+package it.sky.rulesengine.core.impl;
+
+import com.flextrade.jfixture.FixtureAnnotations;
+import com.flextrade.jfixture.annotations.Fixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleResultsTest {
+
+    @Fixture
+    String id1;
+    @Fixture
+    String id2;
+    @Fixture
+    Object result1;
+    @Fixture
+    Object result2;
+
+    @BeforeEach
+    void beforeEach() {
+        FixtureAnnotations.initFixtures(this);
+    }
+
+    @Test
+    void shouldStoreResultsByPosition() {
+        RuleResults<Object> results = new RuleResults<>(2);
+
+        results.accept(5, id2, result2);
+        results.accept(1, id1, null);
+
+        assertEquals(2, results.size());
+        assertTrue(results.contains(1));
+        assertFalse(results.contains(0));
+        assertFalse(results.contains(100));
+        assertEquals(id2, results.getId(5));
+        assertEquals(result2, results.get(5));
+        assertNull(results.get(1));
+
+        List<String> ids = new ArrayList<>();
+        results.forEach((id, result) -> ids.add(id));
+        assertEquals(Arrays.asList(id1, id2), ids);
+    }
+
+    @Test
+    void shouldAppendResultsWithoutPosition() {
+        RuleResults<Object> results = new RuleResults<>(1);
+
+        results.accept(3, id1, result1);
+        results.accept(id2, result2);
+
+        assertEquals(id2, results.getId(4));
+        Map<String, Object> expected = new HashMap<>();
+        expected.put(id1, result1);
+        expected.put(id2, result2);
+        assertEquals(expected, results.toMap());
+    }
+
+    @Test
+    void clearShouldRemoveAllResults() {
+        RuleResults<Object> results = new RuleResults<>();
+        results.accept(0, id1, result1);
+        results.accept(20, id2, result2);
+
+        results.clear();
+
+        assertTrue(results.isEmpty());
+        assertFalse(results.contains(0));
+        assertFalse(results.contains(20));
+        assertTrue(results.toMap().isEmpty());
+
+        results.accept(id1, result1);
+        assertEquals(id1, results.getId(0));
+    }
+
+    @Test
+    void shouldRejectNegativePositions() {
+        assertThrows(IndexOutOfBoundsException.class, () -> new RuleResults<>().accept(-1, id1, result1));
+    }
+
+}
@@ -2,7 +2,9 @@ package it.sky.rulesengine.core.impl;
 
 import com.flextrade.jfixture.FixtureAnnotations;
 import com.flextrade.jfixture.annotations.Fixture;
+import com.sun.management.ThreadMXBean;
 import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.api.RuleSet;
 import it.sky.rulesengine.core.api.RulesEngine;
 import it.sky.rulesengine.core.impl.exception.RuleEvaluationException;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,12 +12,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.lang.management.ManagementFactory;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.Mockito.*;
 
 class StreamingRulesEngineTest {
@@ -117,6 +122,368 @@ class StreamingRulesEngineTest {
         verify(matchingRule2).apply(facts);
     }
 
+    @Test
+    void ruleSetShouldFollowPriorityOrder() {
+        Rule<Object, Object> lowPriorityRule = CompositeRule.create(id1, f -> true, result1).withPriority(0);
+        Rule<Object, Object> highPriorityRule = CompositeRule.create(id2, f -> true, result2).withPriority(1);
+        RuleSet<Object, Object> rules = ImmutableRuleSet.of(lowPriorityRule, highPriorityRule);
+
+        assertEquals(Optional.of(result2), instance.applyFirst(rules, facts));
+
+        Map<String, Object> results = instance.applyAll(rules, facts);
+        assertEquals(2, results.size());
+        assertEquals(result1, results.get(id1));
+        assertEquals(result2, results.get(id2));
+    }
+
+    @Test
+    void costOrderedRuleSetShouldTestCheapestFirst() {
+        List<String> tested = new ArrayList<>();
+        Rule<Object, Object> expensiveRule = CompositeRule.create(id1, f -> tested.add(id1), result1).withPriority(1);
+        Rule<Object, Object> cheapRule = CompositeRule.create(id2, f -> tested.add(id2), result2).withPriority(0);
+        Map<Rule<Object, Object>, Double> costs = new HashMap<>();
+        costs.put(expensiveRule, 10.0);
+        costs.put(cheapRule, 1.0);
+        CostOrderedRuleSet<Object, Object> rules = CostOrderedRuleSet.of(Arrays.asList(cheapRule, expensiveRule), costs::get);
+
+        assertEquals(Arrays.asList(expensiveRule, cheapRule), rules);
+        RuleResults<Object> results = new RuleResults<>(rules.size());
+        instance.applyAll(rules, facts, results);
+        assertEquals(Arrays.asList(id2, id1), tested);
+        assertEquals(result1, results.get(0));
+        assertEquals(result2, results.get(1));
+
+        tested.clear();
+        assertEquals(Optional.of(result1), instance.applyFirst(rules, facts));
+        assertEquals(Collections.singletonList(id1), tested);
+    }
+
+    @Test
+    void ruleSetShouldNotApplyStreamMapping() {
+        Rule<Object, Object> rule = mockRule(id1, f -> true, f -> result1);
+        RuleSet<Object, Object> rules = ImmutableRuleSet.of(Collections.singletonList(rule));
+        RulesEngine rulesEngine = instance.withStreamMapping(s -> Stream.empty());
+
+        assertEquals(Optional.of(result1), rulesEngine.applyFirst(rules, facts));
+        assertEquals(Collections.singletonMap(id1, result1), rulesEngine.applyAll(rules, facts));
+    }
+
+    @Test
+    void ruleSetShouldMatchCollectionSemantics() {
+        Rule<Object, Object> notMatchingRule = mockRule(id1, f -> false, f -> result1);
+        Rule<Object, Object> nullResultRule = mockRule(id2, f -> true, f -> null);
+        Rule<Object, Object> matchingRule = mockRule(id3, f -> true, f -> result3);
+        List<Rule<Object, Object>> rules = Arrays.asList(notMatchingRule, nullResultRule, matchingRule);
+        RuleSet<Object, Object> ruleSet = ImmutableRuleSet.of(rules);
+
+        assertEquals(instance.applyFirst(rules, facts), instance.applyFirst(ruleSet, facts));
+        assertEquals(instance.applyAll(rules, facts), instance.applyAll(ruleSet, facts));
+        verify(matchingRule, times(2)).test(facts);
+        verify(matchingRule, times(2)).apply(facts);
+    }
+
+    @Test
+    void sinkShouldMatchResultMap() {
+        Rule<Object, Object> matchingRule1 = mockRule(id1, f -> true, f -> result1);
+        Rule<Object, Object> notMatchingRule = mockRule(id2, f -> false, f -> result2);
+        Rule<Object, Object> nullResultRule = mockRule(id3, f -> true, f -> null);
+        List<Rule<Object, Object>> rules = Arrays.asList(matchingRule1, notMatchingRule, nullResultRule);
+        RuleSet<Object, Object> ruleSet = ImmutableRuleSet.of(rules);
+
+        Map<String, Object> sinkResults = new HashMap<>();
+        instance.applyAll(rules, facts, sinkResults::put);
+        assertEquals(instance.applyAll(rules, facts), sinkResults);
+
+        RuleResults<Object> ruleResults = new RuleResults<>();
+        instance.applyAll(ruleSet, facts, ruleResults);
+        assertEquals(instance.applyAll(ruleSet, facts), ruleResults.toMap());
+        for (int i = 0; i < ruleSet.size(); i++) {
+            assertEquals(ruleSet.get(i).getId().equals(id2), !ruleResults.contains(i));
+        }
+    }
+
+    @Test
+    void ruleSetSinkShouldNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+        ThreadMXBean allocations = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+
+        List<Rule<Integer, Integer>> rules = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int index = i;
+            rules.add(CompositeRule.<Integer, Integer>create("rule-" + i, f -> f % 10 == index % 10, index));
+        }
+        RuleSet<Integer, Integer> ruleSet = ImmutableRuleSet.of(rules);
+        RuleResults<Integer> results = new RuleResults<>(ruleSet.size());
+        Integer facts = 3;
+
+        for (int i = 0; i < 10_000; i++) {
+            results.clear();
+            instance.applyAll(ruleSet, facts, results);
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            results.clear();
+            instance.applyAll(ruleSet, facts, results);
+        }
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(10, results.size());
+        // the allocation counter itself may account for a few bytes
+        assertTrue(allocated < 1024, () -> String.format("%d bytes allocated", allocated));
+    }
+
+    @Test
+    void batchShouldMatchSingleEvaluations() {
+        Collection<Rule<Integer, Object>> rules = Arrays.asList(
+                CompositeRule.create(id1, (Integer f) -> f % 2 == 0, result1).withPriority(1),
+                CompositeRule.create(id2, (Integer f) -> f % 3 == 0, result2));
+        List<Integer> batch = Arrays.asList(1, 2, 3, 4, 5, 6);
+
+        List<Optional<Object>> firstResults = new ArrayList<>();
+        instance.applyFirstBatch(rules, batch, (f, r) -> firstResults.add(r));
+        List<Map<String, Object>> allResults = new ArrayList<>();
+        instance.applyAllBatch(rules, batch, (f, r) -> allResults.add(r));
+        Object[] firstArray = new Object[batch.size()];
+        instance.applyFirstBatch(rules, batch, firstArray);
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        Map<String, Object>[] allArray = new Map[batch.size()];
+        instance.applyAllBatch(rules, batch, allArray);
+
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(instance.applyFirst(rules, batch.get(i)), firstResults.get(i));
+            assertEquals(instance.applyFirst(rules, batch.get(i)).orElse(null), firstArray[i]);
+            assertEquals(instance.applyAll(rules, batch.get(i)), allResults.get(i));
+            assertEquals(instance.applyAll(rules, batch.get(i)), allArray[i]);
+        }
+    }
+
+    @Test
+    void batchShouldApplyStreamMappingOnce() {
+        Rule<Object, Object> rule = mockRule(id1, f -> true, f -> result1);
+        List<Object> batch = Arrays.asList(facts, facts, facts);
+        int[] mappings = new int[1];
+        RulesEngine rulesEngine = instance.withStreamMapping(s -> {
+            mappings[0]++;
+            return s;
+        });
+
+        rulesEngine.applyFirstBatch(Collections.singletonList(rule), batch, new Object[batch.size()]);
+        assertEquals(1, mappings[0]);
+
+        rulesEngine.applyAllBatch(Collections.singletonList(rule), batch, (f, r) -> {
+        });
+        assertEquals(2, mappings[0]);
+        verify(rule, times(6)).test(facts);
+    }
+
+    @Test
+    void parallelBatchShouldStoreResultsByIndex() {
+        Collection<Rule<Integer, Integer>> rules = Collections.singletonList(
+                CompositeRule.create(id1, (Integer f) -> f % 2 == 0, (Integer f) -> f * 2));
+        List<Integer> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(i);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Integer[] firstResults = new Integer[batch.size()];
+            instance.applyFirstBatch(rules, batch, firstResults, pool);
+            @SuppressWarnings({"rawtypes", "unchecked"})
+            Map<String, Integer>[] allResults = new Map[batch.size()];
+            instance.applyAllBatch(rules, batch, allResults, pool);
+
+            for (int i = 0; i < batch.size(); i++) {
+                assertEquals(i % 2 == 0 ? Integer.valueOf(i * 2) : null, firstResults[i]);
+                assertEquals(i % 2 == 0 ? Collections.singletonMap(id1, i * 2) : Collections.emptyMap(), allResults[i]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelBatchShouldThrowTheFirstFailure() {
+        List<RuntimeException> exceptions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            exceptions.add(new RuntimeException());
+        }
+        Collection<Rule<Integer, Object>> rules = Collections.singletonList(
+                CompositeRule.create(id1, (Integer f) -> f >= 10, (Integer f) -> {
+                    throw exceptions.get(f);
+                }));
+        List<Integer> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(i);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            RuleEvaluationException e = assertThrows(RuleEvaluationException.class,
+                    () -> instance.applyFirstBatch(rules, batch, new Object[batch.size()], pool));
+            assertSame(exceptions.get(10), e.getCause());
+
+            RulesEngine rulesEngine = instance.withExceptionMapping(ex -> (RuntimeException) ex.getCause());
+            @SuppressWarnings({"rawtypes", "unchecked"})
+            Map<String, Object>[] allResults = new Map[batch.size()];
+            assertSame(exceptions.get(10), assertThrows(RuntimeException.class,
+                    () -> rulesEngine.applyAllBatch(rules, batch, allResults, pool)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelApplyAllShouldMergeInRulesOrder() {
+        List<Rule<Integer, Integer>> rules = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int index = i;
+            rules.add(CompositeRule.<Integer, Integer>create("rule-" + i % 900, f -> index % f == 0, index));
+        }
+        RuleSet<Integer, Integer> ruleSet = ImmutableRuleSet.of(rules);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            StreamingRulesEngine parallelEngine = instance.withParallelism(Parallelism.of(pool, 100));
+
+            assertEquals(instance.applyAll(rules, 3), parallelEngine.applyAll(rules, 3));
+            assertEquals(instance.applyAll(ruleSet, 3), parallelEngine.applyAll(ruleSet, 3));
+            assertEquals(Integer.valueOf(903), parallelEngine.applyAll(rules, 3).get("rule-3"));
+
+            List<String> ids = new ArrayList<>();
+            parallelEngine.applyAll(ruleSet, 7, (id, result) -> ids.add(id));
+            List<String> expectedIds = new ArrayList<>();
+            instance.applyAll(ruleSet, 7, (id, result) -> expectedIds.add(id));
+            assertEquals(expectedIds, ids);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelApplyAllShouldStaySequentialBelowThreshold() {
+        Thread caller = Thread.currentThread();
+        Collection<Rule<Object, Object>> rules = Arrays.asList(
+                mockRule(id1, f -> Thread.currentThread() == caller, f -> result1),
+                mockRule(id2, f -> Thread.currentThread() == caller, f -> result2));
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertEquals(2, instance.withParallelism(Parallelism.of(pool, 3)).applyAll(rules, facts).size());
+            assertTrue(instance.withParallelism(Parallelism.of(pool, 2)).applyAll(rules, facts).size() < 2);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelApplyAllShouldThrowTheFirstFailure() {
+        List<RuntimeException> exceptions = new ArrayList<>();
+        List<Rule<Object, Object>> rules = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            RuntimeException exception = new RuntimeException();
+            exceptions.add(exception);
+            rules.add(mockRule("rule-" + i, f -> true, f -> {
+                throw exception;
+            }));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            RulesEngine rulesEngine = instance.withParallelism(Parallelism.of(pool, 1))
+                    .withExceptionMapping(ex -> (RuntimeException) ex.getCause());
+
+            assertSame(exceptions.get(0), assertThrows(RuntimeException.class, () -> rulesEngine.applyAll(rules, facts)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelApplyFirstShouldApplyOnlyTheFirstMatchingRule() {
+        List<Rule<Object, Object>> rules = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int index = i;
+            rules.add(mockRule("rule-" + i, f -> index >= 10 && index % 10 == 0, f -> index));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            StreamingRulesEngine parallelEngine = instance.withParallelism(Parallelism.of(pool, 100));
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals(Optional.of(10), parallelEngine.applyFirst(rules, facts));
+            }
+            for (int i = 0; i < rules.size(); i++) {
+                verify(rules.get(i), times(i == 10 ? 10 : 0)).apply(facts);
+            }
+            // the chunks following the first matching rule are not searched
+            verify(rules.get(999), never()).test(facts);
+            assertEquals(Optional.empty(), parallelEngine.applyFirst(rules.subList(0, 10), facts));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelApplyFirstShouldFollowPriorityOrder() {
+        List<Rule<Integer, Integer>> rules = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            int index = i;
+            rules.add(CompositeRule.<Integer, Integer>create("rule-" + i, f -> index % f == 0, index).withPriority(i));
+        }
+        RuleSet<Integer, Integer> ruleSet = ImmutableRuleSet.of(rules);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            StreamingRulesEngine parallelEngine = instance.withParallelism(Parallelism.of(pool, 1));
+
+            for (int f = 1; f < 20; f++) {
+                assertEquals(instance.applyFirst(ruleSet, f), parallelEngine.applyFirst(ruleSet, f));
+                assertEquals(instance.applyFirst(rules, f), parallelEngine.applyFirst(rules, f));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelApplyFirstShouldThrowOnlyBeforeTheFirstMatch() {
+        RuntimeException exception = new RuntimeException();
+        List<Rule<Integer, Object>> rules = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int index = i;
+            rules.add(CompositeRule.create("rule-" + i, (Integer f) -> {
+                if (index == 50) {
+                    throw exception;
+                }
+                return index == f;
+            }, index));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            RulesEngine rulesEngine = instance.withParallelism(Parallelism.of(pool, 1))
+                    .withExceptionMapping(ex -> (RuntimeException) ex.getCause());
+
+            assertEquals(Optional.of(49), rulesEngine.applyFirst(rules, 49));
+            assertSame(exception, assertThrows(RuntimeException.class, () -> rulesEngine.applyFirst(rules, 51)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelismShouldRejectNonPositiveThresholds() {
+        assertThrows(IllegalArgumentException.class, () -> Parallelism.of(ForkJoinPool.commonPool(), 0));
+        assertFalse(Parallelism.SEQUENTIAL.isParallel(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void batchShouldRejectShortResultArrays() {
+        Collection<Rule<Object, Object>> rules = Collections.singletonList(mockRule(id1, f -> true, f -> result1));
+        List<Object> batch = Arrays.asList(facts, facts);
+
+        assertThrows(IllegalArgumentException.class, () -> instance.applyFirstBatch(rules, batch, new Object[1]));
+        assertThrows(IllegalArgumentException.class,
+                () -> instance.applyFirstBatch(rules, batch, new Object[1], ForkJoinPool.commonPool()));
+        verify(rules.iterator().next(), never()).test(any());
+    }
+
     @ParameterizedTest
     @MethodSource("brokenRules")
     void evaluationErrorsTest(Rule<Object, Object> brokenRule) {
@@ -133,6 +500,13 @@ class StreamingRulesEngineTest {
         Exception e2 = assertThrows(RuntimeException.class, () -> rulesEngine.applyAll(rules, facts));
         assertSame(e1, e2);
         assertSame(e1, mappedException);
+
+        RuleSet<Object, Object> ruleSet = ImmutableRuleSet.of(rules);
+
+        assertThrows(RuleEvaluationException.class, () -> instance.applyFirst(ruleSet, facts));
+        assertThrows(RuleEvaluationException.class, () -> instance.applyAll(ruleSet, facts));
+        assertSame(mappedException, assertThrows(RuntimeException.class, () -> rulesEngine.applyFirst(ruleSet, facts)));
+        assertSame(mappedException, assertThrows(RuntimeException.class, () -> rulesEngine.applyAll(ruleSet, facts)));
     }
 
     static Stream<Rule<Object, Object>> brokenRules() {
@@ -2,6 +2,7 @@ package it.sky.rulesengine.examples.advertising;
 
 import it.sky.rulesengine.core.api.Rule;
 import it.sky.rulesengine.core.api.RulesEngine;
+import it.sky.rulesengine.core.impl.StreamingRulesEngine;
 import it.sky.rulesengine.factory.api.RulesFactory;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -13,13 +14,13 @@ import java.util.List;
 public abstract class AdsEngine {
 
     private final RulesFactory<AdFacts, Void> rulesFactory;
-    private final RulesEngine rulesEngine = DefaultRulesEngine.create();
+    private final RulesEngine rulesEngine = StreamingRulesEngine.create();
 
     protected abstract void sendEmail(Email email);
 
     public void run(List<AdFacts> adFacts) {
         Collection<Rule<AdFacts, Void>> adRules = rulesFactory.get();
-        adFacts.forEach(f -> rulesEngine.applyFirst(adRules, f));
+        rulesEngine.applyFirstBatch(adRules, adFacts, new Void[adFacts.size()]);
     }
 
     public void sendDailyEmail(AdFacts adFacts) {
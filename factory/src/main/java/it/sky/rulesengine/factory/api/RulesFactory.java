@@ -4,6 +4,7 @@ import it.sky.rulesengine.core.api.Rule;
 
 import java.util.Collection;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Marker interface for a supplier of rules collection.
@@ -13,4 +14,15 @@ import java.util.function.Supplier;
  */
 @FunctionalInterface
 public interface RulesFactory<A, B> extends Supplier<Collection<Rule<A, B>>> {
+
+    /**
+     * Returns the rules as a stream, which implementations may produce lazily from their source,
+     * holding resources until the stream is closed.
+     *
+     * @return the rules stream, to be closed
+     */
+    default Stream<Rule<A, B>> stream() {
+        return get().stream();
+    }
+
 }
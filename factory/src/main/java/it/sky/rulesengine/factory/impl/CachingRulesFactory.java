@@ -0,0 +1,217 @@
+package it.sky.rulesengine.factory.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.factory.api.RulesFactory;
+import it.sky.rulesengine.factory.impl.exception.ParsingException;
+import it.sky.rulesengine.factory.impl.jexl.JexlScriptCache;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A {@link RulesFactory} that memoizes the rules loaded from a source until the source changes,
+ * as told by a version: the rules are loaded again only when the version is not
+ * {@link Object#equals(Object) equal} to the one they were loaded with.
+ *
+ * <p>The version is computed on every {@link #get() get} and should be much cheaper than loading the rules,
+ * e.g. a file's modification time or the raw bytes of a stream rather than its parsed rules.
+ * The rules are returned as an unmodifiable list, shared by all the callers until the next change.
+ * Concurrent calls load the rules once; if loading fails the exception is thrown
+ * and the rules are loaded again on the next call.
+ *
+ * <p>To parse only the changed scripts as well, use a parser with a {@link JexlScriptCache}.
+ *
+ * @param <A> the facts type
+ * @param <B> the result type
+ * @param <V> the version type
+ */
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public class CachingRulesFactory<A, B, V> implements RulesFactory<A, B> {
+
+    @NonNull
+    protected final Supplier<? extends V> versionSupplier;
+    @NonNull
+    protected final Function<? super V, ? extends Collection<Rule<A, B>>> rulesLoader;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile Snapshot<A, B, V> snapshot;
+
+    /**
+     * Creates a new instance that memoizes the rules of the given factory
+     * until the given supplier returns a different version.
+     *
+     * @param rulesFactory    the factory
+     * @param versionSupplier the version supplier, e.g. a file's modification time
+     * @param <A>             the facts type
+     * @param <B>             the result type
+     * @param <V>             the version type
+     * @return the factory
+     */
+    public static <A, B, V> CachingRulesFactory<A, B, V> of(@NonNull RulesFactory<A, B> rulesFactory,
+                                                            Supplier<? extends V> versionSupplier) {
+        return new CachingRulesFactory<>(versionSupplier, version -> rulesFactory.get());
+    }
+
+    /**
+     * Creates a new instance that memoizes the rules of the given factory for good.
+     *
+     * @param rulesFactory the factory
+     * @param <A>          the facts type
+     * @param <B>          the result type
+     * @return the factory
+     */
+    public static <A, B> CachingRulesFactory<A, B, Boolean> of(RulesFactory<A, B> rulesFactory) {
+        return of(rulesFactory, () -> Boolean.TRUE);
+    }
+
+    /**
+     * Creates a new instance that reads the input on every call, and memoizes the rules
+     * until its content changes. The rules are created by a factory reading the content already read,
+     * e.g. <code>ofContent(inputSupplier, in -&gt; YamlRulesFactory.create(in, resultType))</code>.
+     *
+     * @param inputSupplier the input supplier
+     * @param rulesFactory  creates the factory for a given input supplier
+     * @param <A>           the facts type
+     * @param <B>           the result type
+     * @return the factory
+     * @throws ParsingException if the input cannot be read
+     */
+    public static <A, B> CachingRulesFactory<A, B, ByteBuffer> ofContent(
+            @NonNull Supplier<InputStream> inputSupplier,
+            @NonNull Function<Supplier<InputStream>, ? extends RulesFactory<A, B>> rulesFactory) {
+        return new CachingRulesFactory<>(() -> read(inputSupplier),
+                content -> rulesFactory.apply(() -> new ByteArrayInputStream(content.array())).get());
+    }
+
+    /**
+     * Creates a new instance that memoizes the rules read from the given file
+     * until its modification time or size change, e.g.
+     * <code>ofFile(path, in -&gt; YamlRulesFactory.create(in, resultType))</code>.
+     *
+     * @param path         the file path
+     * @param rulesFactory creates the factory for a given input supplier
+     * @param <A>          the facts type
+     * @param <B>          the result type
+     * @return the factory
+     * @throws ParsingException if the file attributes cannot be read
+     */
+    public static <A, B> CachingRulesFactory<A, B, List<Object>> ofFile(
+            @NonNull Path path,
+            @NonNull Function<Supplier<InputStream>, ? extends RulesFactory<A, B>> rulesFactory) {
+        Supplier<InputStream> inputSupplier = () -> {
+            try {
+                return Files.newInputStream(path);
+            } catch (IOException e) {
+                throw new ParsingException("couldn't read from the input", e);
+            }
+        };
+        return new CachingRulesFactory<>(() -> {
+            try {
+                return Arrays.asList(Files.getLastModifiedTime(path), Files.size(path));
+            } catch (IOException e) {
+                throw new ParsingException("couldn't read the attributes of " + path, e);
+            }
+        }, version -> rulesFactory.apply(inputSupplier).get());
+    }
+
+    @Override
+    public List<Rule<A, B>> get() {
+        V version = versionSupplier.get();
+        Snapshot<A, B, V> current = snapshot;
+        if (current != null && Objects.equals(current.version, version)) {
+            hits.increment();
+            return current.rules;
+        }
+        return load(version);
+    }
+
+    /**
+     * Discards the memoized rules, so that the next call loads them again.
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    /**
+     * Returns the number of calls served by the memoized rules.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of calls that loaded the rules.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the ratio of hits to calls.
+     *
+     * @return the hit ratio, 0 if there were no calls
+     */
+    public double getHitRatio() {
+        long hitCount = getHits();
+        long calls = hitCount + getMisses();
+        return calls == 0 ? 0 : (double) hitCount / calls;
+    }
+
+    /*
+     * Loads the rules once for concurrent callers seeing the same new version
+     */
+    private synchronized List<Rule<A, B>> load(V version) {
+        Snapshot<A, B, V> current = snapshot;
+        if (current != null && Objects.equals(current.version, version)) {
+            hits.increment();
+            return current.rules;
+        }
+        misses.increment();
+        List<Rule<A, B>> rules = Collections.unmodifiableList(new ArrayList<>(rulesLoader.apply(version)));
+        snapshot = new Snapshot<>(version, rules);
+        return rules;
+    }
+
+    private static ByteBuffer read(Supplier<InputStream> inputSupplier) {
+        try (InputStream inputStream = inputSupplier.get()) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = inputStream.read(buffer)) != -1; ) {
+                content.write(buffer, 0, n);
+            }
+            return ByteBuffer.wrap(content.toByteArray());
+        } catch (IOException e) {
+            throw new ParsingException("couldn't read from the input", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d", getHits(), getMisses());
+    }
+
+    @RequiredArgsConstructor
+    private static final class Snapshot<A, B, V> {
+
+        private final V version;
+        private final List<Rule<A, B>> rules;
+
+    }
+
+}
@@ -0,0 +1,63 @@
+package it.sky.rulesengine.factory.impl;
+
+import it.sky.rulesengine.core.api.EqualityCondition;
+import it.sky.rulesengine.core.impl.DefaultEqualityCondition;
+import it.sky.rulesengine.factory.api.ConditionParser;
+import it.sky.rulesengine.factory.impl.exception.ParsingException;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * A condition parser that creates {@link EqualityCondition equality conditions} from
+ * attribute/value maps, e.g. the YAML <code>condition: {country: IT, channel: web}</code>,
+ * delegating any other representation to a fallback parser.
+ *
+ * @param <A> the facts type
+ */
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public class EqualityConditionParser<A> implements ConditionParser<A, Object> {
+
+    @NonNull
+    protected final BiFunction<? super A, String, ?> attributes;
+    @NonNull
+    protected final ConditionParser<A, String> fallbackParser;
+
+    /**
+     * Creates a parser that accepts only attribute/value maps.
+     *
+     * @param attributes returns the facts' attribute with the given name
+     * @param <A>        the facts type
+     * @return the parser
+     */
+    public static <A> EqualityConditionParser<A> create(BiFunction<? super A, String, ?> attributes) {
+        return new EqualityConditionParser<>(attributes, representation -> {
+            throw new ParsingException(String.format("'%s' is not an attribute/value map", representation));
+        });
+    }
+
+    /**
+     * Returns a copy that parses the string value of any representation other
+     * than attribute/value maps with the given parser.
+     *
+     * @param fallbackParser the parser
+     * @return the new parser
+     */
+    public EqualityConditionParser<A> withFallbackParser(ConditionParser<A, String> fallbackParser) {
+        return this.fallbackParser == fallbackParser ? this : new EqualityConditionParser<>(attributes, fallbackParser);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Predicate<A> parseCondition(Object representation) {
+        if (representation instanceof Map) {
+            return DefaultEqualityCondition.of((Map<String, ?>) representation, attributes);
+        }
+        return fallbackParser.parseCondition(representation == null ? null : representation.toString());
+    }
+
+}
@@ -0,0 +1,303 @@
+package it.sky.rulesengine.factory.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.factory.api.RulesFactory;
+import it.sky.rulesengine.factory.impl.exception.ParsingException;
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A {@link RulesFactory} that watches a rules file, or a directory of YAML rules files, and reloads the rules
+ * in a background thread whenever they change.
+ *
+ * <p>The rules are loaded and validated before being published as an immutable snapshot, which is swapped
+ * atomically: {@link #get()} never takes a lock and always returns a complete set of rules,
+ * so that an evaluation in progress keeps using the snapshot it started with.
+ * If loading or validating fails, the previous snapshot is kept and the failure is recorded.
+ *
+ * <p>Example:
+ * <pre>
+ *      ReloadingRulesFactory&lt;JexlContext, String&gt; rulesFactory = ReloadingRulesFactory.watch(path,
+ *          in -&gt; YamlRulesFactory.create(in, String.class));
+ * </pre>
+ *
+ * @param <A> the facts type
+ * @param <B> the result type
+ */
+public class ReloadingRulesFactory<A, B> implements RulesFactory<A, B>, Closeable {
+
+    /**
+     * The default time without changes to wait for before reloading, so that a burst of writes
+     * causes a single reload.
+     */
+    public static final long DEFAULT_QUIET_PERIOD_MILLIS = 100;
+
+    private static final PathMatcher YAML_FILES = FileSystems.getDefault().getPathMatcher("glob:*.{yaml,yml}");
+
+    protected final Path path;
+    protected final Function<Supplier<InputStream>, ? extends RulesFactory<A, B>> rulesFactory;
+    protected final Consumer<? super List<Rule<A, B>>> validator;
+    protected final long quietPeriodMillis;
+    private final WatchService watchService;
+    private final Thread watcher;
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile List<Rule<A, B>> rules;
+    private volatile long lastReloadNanos;
+    private volatile Throwable lastFailure;
+
+    /**
+     * Loads the rules and prepares to watch the given path, which starts with {@link #start()},
+     * so that the watcher thread never sees a partially constructed instance.
+     *
+     * @param path              a rules file, or a directory whose YAML files are loaded in name order
+     * @param rulesFactory      creates the factory for a given input supplier
+     * @param validator         validates the loaded rules, throwing an exception to reject them
+     * @param quietPeriodMillis the time without changes to wait for before reloading
+     * @throws ParsingException if the rules cannot be loaded or the path cannot be watched
+     */
+    protected ReloadingRulesFactory(@NonNull Path path,
+                                    @NonNull Function<Supplier<InputStream>, ? extends RulesFactory<A, B>> rulesFactory,
+                                    @NonNull Consumer<? super List<Rule<A, B>>> validator,
+                                    long quietPeriodMillis) {
+        this.path = path;
+        this.rulesFactory = rulesFactory;
+        this.validator = validator;
+        this.quietPeriodMillis = quietPeriodMillis;
+        this.rules = load();
+        Path directory = Files.isDirectory(path) ? path : path.toAbsolutePath().getParent();
+        try {
+            this.watchService = path.getFileSystem().newWatchService();
+        } catch (IOException e) {
+            throw new ParsingException("couldn't watch " + directory, e);
+        }
+        try {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            closeWatchService();
+            throw new ParsingException("couldn't watch " + directory, e);
+        } catch (RuntimeException | Error e) {
+            closeWatchService();
+            throw e;
+        }
+        this.watcher = new Thread(this::watchChanges, "rules-reloader-" + path.getFileName());
+        this.watcher.setDaemon(true);
+    }
+
+    /**
+     * Loads the rules and starts watching the given path.
+     *
+     * @param path         a rules file, or a directory whose YAML files are loaded in name order
+     * @param rulesFactory creates the factory for a given input supplier
+     * @param <A>          the facts type
+     * @param <B>          the result type
+     * @return the factory
+     * @throws ParsingException if the rules cannot be loaded or the path cannot be watched
+     */
+    public static <A, B> ReloadingRulesFactory<A, B> watch(
+            Path path, Function<Supplier<InputStream>, ? extends RulesFactory<A, B>> rulesFactory) {
+        return watch(path, rulesFactory, rules -> {
+        });
+    }
+
+    /**
+     * Loads the rules and starts watching the given path, publishing only the rules accepted by the validator.
+     *
+     * @param path         a rules file, or a directory whose YAML files are loaded in name order
+     * @param rulesFactory creates the factory for a given input supplier
+     * @param validator    validates the loaded rules, throwing an exception to reject them
+     * @param <A>          the facts type
+     * @param <B>          the result type
+     * @return the factory
+     * @throws ParsingException if the rules cannot be loaded or the path cannot be watched
+     */
+    public static <A, B> ReloadingRulesFactory<A, B> watch(
+            Path path, Function<Supplier<InputStream>, ? extends RulesFactory<A, B>> rulesFactory,
+            Consumer<? super List<Rule<A, B>>> validator) {
+        return new ReloadingRulesFactory<>(path, rulesFactory, validator, DEFAULT_QUIET_PERIOD_MILLIS).start();
+    }
+
+    /**
+     * Starts watching the path, once the instance is constructed.
+     * Called by the factory methods, and to be called by the subclasses' ones.
+     *
+     * @return this factory
+     * @throws IllegalThreadStateException if already started
+     */
+    protected ReloadingRulesFactory<A, B> start() {
+        watcher.start();
+        return this;
+    }
+
+    /**
+     * Returns the current snapshot of the rules, without locking.
+     *
+     * @return the rules
+     */
+    @Override
+    public List<Rule<A, B>> get() {
+        return rules;
+    }
+
+    /**
+     * Loads and validates the rules, then publishes them.
+     * Called by the watcher thread on every change, and by anyone who wants to force a reload.
+     *
+     * @return true if the rules were published, false if the previous snapshot was kept
+     */
+    public synchronized boolean reload() {
+        long start = System.nanoTime();
+        try {
+            rules = load();
+            reloads.increment();
+            return true;
+        } catch (RuntimeException e) {
+            fail(e);
+            return false;
+        } finally {
+            lastReloadNanos = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Returns the number of successful reloads, excluding the initial load.
+     *
+     * @return the number of reloads
+     */
+    public long getReloads() {
+        return reloads.sum();
+    }
+
+    /**
+     * Returns the number of failed reloads, that kept the previous snapshot.
+     *
+     * @return the number of failures
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Returns the duration of the last reload attempt, successful or not.
+     *
+     * @param unit the time unit
+     * @return the latency, 0 if the rules were never reloaded
+     */
+    public long getLastReloadLatency(@NonNull TimeUnit unit) {
+        return unit.convert(lastReloadNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the cause of the last failed reload.
+     *
+     * @return the exception, or the error thrown to the watcher thread, empty if no reload failed
+     */
+    public Optional<Throwable> getLastFailure() {
+        return Optional.ofNullable(lastFailure);
+    }
+
+    /**
+     * Stops watching the path. The current snapshot is still returned by {@link #get()}.
+     */
+    @Override
+    public void close() {
+        closeWatchService();
+        watcher.interrupt();
+    }
+
+    private void closeWatchService() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // the watcher thread stops anyway
+        }
+    }
+
+    private void fail(Throwable t) {
+        lastFailure = t;
+        failures.increment();
+    }
+
+    protected List<Rule<A, B>> load() {
+        List<Rule<A, B>> loaded = new ArrayList<>();
+        for (Path file : files()) {
+            loaded.addAll(rulesFactory.apply(() -> {
+                try {
+                    return Files.newInputStream(file);
+                } catch (IOException e) {
+                    throw new ParsingException("couldn't read from " + file, e);
+                }
+            }).get());
+        }
+        List<Rule<A, B>> snapshot = Collections.unmodifiableList(loaded);
+        validator.accept(snapshot);
+        return snapshot;
+    }
+
+    private List<Path> files() {
+        if (!Files.isDirectory(path)) {
+            return Collections.singletonList(path);
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(file -> YAML_FILES.matches(file.getFileName()) && Files.isRegularFile(file))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new ParsingException("couldn't list " + path, e);
+        }
+    }
+
+    /*
+     * Waits for relevant changes, then for a quiet period, and reloads,
+     * surviving whatever a reload throws
+     */
+    private void watchChanges() {
+        try {
+            while (true) {
+                boolean changed = relevant(watchService.take());
+                WatchKey key;
+                while ((key = watchService.poll(quietPeriodMillis, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= relevant(key);
+                }
+                if (changed) {
+                    try {
+                        reload();
+                    } catch (Throwable t) {
+                        fail(t);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private boolean relevant(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            relevant |= event.kind() == StandardWatchEventKinds.OVERFLOW || context instanceof Path
+                    && (Files.isDirectory(path) ? YAML_FILES.matches((Path) context)
+                    : context.equals(path.getFileName()));
+        }
+        key.reset();
+        return relevant;
+    }
+
+}
@@ -1,6 +1,7 @@
 package it.sky.rulesengine.factory.impl;
 
 import it.sky.rulesengine.factory.impl.jexl.JexlScriptParser;
+import it.sky.rulesengine.factory.impl.jexl.MemoizationStats;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.apache.commons.jexl3.JexlBuilder;
@@ -20,4 +21,47 @@ public class RuleParsers {
         return GenericRuleParser.create(parser, parser);
     }
 
+    /**
+     * Returns a JEXL rule parser whose conditions and actions read the facts through a
+     * {@link it.sky.rulesengine.factory.impl.jexl.MemoizingJexlContext
+     * memoizing context}, updating the given stats. Use a
+     * {@link it.sky.rulesengine.factory.impl.jexl.MemoizingRulesEngine memoizing engine}
+     * to share the memoized values across all the rules of an evaluation.
+     *
+     * @param resultType       the result type
+     * @param jexlEngine       the JEXL engine
+     * @param memoizationStats the stats to update
+     * @param <A>              the facts type
+     * @param <B>              the result type
+     * @return the parser
+     */
+    public static <A extends JexlContext, B> GenericRuleParser<A, B, String, String> jexlRuleParser(
+            Class<B> resultType, JexlEngine jexlEngine, MemoizationStats memoizationStats) {
+        JexlScriptParser<A, B> parser = JexlScriptParser.create(resultType).<A>withEngine(jexlEngine)
+                .withMemoization(memoizationStats);
+        return GenericRuleParser.create(parser, parser);
+    }
+
+    /**
+     * Returns a JEXL rule parser that creates indexable {@link it.sky.rulesengine.core.api.EqualityCondition
+     * equality conditions} from attribute/value map conditions, reading the attributes from the facts context.
+     *
+     * @param resultType the result type
+     * @param <A>        the facts type
+     * @param <B>        the result type
+     * @return the parser
+     * @see it.sky.rulesengine.core.impl.IndexedRuleSet
+     */
+    public static <A extends JexlContext, B> GenericRuleParser<A, B, Object, String> indexableJexlRuleParser(
+            Class<B> resultType) {
+        return indexableJexlRuleParser(resultType, new JexlBuilder().create());
+    }
+
+    public static <A extends JexlContext, B> GenericRuleParser<A, B, Object, String> indexableJexlRuleParser(
+            Class<B> resultType, JexlEngine jexlEngine) {
+        JexlScriptParser<A, B> parser = JexlScriptParser.create(resultType).withEngine(jexlEngine);
+        return GenericRuleParser.create(EqualityConditionParser.<A>create(JexlContext::get).withFallbackParser(parser),
+                parser);
+    }
+
 }
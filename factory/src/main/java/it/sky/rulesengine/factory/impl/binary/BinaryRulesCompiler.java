@@ -0,0 +1,200 @@
+package it.sky.rulesengine.factory.impl.binary;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import it.sky.rulesengine.factory.impl.exception.ParsingException;
+import it.sky.rulesengine.factory.impl.jexl.JexlScriptParser;
+import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
+import lombok.NonNull;
+import org.apache.commons.jexl3.JexlContext;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A build time tool that compiles YAML rules, as read by a {@link YamlRulesFactory}, into
+ * a binary rules book that a {@link BinaryRulesFactory} loads without parsing the whole YAML source.
+ *
+ * <p>Each rule must have an id, and its textual conditions and actions must be valid JEXL scripts,
+ * so that invalid rules fail the build rather than the startup.
+ *
+ * <p>Usage: <code>java -cp ... it.sky.rulesengine.factory.impl.binary.BinaryRulesCompiler rules.yaml rules.rbk</code>
+ */
+public final class BinaryRulesCompiler {
+
+    private static final ObjectMapper YAML_MAPPER = new ObjectMapper(new YAMLFactory());
+
+    private BinaryRulesCompiler() {
+    }
+
+    /**
+     * Compiles the given YAML rules file into the given binary rules book.
+     *
+     * @param yaml   the YAML rules file
+     * @param output the rules book file, overwritten if present
+     * @return the number of compiled rules
+     * @throws ParsingException if the rules are not valid or the files cannot be read or written
+     */
+    public static int compile(@NonNull Path yaml, @NonNull Path output) {
+        try (InputStream inputStream = Files.newInputStream(yaml);
+             OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(output))) {
+            return compile(inputStream, outputStream);
+        } catch (IOException e) {
+            throw new ParsingException(String.format("couldn't compile %s into %s", yaml, output), e);
+        }
+    }
+
+    /**
+     * Compiles the given YAML rules into a binary rules book.
+     *
+     * @param yaml   the YAML rules
+     * @param output the rules book output, not closed
+     * @return the number of compiled rules
+     * @throws IOException      if the input cannot be read or the output written
+     * @throws ParsingException if the rules are not valid
+     */
+    public static int compile(@NonNull InputStream yaml, @NonNull OutputStream output) throws IOException {
+        JexlScriptParser<JexlContext, Object> jexlScriptParser = JexlScriptParser.create(Object.class);
+        List<byte[]> records = new ArrayList<>();
+        String source = read(yaml);
+        try (JsonParser parser = YAML_MAPPER.getFactory().createParser(source)) {
+            for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                int index = records.size();
+                if (token != JsonToken.START_OBJECT) {
+                    throw new ParsingException(String.format("rule %d is not a mapping", index));
+                }
+                int start = offset(source, parser.getTokenLocation().getLineNr(), 1);
+                JsonNode document = YAML_MAPPER.readTree(parser);
+                int end = offset(source, parser.getTokenLocation().getLineNr(),
+                        parser.getTokenLocation().getColumnNr());
+                records.add(record(document, documentSource(source, start, end, document, index),
+                        jexlScriptParser, index));
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(BinaryRulesFormat.MAGIC);
+        out.writeInt(BinaryRulesFormat.VERSION);
+        out.writeInt(records.size());
+        long offset = BinaryRulesFormat.HEADER_SIZE + 4L * records.size();
+        for (byte[] record : records) {
+            if (offset > Integer.MAX_VALUE) {
+                throw new ParsingException("rules book too large");
+            }
+            out.writeInt((int) offset);
+            offset += record.length;
+        }
+        for (byte[] record : records) {
+            out.write(record);
+        }
+        out.flush();
+        return records.size();
+    }
+
+    private static String read(InputStream yaml) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read = yaml.read(buffer); read >= 0; read = yaml.read(buffer)) {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /*
+     * The offset of the given line and column, both starting at 1, the YAML parser reporting no offsets
+     */
+    private static int offset(String source, int line, int column) {
+        int offset = 0;
+        for (int i = 1; i < line && offset >= 0; i++) {
+            offset = source.indexOf('\n', offset) + 1;
+        }
+        return offset <= 0 && line > 1 ? source.length() : Math.min(offset + column - 1, source.length());
+    }
+
+    /*
+     * The source text of a document, from the line of its first key to the end of its mapping,
+     * so that its scalars keep their text, e.g. 1.10 or 007, whatever type they are read as
+     */
+    private static String documentSource(String source, int start, int end, JsonNode document, int index)
+            throws IOException {
+        if (end < source.length() && source.charAt(end) == '}') {
+            end++;
+        }
+        String documentSource = source.substring(start, end);
+        if (!document.equals(YAML_MAPPER.readTree(documentSource))) {
+            throw new ParsingException(String.format("couldn't isolate the source of rule %d", index));
+        }
+        return documentSource;
+    }
+
+    /*
+     * The text of the document's id, as written
+     */
+    private static String idText(String documentSource) throws IOException {
+        try (JsonParser parser = YAML_MAPPER.getFactory().createParser(documentSource)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                boolean id = "id".equals(parser.getCurrentName());
+                parser.nextToken();
+                if (id) {
+                    return parser.getText();
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    private static byte[] record(JsonNode document, String documentSource,
+                                 JexlScriptParser<JexlContext, Object> jexlScriptParser, int index) throws IOException {
+        JsonNode id = document.path("id");
+        if (!id.isTextual() && !id.isNumber()) {
+            throw new ParsingException(String.format("rule %d has no id", index));
+        }
+        JsonNode priority = document.path("priority");
+        if (!priority.isMissingNode() && !priority.canConvertToInt()) {
+            throw new ParsingException(String.format("rule '%s' has an invalid priority", id.asText()));
+        }
+        JsonNode condition = document.path("condition");
+        if (condition.isTextual()) {
+            jexlScriptParser.parseCondition(condition.asText());
+        }
+        JsonNode action = document.path("action");
+        if (action.isTextual()) {
+            jexlScriptParser.parseAction(action.asText());
+        }
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(record);
+        byte[] idBytes = idText(documentSource).getBytes(StandardCharsets.UTF_8);
+        byte[] documentBytes = documentSource.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(idBytes.length);
+        out.write(idBytes);
+        out.writeInt(documentBytes.length);
+        out.write(documentBytes);
+        return record.toByteArray();
+    }
+
+    /**
+     * Compiles a YAML rules file into a binary rules book.
+     *
+     * @param args the YAML rules file and the rules book file
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("usage: BinaryRulesCompiler <rules.yaml> <rules.rbk>");
+            System.exit(2);
+        }
+        int count = compile(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.printf("compiled %d rules into %s%n", count, args[1]);
+    }
+
+}
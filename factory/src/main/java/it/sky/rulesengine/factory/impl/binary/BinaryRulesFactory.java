@@ -0,0 +1,134 @@
+package it.sky.rulesengine.factory.impl.binary;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.factory.api.RuleParser;
+import it.sky.rulesengine.factory.api.RulesFactory;
+import it.sky.rulesengine.factory.impl.GenericRuleParser;
+import it.sky.rulesengine.factory.impl.RuleModel;
+import it.sky.rulesengine.factory.impl.exception.ParsingException;
+import it.sky.rulesengine.factory.impl.jexl.JexlScriptParser;
+import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Wither;
+import org.apache.commons.jexl3.JexlContext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Reads rules from a binary rules book compiled by the {@link BinaryRulesCompiler}, which is memory mapped
+ * rather than read, and whose rules are decoded one YAML document at a time, as they are consumed.
+ *
+ * <p>The rules are those that a {@link YamlRulesFactory} with the same parser and representation type
+ * reads from the compiled YAML source.
+ *
+ * @param <A> the facts type
+ * @param <B> the result type
+ * @param <T> the rule representation type
+ */
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public class BinaryRulesFactory<A, B, T> implements RulesFactory<A, B> {
+
+    @NonNull
+    protected final Path path;
+    @NonNull
+    protected final RuleParser<A, B, T> ruleParser;
+    @NonNull
+    protected final JavaType representationType;
+    @Wither
+    @NonNull
+    protected final ObjectMapper yamlMapper;
+
+    /**
+     * Creates a new instance with the given result type, using a JEXL parser whose scripts are
+     * {@link JexlScriptParser#withLazyCompilation() compiled lazily}, since the compiler validated them.
+     *
+     * @param path       the rules book path
+     * @param resultType the result type
+     * @param <A>        the facts type
+     * @param <B>        the result type
+     * @return the factory
+     */
+    public static <A extends JexlContext, B> BinaryRulesFactory<A, B, RuleModel<B, String, String>> create(
+            Path path, Class<B> resultType) {
+        JexlScriptParser<A, B> parser = JexlScriptParser.<A, B>create(resultType).withLazyCompilation();
+        JavaType representationType = TypeFactory.defaultInstance().constructParametricType(RuleModel.class, resultType,
+                String.class, String.class);
+        return create(path, GenericRuleParser.create(parser, parser), representationType);
+    }
+
+    /**
+     * Creates a new instance using the given arguments.
+     *
+     * @param path               the rules book path
+     * @param ruleParser         the rule parser
+     * @param representationType the rule representation type, as for a {@link YamlRulesFactory}
+     * @param <A>                the facts type
+     * @param <B>                the result type
+     * @param <T>                the rule representation type
+     * @return the factory
+     */
+    public static <A, B, T> BinaryRulesFactory<A, B, T> create(Path path, RuleParser<A, B, T> ruleParser,
+                                                               JavaType representationType) {
+        return new BinaryRulesFactory<>(path, ruleParser, representationType, new ObjectMapper(new YAMLFactory()));
+    }
+
+    @Override
+    public List<Rule<A, B>> get() {
+        try (Stream<Rule<A, B>> rules = stream()) {
+            return rules.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Returns a stream that decodes and parses the rules one at a time, as they are consumed.
+     *
+     * @return the rules stream
+     * @throws ParsingException if the rules book cannot be read or is not valid
+     */
+    @Override
+    public Stream<Rule<A, B>> stream() {
+        ByteBuffer buffer = map();
+        int count = BinaryRulesFormat.readHeader(buffer);
+        return IntStream.range(0, count)
+                .mapToObj(i -> ruleParser.parseRule(representation(buffer, BinaryRulesFormat.recordOffset(buffer, i))));
+    }
+
+    private T representation(ByteBuffer buffer, int offset) {
+        try {
+            return yamlMapper.readValue(BinaryRulesFormat.document(buffer, offset), representationType);
+        } catch (IOException e) {
+            throw new ParsingException(String.format("couldn't decode rule '%s'",
+                    BinaryRulesFormat.id(buffer, offset)), e);
+        }
+    }
+
+    /*
+     * The mapping stays valid after the channel is closed
+     */
+    private MappedByteBuffer map() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new ParsingException("rules book too large: " + path);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new ParsingException("couldn't read from " + path, e);
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package it.sky.rulesengine.factory.impl.binary;
+
+import it.sky.rulesengine.factory.impl.exception.ParsingException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The layout of a binary rules book, all integers being big endian:
+ *
+ * <pre>
+ * header:  int magic ("RBK\1"), int version, int rule count
+ * index:   int record offset, for each rule
+ * records: int id length, id UTF-8 bytes, int document length, document YAML UTF-8 bytes
+ * </pre>
+ *
+ * <p>The document is the source text of the rule in the compiled YAML, so that its scalars are read
+ * as they are written, the id being repeated ahead of it to report the rule whose document cannot be read.
+ */
+final class BinaryRulesFormat {
+
+    static final int MAGIC = 0x52424B01;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 12;
+
+    private BinaryRulesFormat() {
+    }
+
+    /**
+     * Checks the header of the given buffer.
+     *
+     * @param buffer the buffer
+     * @return the rule count
+     * @throws ParsingException if the buffer is not a rules book of a supported version
+     */
+    static int readHeader(ByteBuffer buffer) {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new ParsingException("not a binary rules book");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new ParsingException(String.format("unsupported binary rules book version %d, expected %d",
+                    version, VERSION));
+        }
+        int count = buffer.getInt(8);
+        if (count < 0 || HEADER_SIZE + 4L * count > buffer.limit()) {
+            throw corrupt();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the offset of the record of the given rule, whose index the header has checked.
+     *
+     * @param buffer the buffer
+     * @param index  the rule index
+     * @return the record offset
+     * @throws ParsingException if the offset is out of the buffer
+     */
+    static int recordOffset(ByteBuffer buffer, int index) {
+        int offset = buffer.getInt(HEADER_SIZE + 4 * index);
+        if (offset < HEADER_SIZE || offset > buffer.limit()) {
+            throw corrupt();
+        }
+        return offset;
+    }
+
+    static String id(ByteBuffer buffer, int offset) {
+        return new String(bytes(buffer, offset), StandardCharsets.UTF_8);
+    }
+
+    static byte[] document(ByteBuffer buffer, int offset) {
+        return bytes(buffer, end(buffer, offset));
+    }
+
+    /*
+     * Reads the bytes prefixed by their length at the given offset
+     */
+    private static byte[] bytes(ByteBuffer buffer, int offset) {
+        int end = end(buffer, offset);
+        byte[] bytes = new byte[end - offset - 4];
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(offset + 4);
+        slice.get(bytes);
+        return bytes;
+    }
+
+    /*
+     * The end of the bytes prefixed by their length at the given offset, checked to be in the buffer
+     */
+    private static int end(ByteBuffer buffer, int offset) {
+        if (offset < 0 || offset > buffer.limit() - 4) {
+            throw corrupt();
+        }
+        int length = buffer.getInt(offset);
+        if (length < 0 || length > buffer.limit() - offset - 4) {
+            throw corrupt();
+        }
+        return offset + 4 + length;
+    }
+
+    private static ParsingException corrupt() {
+        return new ParsingException("corrupt binary rules book");
+    }
+
+}
@@ -0,0 +1,169 @@
+package it.sky.rulesengine.factory.impl.jexl;
+
+import it.sky.rulesengine.core.api.ResultSink;
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.Parallelism;
+import it.sky.rulesengine.core.impl.StreamingRulesEngine;
+import it.sky.rulesengine.core.impl.exception.RuleEvaluationException;
+import it.sky.rulesengine.factory.impl.RulesBook;
+import lombok.NonNull;
+import org.apache.commons.jexl3.JexlContext;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * A {@link StreamingRulesEngine} that tests the JEXL conditions of a fixed set of rules
+ * through a {@link JexlConditionNetwork}, so that the sub-conditions shared by several
+ * rules are evaluated at most once per facts.
+ *
+ * <p>Example:
+ * <pre>
+ *     RulesBook&lt;JexlContext, Destination&gt; rulesBook = new RulesBook&lt;&gt;(rulesFactory.get());
+ *     rulesBook = rulesBook.withRulesEngine(AlphaNetworkRulesEngine.create(rulesBook));
+ * </pre>
+ *
+ * <p>Since an action may change the facts, e.g. with an assignment or a method call, the results
+ * of the sub-conditions are discarded after each applied rule, and the following rules are
+ * tested against the changed facts, as a {@link StreamingRulesEngine} would. The sharing thus
+ * pays off across the rules that don't apply.
+ *
+ * <p>Any other rule is tested as by a {@link StreamingRulesEngine}, as are the rules
+ * when the facts are not a {@link JexlContext}.
+ */
+public class AlphaNetworkRulesEngine extends StreamingRulesEngine {
+
+    protected final JexlConditionNetwork network;
+
+    protected AlphaNetworkRulesEngine(UnaryOperator<Stream<?>> streamMapper,
+                                      Function<? super RuleEvaluationException, ? extends RuntimeException> exceptionMapper,
+                                      Parallelism parallelism, @NonNull JexlConditionNetwork network) {
+        super(streamMapper, exceptionMapper, parallelism);
+        this.network = network;
+    }
+
+    /**
+     * Creates an instance with the network of the given rules' conditions.
+     *
+     * @param rules the rules, e.g. a {@link RulesBook}
+     * @return the engine
+     */
+    public static AlphaNetworkRulesEngine create(Collection<? extends Rule<?, ?>> rules) {
+        return new AlphaNetworkRulesEngine(s -> s, Function.identity(), Parallelism.SEQUENTIAL,
+                JexlConditionNetwork.create(rules));
+    }
+
+    /**
+     * Returns the network of the rules' conditions.
+     *
+     * @return the network
+     */
+    public JexlConditionNetwork getNetwork() {
+        return network;
+    }
+
+    @Override
+    public AlphaNetworkRulesEngine withStreamMapping(@NonNull UnaryOperator<Stream<?>> mapper) {
+        return (AlphaNetworkRulesEngine) super.withStreamMapping(mapper);
+    }
+
+    @Override
+    public AlphaNetworkRulesEngine withExceptionMapping(
+            @NonNull Function<? super RuleEvaluationException, ? extends RuntimeException> mapper) {
+        return (AlphaNetworkRulesEngine) super.withExceptionMapping(mapper);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The network is evaluated sequentially: the parallelism applies only
+     * when the facts are not a {@link JexlContext}.
+     */
+    @Override
+    public AlphaNetworkRulesEngine withParallelism(@NonNull Parallelism parallelism) {
+        return (AlphaNetworkRulesEngine) super.withParallelism(parallelism);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The rules are evaluated with an indexed loop after the stream mapping.
+     */
+    @Override
+    public <A, B> Optional<B> applyFirst(@NonNull Collection<Rule<A, B>> rules, A facts) {
+        return applyFirstPrepared(prepare(rules), facts);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The rules are evaluated with an indexed loop after the stream mapping.
+     */
+    @Override
+    public <A, B> Map<String, B> applyAll(@NonNull Collection<Rule<A, B>> rules, A facts) {
+        Map<String, B> results = new HashMap<>();
+        ResultSink<B> sink = results::put;
+        applyAllPrepared(prepare(rules), facts, sink);
+        return results;
+    }
+
+    @Override
+    protected <A, B> Optional<B> applyFirstPrepared(List<Rule<A, B>> rules, A facts) {
+        JexlConditionNetwork.Evaluation evaluation = evaluate(facts);
+        if (evaluation == null) {
+            return super.applyFirstPrepared(rules, facts);
+        }
+        for (int i = 0, size = rules.size(); i < size; i++) {
+            Rule<A, B> rule = resolve(rules.get(i), facts);
+            if (test(rule, facts, evaluation)) {
+                return Optional.ofNullable(apply(rule, facts));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    protected <A, B> void applyAllPrepared(List<Rule<A, B>> rules, A facts, ResultSink<? super B> sink) {
+        JexlConditionNetwork.Evaluation evaluation = evaluate(facts);
+        if (evaluation == null) {
+            super.applyAllPrepared(rules, facts, sink);
+            return;
+        }
+        for (int i = 0, size = rules.size(); i < size; i++) {
+            Rule<A, B> rule = resolve(rules.get(i), facts);
+            if (test(rule, facts, evaluation)) {
+                sink.accept(i, rule.getId(), apply(rule, facts));
+                evaluation.reset();
+            }
+        }
+    }
+
+    private JexlConditionNetwork.Evaluation evaluate(Object facts) {
+        return facts instanceof JexlContext ? network.evaluate((JexlContext) facts) : null;
+    }
+
+    protected <A> boolean test(Rule<A, ?> rule, A facts, JexlConditionNetwork.Evaluation evaluation) {
+        if (evaluation == null || !network.contains(rule)) {
+            return test(rule, facts);
+        }
+        try {
+            return evaluation.test(rule);
+        } catch (RuntimeException e) {
+            throw exceptionMapper.apply(new RuleEvaluationException(rule, facts, e));
+        }
+    }
+
+    @Override
+    protected AlphaNetworkRulesEngine create(UnaryOperator<Stream<?>> streamMapper,
+                                             Function<? super RuleEvaluationException, ? extends RuntimeException> mapper,
+                                             Parallelism parallelism) {
+        return new AlphaNetworkRulesEngine(streamMapper, mapper, parallelism, network);
+    }
+
+}
@@ -0,0 +1,29 @@
+package it.sky.rulesengine.factory.impl.jexl;
+
+import lombok.Getter;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlScript;
+
+/**
+ * A {@link JexlCondition} that interprets a script created upfront.
+ *
+ * @param <A> the facts type
+ * @see JexlScriptParser#parseCondition(String)
+ */
+class InterpretedJexlCondition<A extends JexlContext> extends JexlCondition<A> {
+
+    @Getter
+    private final JexlScript jexlScript;
+
+    InterpretedJexlCondition(JexlEngine jexlEngine, JexlScript jexlScript, MemoizationStats memoizationStats) {
+        super(jexlEngine, memoizationStats);
+        this.jexlScript = jexlScript;
+    }
+
+    @Override
+    JexlCondition<A> derive(JexlScript jexlScript) {
+        return new InterpretedJexlCondition<>(jexlEngine, jexlScript, memoizationStats);
+    }
+
+}
@@ -0,0 +1,307 @@
+package it.sky.rulesengine.factory.impl.jexl;
+
+import org.apache.commons.jexl3.JexlArithmetic;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlOperator;
+import org.apache.commons.jexl3.introspection.JexlPropertyGet;
+import org.apache.commons.jexl3.introspection.JexlUberspect;
+import org.apache.commons.jexl3.parser.*;
+
+import java.util.function.BinaryOperator;
+
+/**
+ * Compiles the supported subset of JEXL into a tree of closures that call the engine's
+ * {@link JexlArithmetic} and {@link JexlUberspect} exactly as the interpreter does:
+ * literals, variables, property accesses, comparisons, boolean operators and arithmetic.
+ *
+ * <p>Compiled code never reproduces the interpreter's corner cases: whenever the interpreter could take
+ * a different path, e.g. on an undefined variable, a null property or an arithmetic error,
+ * it throws a {@link Deoptimization} and the caller evaluates the script again with the interpreter.
+ * The supported subset has no side effects of its own, but the variables and properties read before
+ * the deoptimization are read again, unless the context memoizes them or properties are not compiled.
+ */
+final class JexlCompiler {
+
+    private JexlCompiler() {
+    }
+
+    /**
+     * A compiled script.
+     */
+    @FunctionalInterface
+    interface Compiled {
+
+        /**
+         * Evaluates the script.
+         *
+         * @param context the facts
+         * @return the value of the script
+         * @throws RuntimeException any exception, including a {@link Deoptimization},
+         *                          means that the script has to be interpreted instead
+         */
+        Object evaluate(JexlContext context);
+
+    }
+
+    /**
+     * Thrown by compiled code that cannot evaluate a script like the interpreter.
+     */
+    static final class Deoptimization extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+        private static final Deoptimization INSTANCE = new Deoptimization();
+
+        private Deoptimization() {
+            super("deoptimization", null, false, false);
+        }
+
+    }
+
+    /**
+     * Compiles the given script for the given engine.
+     *
+     * @param jexlEngine       the engine that created the script
+     * @param script           the script source text, assumed to be valid
+     * @param propertyAccesses whether property accesses are supported
+     * @return the compiled script, or null if the script or the engine's arithmetic are not supported
+     */
+    static Compiled compile(JexlEngine jexlEngine, String script, boolean propertyAccesses) {
+        // a subclass may overload the operators, which only the interpreter resolves
+        if (jexlEngine.getArithmetic().getClass() != JexlArithmetic.class) {
+            return null;
+        }
+        ASTJexlScript root = JexlScriptParser.parseSyntaxTree(script);
+        if (root.jjtGetNumChildren() != 1) {
+            return null;
+        }
+        try {
+            return new Builder(jexlEngine, propertyAccesses).compile(root.jjtGetChild(0));
+        } catch (Unsupported e) {
+            return null;
+        }
+    }
+
+    /*
+     * Thrown while compiling a construct out of the supported subset
+     */
+    private static final class Unsupported extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        Unsupported(String construct) {
+            super(construct, null, false, false);
+        }
+
+    }
+
+    private static class Builder {
+
+        private final JexlArithmetic arithmetic;
+        private final JexlUberspect uberspect;
+        private final boolean propertyAccesses;
+
+        Builder(JexlEngine jexlEngine, boolean propertyAccesses) {
+            this.arithmetic = jexlEngine.getArithmetic();
+            this.uberspect = jexlEngine.getUberspect();
+            this.propertyAccesses = propertyAccesses;
+        }
+
+        Compiled compile(JexlNode node) {
+            if (node instanceof ASTReferenceExpression && node.jjtGetNumChildren() == 1) {
+                return compile(node.jjtGetChild(0));
+            }
+            if (node instanceof ASTTrueNode) {
+                return c -> Boolean.TRUE;
+            }
+            if (node instanceof ASTFalseNode) {
+                return c -> Boolean.FALSE;
+            }
+            if (node instanceof ASTNullLiteral) {
+                return c -> null;
+            }
+            if (node instanceof ASTNumberLiteral) {
+                Number literal = ((ASTNumberLiteral) node).getLiteral();
+                return c -> literal;
+            }
+            if (node instanceof ASTStringLiteral) {
+                String literal = ((ASTStringLiteral) node).getLiteral();
+                return c -> literal;
+            }
+            if (node instanceof ASTIdentifier) {
+                return variable((ASTIdentifier) node);
+            }
+            if (node instanceof ASTReference) {
+                return reference(node);
+            }
+            if (node instanceof ASTAndNode) {
+                Compiled left = compile(node.jjtGetChild(0));
+                Compiled right = compile(node.jjtGetChild(1));
+                return c -> arithmetic.toBoolean(left.evaluate(c)) && arithmetic.toBoolean(right.evaluate(c))
+                        ? Boolean.TRUE : Boolean.FALSE;
+            }
+            if (node instanceof ASTOrNode) {
+                Compiled left = compile(node.jjtGetChild(0));
+                Compiled right = compile(node.jjtGetChild(1));
+                return c -> arithmetic.toBoolean(left.evaluate(c)) || arithmetic.toBoolean(right.evaluate(c))
+                        ? Boolean.TRUE : Boolean.FALSE;
+            }
+            if (node instanceof ASTNotNode) {
+                Compiled operand = compile(node.jjtGetChild(0));
+                return c -> arithmetic.not(operand.evaluate(c));
+            }
+            if (node instanceof ASTUnaryMinusNode) {
+                return negation(node);
+            }
+            if (node instanceof ASTEQNode) {
+                return binary(node, (l, r) -> arithmetic.equals(l, r) ? Boolean.TRUE : Boolean.FALSE);
+            }
+            if (node instanceof ASTNENode) {
+                return binary(node, (l, r) -> arithmetic.equals(l, r) ? Boolean.FALSE : Boolean.TRUE);
+            }
+            if (node instanceof ASTLTNode) {
+                return binary(node, (l, r) -> arithmetic.lessThan(l, r) ? Boolean.TRUE : Boolean.FALSE);
+            }
+            if (node instanceof ASTLENode) {
+                return binary(node, (l, r) -> arithmetic.lessThanOrEqual(l, r) ? Boolean.TRUE : Boolean.FALSE);
+            }
+            if (node instanceof ASTGTNode) {
+                return binary(node, (l, r) -> arithmetic.greaterThan(l, r) ? Boolean.TRUE : Boolean.FALSE);
+            }
+            if (node instanceof ASTGENode) {
+                return binary(node, (l, r) -> arithmetic.greaterThanOrEqual(l, r) ? Boolean.TRUE : Boolean.FALSE);
+            }
+            if (node instanceof ASTAddNode) {
+                return binary(node, arithmetic::add);
+            }
+            if (node instanceof ASTSubNode) {
+                return binary(node, arithmetic::subtract);
+            }
+            if (node instanceof ASTMulNode) {
+                return binary(node, arithmetic::multiply);
+            }
+            if (node instanceof ASTDivNode) {
+                return binary(node, arithmetic::divide);
+            }
+            if (node instanceof ASTModNode) {
+                return binary(node, arithmetic::mod);
+            }
+            throw new Unsupported(node.getClass().getSimpleName());
+        }
+
+        /*
+         * A binary operator, evaluating both operands
+         */
+        private Compiled binary(JexlNode node, BinaryOperator<Object> operator) {
+            Compiled left = compile(node.jjtGetChild(0));
+            Compiled right = compile(node.jjtGetChild(1));
+            return c -> operator.apply(left.evaluate(c), right.evaluate(c));
+        }
+
+        private Compiled negation(JexlNode node) {
+            JexlNode operandNode = node.jjtGetChild(0);
+            if (operandNode instanceof ASTNumberLiteral) {
+                // the interpreter narrows negated literals to their own class
+                ASTNumberLiteral literal = (ASTNumberLiteral) operandNode;
+                Object negated = arithmetic.negate(literal.getLiteral());
+                Object value = negated instanceof Number
+                        ? arithmetic.narrowNumber((Number) negated, literal.getLiteralClass()) : negated;
+                return c -> value;
+            }
+            Compiled operand = compile(operandNode);
+            return c -> arithmetic.negate(operand.evaluate(c));
+        }
+
+        private Compiled variable(ASTIdentifier node) {
+            if (node.getSymbol() >= 0) {
+                throw new Unsupported("local variable");
+            }
+            String name = node.getName();
+            return c -> {
+                Object value = c.get(name);
+                if (value == null && !c.has(name)) {
+                    throw Deoptimization.INSTANCE;
+                }
+                return value;
+            };
+        }
+
+        private Compiled reference(JexlNode node) {
+            if (!(node.jjtGetChild(0) instanceof ASTIdentifier)) {
+                throw new Unsupported("reference");
+            }
+            Compiled object = variable((ASTIdentifier) node.jjtGetChild(0));
+            for (int i = 1; i < node.jjtGetNumChildren(); i++) {
+                JexlNode child = node.jjtGetChild(i);
+                if (!(child instanceof ASTIdentifierAccess)) {
+                    throw new Unsupported(child.getClass().getSimpleName());
+                }
+                if (!propertyAccesses) {
+                    throw new Unsupported("property access");
+                }
+                object = new PropertyAccess(object, ((ASTIdentifierAccess) child).getIdentifier(), uberspect);
+            }
+            return object;
+        }
+
+    }
+
+    /*
+     * A property access that caches its getter, as the interpreter does
+     */
+    private static class PropertyAccess implements Compiled {
+
+        private final Compiled object;
+        private final Object property;
+        private final JexlUberspect uberspect;
+        private volatile JexlPropertyGet getter;
+
+        PropertyAccess(Compiled object, Object property, JexlUberspect uberspect) {
+            this.object = object;
+            this.property = property;
+            this.uberspect = uberspect;
+        }
+
+        @Override
+        public Object evaluate(JexlContext context) {
+            Object target = object.evaluate(context);
+            if (target == null) {
+                throw Deoptimization.INSTANCE;
+            }
+            Object value;
+            JexlPropertyGet cached = getter;
+            if (cached != null) {
+                value = cached.tryInvoke(target, property);
+                if (!cached.tryFailed(value)) {
+                    return checked(value);
+                }
+            }
+            JexlPropertyGet resolved = uberspect.getPropertyGet(
+                    uberspect.getResolvers(JexlOperator.PROPERTY_GET, target), target, property);
+            if (resolved == null) {
+                throw Deoptimization.INSTANCE;
+            }
+            try {
+                value = resolved.invoke(target);
+            } catch (Exception e) {
+                throw Deoptimization.INSTANCE;
+            }
+            if (resolved.isCacheable()) {
+                getter = resolved;
+            }
+            return checked(value);
+        }
+
+        /*
+         * A null property may be an undefined one to the interpreter
+         */
+        private static Object checked(Object value) {
+            if (value == null) {
+                throw Deoptimization.INSTANCE;
+            }
+            return value;
+        }
+
+    }
+
+}
@@ -0,0 +1,91 @@
+package it.sky.rulesengine.factory.impl.jexl;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlScript;
+
+import java.util.function.Predicate;
+
+/**
+ * A condition backed by a JEXL script, that keeps the script
+ * and the engine that created it available for further compilation.
+ *
+ * @param <A> the facts type
+ * @see JexlScriptParser#parseCondition(String)
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public abstract class JexlCondition<A extends JexlContext> implements Predicate<A> {
+
+    @NonNull
+    protected final JexlEngine jexlEngine;
+    protected final MemoizationStats memoizationStats;
+    private volatile JexlCost cost;
+
+    /**
+     * Returns the script, which subclasses may create when first needed.
+     *
+     * @return the script
+     */
+    public abstract JexlScript getJexlScript();
+
+    /**
+     * Returns the script's source text.
+     *
+     * @return the source text
+     */
+    public String getSourceText() {
+        return getJexlScript().getSourceText();
+    }
+
+    /**
+     * Returns the static cost estimate of the script, computed on the first call.
+     *
+     * @return the cost
+     */
+    public JexlCost getCost() {
+        JexlCost result = cost;
+        if (result == null) {
+            result = JexlCost.of(getSourceText());
+            cost = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the script is currently executed as compiled code rather than interpreted.
+     *
+     * @return true if compiled
+     * @see JexlScriptParser#withTieredCompilation(int)
+     */
+    public boolean isCompiled() {
+        return false;
+    }
+
+    @Override
+    public boolean test(A facts) {
+        return (boolean) evaluate(facts);
+    }
+
+    /*
+     * Returns the value of the script, before the check that it's a boolean
+     */
+    Object evaluate(A facts) {
+        return JexlScriptParser.evaluate(getJexlScript(), JexlScriptParser.memoize(facts, memoizationStats));
+    }
+
+    /*
+     * Returns a condition evaluated like this one, but with the given script, e.g. one of its operands
+     */
+    abstract JexlCondition<A> derive(JexlScript jexlScript);
+
+    @Override
+    public String toString() {
+        return getSourceText();
+    }
+
+}
@@ -0,0 +1,356 @@
+package it.sky.rulesengine.factory.impl.jexl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.CompositeRule;
+import lombok.NonNull;
+import org.apache.commons.jexl3.JexlArithmetic;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.internal.Debugger;
+import org.apache.commons.jexl3.parser.*;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A Rete-style network of the conditions of some JEXL rules.
+ *
+ * <p>The <code>&amp;&amp;</code>, <code>||</code> and <code>!</code> operators of each
+ * {@link JexlCondition} are decomposed into a tree whose leaves, the alpha nodes, are shared
+ * by all the rules with the same sub-condition, e.g. <code>isRaining</code> in
+ * <code>temperature &gt; 20 &amp;&amp; !isRaining</code> and <code>temperature &lt; 10 &amp;&amp; !isRaining</code>.
+ * Within an {@link Evaluation}, each alpha node is evaluated at most once, until the evaluation is
+ * {@link Evaluation#reset() reset}, and its result propagated to all the dependent rules.
+ * The operators keep short-circuiting.
+ *
+ * <p>The remembered results don't follow the changes of the facts, which must be followed
+ * by a reset. The sub-conditions are expected to have no side effects, which would happen once
+ * for all the rules sharing them.
+ *
+ * <p>The conditions are decomposed from their syntax tree. The operands are evaluated as the conditions'
+ * scripts are, memoizing the variables or compiling the script if so configured, and converted to a boolean
+ * as the JEXL operators do. Conditions that are not a boolean operator, or that contain statements
+ * or assignments, are not decomposed, but still shared as a whole, and must return a boolean.
+ * Only {@link CompositeRule composite rules} without an else path take part in the network.
+ */
+public class JexlConditionNetwork {
+
+    private final Map<Rule<?, ?>, Node> conditions;
+    private final int alphaCount;
+    private final int referenceCount;
+
+    protected JexlConditionNetwork(@NonNull Map<Rule<?, ?>, Node> conditions, int alphaCount, int referenceCount) {
+        this.conditions = conditions;
+        this.alphaCount = alphaCount;
+        this.referenceCount = referenceCount;
+    }
+
+    /**
+     * Creates the network of the conditions of the given rules.
+     *
+     * @param rules the rules
+     * @return the network
+     */
+    public static JexlConditionNetwork create(@NonNull Collection<? extends Rule<?, ?>> rules) {
+        Builder builder = new Builder();
+        for (Rule<?, ?> rule : rules) {
+            JexlCondition<?> condition = jexlCondition(rule);
+            if (condition != null) {
+                builder.add(rule, condition);
+            }
+        }
+        return new JexlConditionNetwork(builder.conditions, builder.alphaCount, builder.referenceCount);
+    }
+
+    private static JexlCondition<?> jexlCondition(Rule<?, ?> rule) {
+        if (rule instanceof CompositeRule) {
+            Optional<? extends Predicate<?>> condition = ((CompositeRule<?, ?>) rule).getCondition();
+            if (condition.isPresent() && condition.get() instanceof JexlCondition) {
+                return (JexlCondition<?>) condition.get();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if the condition of the given rule is part of this network.
+     *
+     * @param rule the rule
+     * @return true if the rule's condition is part of this network
+     */
+    public boolean contains(Rule<?, ?> rule) {
+        return conditions.containsKey(rule);
+    }
+
+    /**
+     * Returns the number of distinct sub-conditions.
+     *
+     * @return the number of alpha nodes
+     */
+    public int getAlphaCount() {
+        return alphaCount;
+    }
+
+    /**
+     * Returns the number of sub-conditions of all the rules, counting the shared ones once per rule.
+     *
+     * @return the number of references to the alpha nodes
+     */
+    public int getReferenceCount() {
+        return referenceCount;
+    }
+
+    /**
+     * Starts the evaluation of the network on the given facts.
+     *
+     * @param facts the facts
+     * @return the evaluation
+     */
+    public Evaluation evaluate(JexlContext facts) {
+        return new Evaluation(facts, new byte[alphaCount]);
+    }
+
+    /**
+     * The evaluation of a network on some facts, which remembers the results of the alpha nodes.
+     *
+     * <p>This class is not thread safe.
+     */
+    public class Evaluation {
+
+        private final JexlContext facts;
+        private final byte[] memory;
+
+        private Evaluation(JexlContext facts, byte[] memory) {
+            this.facts = facts;
+            this.memory = memory;
+        }
+
+        /**
+         * Tests the condition of the given rule, reusing the results of the shared sub-conditions.
+         *
+         * @param rule the rule
+         * @return the condition's result
+         * @throws IllegalArgumentException if the rule's condition is not part of the network
+         * @see #contains(Rule)
+         */
+        public boolean test(Rule<?, ?> rule) {
+            Node node = conditions.get(rule);
+            if (node == null) {
+                throw new IllegalArgumentException(String.format("rule '%s' is not part of the network", rule.getId()));
+            }
+            return node.test(facts, memory);
+        }
+
+        /**
+         * Forgets the results of the sub-conditions, e.g. after a rule's action changed the facts.
+         */
+        public void reset() {
+            Arrays.fill(memory, (byte) 0);
+        }
+
+    }
+
+    /*
+     * A node of a condition's tree
+     */
+    protected abstract static class Node {
+
+        abstract boolean test(JexlContext facts, byte[] memory);
+
+    }
+
+    protected static class AlphaNode extends Node {
+
+        private static final byte FALSE = 1;
+        private static final byte TRUE = 2;
+
+        private final int index;
+        private final Predicate<JexlContext> predicate;
+
+        AlphaNode(int index, Predicate<JexlContext> predicate) {
+            this.index = index;
+            this.predicate = predicate;
+        }
+
+        @Override
+        boolean test(JexlContext facts, byte[] memory) {
+            if (memory[index] == 0) {
+                memory[index] = predicate.test(facts) ? TRUE : FALSE;
+            }
+            return memory[index] == TRUE;
+        }
+
+    }
+
+    protected static class AndNode extends Node {
+
+        private final Node[] operands;
+
+        AndNode(Node[] operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        boolean test(JexlContext facts, byte[] memory) {
+            for (Node operand : operands) {
+                if (!operand.test(facts, memory)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+    protected static class OrNode extends Node {
+
+        private final Node[] operands;
+
+        OrNode(Node[] operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        boolean test(JexlContext facts, byte[] memory) {
+            for (Node operand : operands) {
+                if (operand.test(facts, memory)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    protected static class NotNode extends Node {
+
+        private final Node operand;
+
+        NotNode(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean test(JexlContext facts, byte[] memory) {
+            return !operand.test(facts, memory);
+        }
+
+    }
+
+    /*
+     * Decomposes the conditions' syntax trees, sharing the alpha nodes with the same engine and source text
+     */
+    private static class Builder {
+
+        private final Map<Rule<?, ?>, Node> conditions = new IdentityHashMap<>();
+        private final Map<JexlEngine, Map<String, AlphaNode>> operandNodes = new IdentityHashMap<>();
+        private final Map<JexlEngine, Map<String, AlphaNode>> conditionNodes = new IdentityHashMap<>();
+        private int alphaCount;
+        private int referenceCount;
+
+        @SuppressWarnings("unchecked")
+        void add(Rule<?, ?> rule, JexlCondition<?> condition) {
+            JexlCondition<JexlContext> jexlCondition = (JexlCondition<JexlContext>) condition;
+            ASTJexlScript root = JexlScriptParser.parseSyntaxTree(condition.getSourceText());
+            JexlNode expression = root.jjtGetNumChildren() == 1 ? unwrap(root.jjtGetChild(0)) : null;
+            Node node;
+            if (isOperator(expression) && !hasStatements(expression)) {
+                node = decompose(expression, jexlCondition);
+            } else {
+                // the condition's own test, which requires a boolean result
+                node = atom(conditionNodes, sourceOf(root), condition.getJexlEngine(), () -> jexlCondition::test);
+            }
+            conditions.put(rule, node);
+        }
+
+        private Node decompose(JexlNode node, JexlCondition<JexlContext> condition) {
+            node = unwrap(node);
+            if (node instanceof ASTAndNode) {
+                return new AndNode(decompose(operands(node, ASTAndNode.class), condition));
+            }
+            if (node instanceof ASTOrNode) {
+                return new OrNode(decompose(operands(node, ASTOrNode.class), condition));
+            }
+            if (node instanceof ASTNotNode) {
+                return new NotNode(decompose(node.jjtGetChild(0), condition));
+            }
+            // an operand, converted to a boolean as the JEXL operators do
+            String source = sourceOf(node);
+            JexlEngine engine = condition.getJexlEngine();
+            return atom(operandNodes, source, engine, () -> {
+                JexlCondition<JexlContext> operand = condition.derive(JexlScriptParser.createScript(engine, source));
+                JexlArithmetic arithmetic = engine.getArithmetic();
+                return facts -> arithmetic.toBoolean(operand.evaluate(facts));
+            });
+        }
+
+        private Node[] decompose(List<JexlNode> operands, JexlCondition<JexlContext> condition) {
+            Node[] nodes = new Node[operands.size()];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = decompose(operands.get(i), condition);
+            }
+            return nodes;
+        }
+
+        private Node atom(Map<JexlEngine, Map<String, AlphaNode>> alphaNodes, String source, JexlEngine engine,
+                          Supplier<Predicate<JexlContext>> predicate) {
+            referenceCount++;
+            return alphaNodes.computeIfAbsent(engine, e -> new HashMap<>())
+                    .computeIfAbsent(source, s -> new AlphaNode(alphaCount++, predicate.get()));
+        }
+
+    }
+
+    private static boolean isOperator(JexlNode node) {
+        return node instanceof ASTAndNode || node instanceof ASTOrNode || node instanceof ASTNotNode;
+    }
+
+    private static boolean hasStatements(JexlNode node) {
+        if (JexlCost.isStatement(node)) {
+            return true;
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            if (hasStatements(node.jjtGetChild(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Strips the parentheses around the node
+     */
+    private static JexlNode unwrap(JexlNode node) {
+        while (node instanceof ASTReferenceExpression && node.jjtGetNumChildren() == 1) {
+            node = node.jjtGetChild(0);
+        }
+        return node;
+    }
+
+    /*
+     * Returns the operands of a chain of the given binary operator
+     */
+    private static List<JexlNode> operands(JexlNode node, Class<? extends JexlNode> type) {
+        List<JexlNode> operands = new ArrayList<>();
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            JexlNode child = unwrap(node.jjtGetChild(i));
+            if (type.isInstance(child)) {
+                operands.addAll(operands(child, type));
+            } else {
+                operands.add(child);
+            }
+        }
+        return operands;
+    }
+
+    /*
+     * Prints the node back, without comments and with normalized white spaces
+     */
+    private static String sourceOf(JexlNode node) {
+        Debugger debugger = new Debugger();
+        debugger.debug(node, false);
+        return debugger.toString();
+    }
+
+}
@@ -0,0 +1,279 @@
+package it.sky.rulesengine.factory.impl.jexl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.CompositeRule;
+import it.sky.rulesengine.core.impl.CostOrderedRuleSet;
+import lombok.NonNull;
+import lombok.Value;
+import org.apache.commons.jexl3.internal.Debugger;
+import org.apache.commons.jexl3.parser.*;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * A static estimate of the cost of evaluating a JEXL script, taken from its syntax tree.
+ *
+ * <p>Method, function and constructor calls, which are dispatched by introspection and may run
+ * arbitrary code, weigh the most, followed by the variable and property reads, which go through
+ * the context or introspection, and then by the plain operators and literals.
+ *
+ * @see JexlCondition#getCost()
+ */
+@Value
+public class JexlCost {
+
+    /**
+     * The weight of a method, function or constructor call.
+     */
+    public static final double CALL_WEIGHT = 10;
+
+    /**
+     * The weight of a variable or property read.
+     */
+    public static final double READ_WEIGHT = 2;
+
+    /**
+     * The weight of the rules whose condition is not a JEXL script, which are tested last.
+     */
+    public static final double UNKNOWN_WEIGHT = Double.POSITIVE_INFINITY;
+
+    /**
+     * The number of nodes of the syntax tree.
+     */
+    int nodeCount;
+
+    /**
+     * The number of method, function and constructor calls.
+     */
+    int methodCalls;
+
+    /**
+     * The number of variable and property reads, including array accesses.
+     */
+    int variableReads;
+
+    /**
+     * Whether the script has no assignments, calls or statements, that is it can be evaluated in any order.
+     */
+    boolean sideEffectFree;
+
+    /**
+     * Returns the weighted sum of the node count, the calls and the reads.
+     *
+     * @return the weight
+     */
+    public double getWeight() {
+        return nodeCount + CALL_WEIGHT * methodCalls + READ_WEIGHT * variableReads;
+    }
+
+    /**
+     * Estimates the cost of the given script.
+     *
+     * @param script the script source text, assumed to be valid
+     * @return the cost
+     */
+    public static JexlCost of(@NonNull String script) {
+        return new Analysis(JexlScriptParser.parseSyntaxTree(script)).cost();
+    }
+
+    /**
+     * Returns the weight of the given rule's condition: the weight of a {@link JexlCondition},
+     * or {@link #UNKNOWN_WEIGHT} for any other rule.
+     *
+     * @param rule the rule
+     * @return the weight
+     */
+    public static double weightOf(@NonNull Rule<?, ?> rule) {
+        if (rule instanceof CompositeRule) {
+            Optional<? extends Predicate<?>> condition = ((CompositeRule<?, ?>) rule).getCondition();
+            if (condition.isPresent() && condition.get() instanceof JexlCondition) {
+                return ((JexlCondition<?>) condition.get()).getCost().getWeight();
+            }
+        }
+        return UNKNOWN_WEIGHT;
+    }
+
+    /**
+     * Creates a rule set with the given rules, sorted by priority, whose JEXL conditions are tested by
+     * <code>applyAll</code> from the cheapest. The other rules are tested last.
+     *
+     * @param rules the rules
+     * @param <A>   the facts type
+     * @param <B>   the result type
+     * @return the rule set
+     */
+    public static <A, B> CostOrderedRuleSet<A, B> costOrdered(@NonNull Collection<? extends Rule<A, B>> rules) {
+        return CostOrderedRuleSet.of(rules, JexlCost::weightOf);
+    }
+
+    /**
+     * Rewrites the given condition so that the operands of each <code>&amp;&amp;</code> chain are evaluated
+     * from the cheapest. Only side effect free operands are moved, and never ahead of an operand
+     * that reads a common variable, which may be guarding it, as in <code>x != null &amp;&amp; x.y &gt; 0</code>.
+     *
+     * <p>This does not preserve the result of every evaluation: an operand may be guarded by one that reads
+     * other variables, as <code>n &gt; 0</code> in <code>p.kind == 'number' &amp;&amp; n &gt; 0</code>,
+     * or fail on an undefined variable with a strict engine, so that the rewritten condition throws
+     * where the original one returned false. The results are the same only for the evaluations
+     * where no moved operand throws.
+     *
+     * @param script the script source text, assumed to be valid
+     * @return the rewritten source text, or the given one if nothing was moved
+     */
+    static String reorderOperands(String script) {
+        ASTJexlScript root = JexlScriptParser.parseSyntaxTree(script);
+        if (root.jjtGetNumChildren() != 1) {
+            return script;
+        }
+        Rewriter rewriter = new Rewriter();
+        String rewritten = rewriter.rewrite(root.jjtGetChild(0));
+        return rewriter.changed ? rewritten : script;
+    }
+
+    /*
+     * Returns true if the node is an assignment, a declaration or a statement other than an expression
+     */
+    static boolean isStatement(JexlNode node) {
+        return node instanceof ASTAssignment || node instanceof ASTSetAddNode || node instanceof ASTSetSubNode
+                || node instanceof ASTSetMultNode || node instanceof ASTSetDivNode || node instanceof ASTSetModNode
+                || node instanceof ASTSetAndNode || node instanceof ASTSetOrNode || node instanceof ASTSetXorNode
+                || node instanceof ASTVar || node instanceof ASTJexlLambda || node instanceof ASTAnnotatedStatement
+                || node instanceof ASTIfStatement || node instanceof ASTWhileStatement
+                || node instanceof ASTForeachStatement || node instanceof ASTReturnStatement;
+    }
+
+    /*
+     * Walks a syntax tree, counting nodes, calls and reads
+     */
+    private static class Analysis {
+
+        private final Set<String> variables = new HashSet<>();
+        private int nodeCount;
+        private int methodCalls;
+        private int variableReads;
+        private boolean sideEffectFree = true;
+
+        Analysis(JexlNode node) {
+            visit(node);
+        }
+
+        private void visit(JexlNode node) {
+            nodeCount++;
+            if (node instanceof ASTMethodNode || node instanceof ASTFunctionNode || node instanceof ASTConstructorNode) {
+                methodCalls++;
+                sideEffectFree = false;
+            } else if (node instanceof ASTIdentifier && !isCallee(node)) {
+                variableReads++;
+                variables.add(((ASTIdentifier) node).getName());
+            } else if (node instanceof ASTIdentifierAccess && !isCallee(node) || node instanceof ASTArrayAccess) {
+                variableReads++;
+            } else if (isStatement(node)) {
+                sideEffectFree = false;
+            }
+            for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+                visit(node.jjtGetChild(i));
+            }
+        }
+
+        /*
+         * Returns true if the identifier is the namespace or the name of a called function or method
+         */
+        private static boolean isCallee(JexlNode node) {
+            JexlNode parent = node.jjtGetParent();
+            return parent instanceof ASTFunctionNode || parent instanceof ASTMethodNode;
+        }
+
+        JexlCost cost() {
+            return new JexlCost(nodeCount, methodCalls, variableReads, sideEffectFree);
+        }
+
+    }
+
+    /*
+     * Prints a boolean expression back, reordering the operands of its && chains
+     */
+    private static class Rewriter {
+
+        private boolean changed;
+
+        String rewrite(JexlNode node) {
+            if (node instanceof ASTAndNode) {
+                return "(" + String.join(" && ", reorder(operands(node, ASTAndNode.class))) + ")";
+            }
+            if (node instanceof ASTOrNode) {
+                List<String> operands = new ArrayList<>();
+                for (JexlNode operand : operands(node, ASTOrNode.class)) {
+                    operands.add(rewrite(operand));
+                }
+                return "(" + String.join(" || ", operands) + ")";
+            }
+            if (node instanceof ASTNotNode) {
+                return "!(" + rewrite(node.jjtGetChild(0)) + ")";
+            }
+            if (node instanceof ASTReferenceExpression && node.jjtGetNumChildren() == 1) {
+                return rewrite(node.jjtGetChild(0));
+            }
+            Debugger debugger = new Debugger();
+            debugger.debug(node, false);
+            return "(" + debugger.toString() + ")";
+        }
+
+        private List<JexlNode> operands(JexlNode node, Class<? extends JexlNode> type) {
+            List<JexlNode> operands = new ArrayList<>();
+            for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+                JexlNode child = node.jjtGetChild(i);
+                if (type.isInstance(child)) {
+                    operands.addAll(operands(child, type));
+                } else {
+                    operands.add(child);
+                }
+            }
+            return operands;
+        }
+
+        /*
+         * Picks, at each step, the cheapest operand that does not share a variable with an operand before it
+         */
+        private List<String> reorder(List<JexlNode> nodes) {
+            List<Analysis> remaining = new ArrayList<>();
+            List<String> texts = new ArrayList<>();
+            boolean movable = true;
+            for (JexlNode node : nodes) {
+                Analysis analysis = new Analysis(node);
+                movable &= analysis.sideEffectFree;
+                remaining.add(analysis);
+                texts.add(rewrite(node));
+            }
+            if (!movable) {
+                return texts;
+            }
+            List<String> ordered = new ArrayList<>();
+            List<String> remainingTexts = new ArrayList<>(texts);
+            while (!remaining.isEmpty()) {
+                int best = 0;
+                for (int i = 1; i < remaining.size(); i++) {
+                    if (remaining.get(i).cost().getWeight() < remaining.get(best).cost().getWeight()
+                            && isIndependent(remaining, i)) {
+                        best = i;
+                    }
+                }
+                ordered.add(remainingTexts.remove(best));
+                remaining.remove(best);
+            }
+            changed |= !ordered.equals(texts);
+            return ordered;
+        }
+
+        private static boolean isIndependent(List<Analysis> operands, int index) {
+            for (int i = 0; i < index; i++) {
+                if (!Collections.disjoint(operands.get(i).variables, operands.get(index).variables)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,208 @@
+package it.sky.rulesengine.factory.impl.jexl;
+
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlScript;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A thread safe, bounded cache of the scripts created by some {@link JexlEngine engines}, keyed by
+ * engine and source text, which evicts the least recently used scripts once the total length
+ * of the cached source texts exceeds a maximum weight.
+ *
+ * <p>Scripts are immutable and can be shared by any number of conditions and actions, so that
+ * parsing the same rules again, e.g. on every {@link it.sky.rulesengine.factory.api.RulesFactory#get() get},
+ * only costs a lookup per script. Invalid scripts are not cached.
+ *
+ * @see JexlScriptParser#withScriptCache(JexlScriptCache)
+ */
+public class JexlScriptCache {
+
+    private final long maximumWeight;
+    private final Map<Key, JexlScript> scripts = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maximumWeight the maximum total length of the cached source texts
+     * @throws IllegalArgumentException if the maximum weight is not positive
+     */
+    public JexlScriptCache(long maximumWeight) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximum weight must be positive: " + maximumWeight);
+        }
+        this.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * Returns the cached script created by the given engine from the given source text,
+     * creating and caching it if missing.
+     *
+     * @param jexlEngine    the engine
+     * @param script        the source text
+     * @param scriptCreator creates the script if missing
+     * @return the script
+     */
+    JexlScript get(JexlEngine jexlEngine, String script, Function<String, JexlScript> scriptCreator) {
+        Key key = new Key(jexlEngine, script);
+        synchronized (this) {
+            JexlScript cached = scripts.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        // created outside the lock, a concurrent miss on the same key only wastes a parsing
+        JexlScript created = scriptCreator.apply(script);
+        synchronized (this) {
+            if (scripts.putIfAbsent(key, created) == null) {
+                weight += weigh(script);
+                evict();
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Returns the maximum total length of the cached source texts.
+     *
+     * @return the maximum weight
+     */
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Returns the total length of the cached source texts.
+     *
+     * @return the weight
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns the number of cached scripts.
+     *
+     * @return the size
+     */
+    public synchronized int size() {
+        return scripts.size();
+    }
+
+    /**
+     * Returns the number of lookups served by the cache.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that created a script.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of scripts evicted to honour the maximum weight.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the ratio of hits to lookups.
+     *
+     * @return the hit ratio, 0 if there were no lookups
+     */
+    public double getHitRatio() {
+        long hitCount = getHits();
+        long lookups = hitCount + getMisses();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Removes all the scripts, keeping the counters.
+     */
+    public synchronized void clear() {
+        scripts.clear();
+        weight = 0;
+    }
+
+    /**
+     * Resets the counters.
+     */
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    /*
+     * Removes the least recently used scripts, keeping at least the last one
+     */
+    private void evict() {
+        Iterator<Key> it = scripts.keySet().iterator();
+        while (weight > maximumWeight && scripts.size() > 1) {
+            weight -= weigh(it.next().script);
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private static long weigh(String script) {
+        return Math.max(1, script.length());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d, weight=%d, hits=%d, misses=%d, evictions=%d",
+                size(), getWeight(), getHits(), getMisses(), getEvictions());
+    }
+
+    /*
+     * Scripts are bound to the engine that created them, compared by identity
+     */
+    private static final class Key {
+
+        private final JexlEngine jexlEngine;
+        private final String script;
+
+        Key(JexlEngine jexlEngine, String script) {
+            this.jexlEngine = jexlEngine;
+            this.script = script;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return jexlEngine == other.jexlEngine && script.equals(other.script);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(jexlEngine) + script.hashCode();
+        }
+
+    }
+
+}
@@ -5,12 +5,17 @@ import it.sky.rulesengine.factory.api.ActionParser;
 import it.sky.rulesengine.factory.api.ConditionParser;
 import it.sky.rulesengine.factory.impl.exception.ParsingException;
 import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.experimental.Wither;
 import org.apache.commons.jexl3.*;
+import org.apache.commons.jexl3.parser.ASTJexlScript;
+import org.apache.commons.jexl3.parser.Parser;
 
+import java.io.StringReader;
 import java.util.function.Function;
-import java.util.function.Predicate;
 
 /**
  * A JEXL condition and action parser.
@@ -26,6 +31,31 @@ public class JexlScriptParser<A extends JexlContext, B> implements ConditionPars
     protected final JexlEngine jexlEngine;
     @NonNull
     protected final Class<B> resultType;
+    @NonNull
+    protected final Options options;
+
+    protected JexlScriptParser(JexlEngine jexlEngine, Class<B> resultType) {
+        this(jexlEngine, resultType, Options.DEFAULT);
+    }
+
+    /**
+     * The parsing options, see the parser's <code>with</code> methods.
+     */
+    @Value
+    @Wither
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    protected static class Options {
+
+        static final Options DEFAULT = new Options(null, false, -1, null, false, false);
+
+        MemoizationStats memoizationStats;
+        boolean operandReordering;
+        int compilationThreshold;
+        JexlScriptCache scriptCache;
+        boolean lazyCompilation;
+        boolean singleReads;
+
+    }
 
     /**
      * Creates an instance that uses a default {@link JexlEngine}
@@ -46,7 +76,110 @@ public class JexlScriptParser<A extends JexlContext, B> implements ConditionPars
      */
     @SuppressWarnings("unchecked")
     public <X extends JexlContext> JexlScriptParser<X, B> withEngine(@NonNull final JexlEngine jexlEngine) {
-        return this.jexlEngine == jexlEngine ? (JexlScriptParser<X, B>) this : new JexlScriptParser<>(jexlEngine, resultType);
+        return this.jexlEngine == jexlEngine ? (JexlScriptParser<X, B>) this
+                : new JexlScriptParser<>(jexlEngine, resultType, options);
+    }
+
+    /**
+     * Returns a copy whose scripts read the facts through a {@link MemoizingJexlContext},
+     * updating the given stats.
+     *
+     * <p>The facts are decorated only if they are not memoizing yet: a {@link MemoizingRulesEngine}
+     * installs a single memoizing context for a whole evaluation, so that variables are resolved
+     * once across all the rules. Otherwise each script resolves its variables once.
+     *
+     * @param memoizationStats the stats to update
+     * @return the new parser
+     */
+    public JexlScriptParser<A, B> withMemoization(@NonNull final MemoizationStats memoizationStats) {
+        return withOptions(options.withMemoizationStats(memoizationStats));
+    }
+
+    /**
+     * Returns a copy that rewrites the conditions so that the side effect free operands
+     * of their <code>&amp;&amp;</code> chains are evaluated from the cheapest, see {@link JexlCost}.
+     *
+     * <p>An operand is never moved ahead of another that reads a common variable, but it may still be
+     * implicitly guarded by an unrelated one, so that the rewritten condition throws an error
+     * where the original one returned false: the results may change, hence use this option only if
+     * the conditions do not rely on short-circuiting to avoid errors.
+     *
+     * @return the new parser
+     */
+    public JexlScriptParser<A, B> withOperandReordering() {
+        return withOptions(options.withOperandReordering(true));
+    }
+
+    /**
+     * Returns a copy whose conditions and actions are interpreted until they have been evaluated
+     * the given number of times, then compiled if they only use literals, variables, property accesses,
+     * comparisons, boolean operators and arithmetic. Other scripts are always interpreted.
+     *
+     * <p>Compiled scripts call the engine's arithmetic and introspection as the interpreter does,
+     * and fall back to the interpreter on any error or undefined value, so that they return
+     * the same results and throw the same exceptions. Engines with a custom arithmetic are always interpreted.
+     *
+     * <p>Falling back evaluates the whole script again: the variables and properties read before
+     * the error are read again, calling the context's <code>get</code> and <code>has</code>, unless
+     * the facts are {@link #withMemoization(MemoizationStats) memoized}, and the property getters a second time.
+     * Use {@link #withoutRepeatedReads()} if they are not idempotent.
+     *
+     * @param compilationThreshold the number of interpreted evaluations, 0 to compile on the first one
+     * @return the new parser
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public JexlScriptParser<A, B> withTieredCompilation(int compilationThreshold) {
+        if (compilationThreshold < 0) {
+            throw new IllegalArgumentException("compilation threshold cannot be negative: " + compilationThreshold);
+        }
+        return withOptions(options.withCompilationThreshold(compilationThreshold));
+    }
+
+    /**
+     * Returns a copy whose {@link #withTieredCompilation(int) compiled} scripts never read a variable
+     * or a property twice in an evaluation, even when they fall back to the interpreter.
+     *
+     * <p>The scripts that access properties are always interpreted, and the facts are memoized, so that
+     * the interpreter reads the variables already read by the compiled code from the memoized values.
+     * Unless {@link #withMemoization(MemoizationStats) memoization} is configured, it's enabled with its own stats.
+     *
+     * @return the new parser
+     */
+    public JexlScriptParser<A, B> withoutRepeatedReads() {
+        Options singleReads = options.withSingleReads(true);
+        return withOptions(singleReads.getMemoizationStats() != null ? singleReads
+                : singleReads.withMemoizationStats(new MemoizationStats()));
+    }
+
+    /**
+     * Returns a copy that looks up the scripts in the given cache before creating them,
+     * so that parsing the same conditions and actions again is a lookup.
+     * The cache can be shared by any number of parsers and engines.
+     *
+     * @param scriptCache the cache
+     * @return the new parser
+     */
+    public JexlScriptParser<A, B> withScriptCache(@NonNull final JexlScriptCache scriptCache) {
+        return withOptions(options.withScriptCache(scriptCache));
+    }
+
+    /**
+     * Returns a copy whose conditions and actions create their scripts when first evaluated,
+     * so that the rules that are never evaluated are never compiled.
+     *
+     * <p>Invalid scripts throw a {@link ParsingException} on evaluation rather than on parsing.
+     *
+     * @return the new parser
+     */
+    public JexlScriptParser<A, B> withLazyCompilation() {
+        return withOptions(options.withLazyCompilation(true));
+    }
+
+    /*
+     * Returns this parser if the options are unchanged, as their withers return the same instance
+     */
+    private JexlScriptParser<A, B> withOptions(Options options) {
+        return this.options == options ? this : new JexlScriptParser<>(jexlEngine, resultType, options);
     }
 
     /**
@@ -57,9 +190,22 @@ public class JexlScriptParser<A extends JexlContext, B> implements ConditionPars
      * @throws ParsingException if the script is not valid
      */
     @Override
-    public Predicate<A> parseCondition(String script) {
+    public JexlCondition<A> parseCondition(String script) {
+        MemoizationStats memoizationStats = options.getMemoizationStats();
+        if (options.isLazyCompilation()) {
+            return new LazyJexlCondition<>(jexlEngine, script, memoizationStats, eager()::parseCondition);
+        }
         JexlScript jexlScript = createScript(script);
-        return facts -> (boolean) evaluate(jexlScript, facts);
+        if (options.isOperandReordering()) {
+            String reordered = JexlCost.reorderOperands(script);
+            if (!reordered.equals(script)) {
+                jexlScript = createScript(reordered);
+            }
+        }
+        int compilationThreshold = options.getCompilationThreshold();
+        return compilationThreshold < 0 ? new InterpretedJexlCondition<>(jexlEngine, jexlScript, memoizationStats)
+                : new TieredJexlCondition<>(jexlEngine, jexlScript, memoizationStats, compilationThreshold,
+                !options.isSingleReads());
     }
 
     /**
@@ -71,11 +217,31 @@ public class JexlScriptParser<A extends JexlContext, B> implements ConditionPars
      */
     @Override
     public Function<A, B> parseAction(String script) {
+        if (options.isLazyCompilation()) {
+            return new LazyJexlAction<>(script, eager()::parseAction);
+        }
+        MemoizationStats memoizationStats = options.getMemoizationStats();
+        int compilationThreshold = options.getCompilationThreshold();
         JexlScript jexlScript = createScript(script);
-        return facts -> resultType.cast(evaluate(jexlScript, facts));
+        if (compilationThreshold >= 0) {
+            TieredJexlScript tieredScript = new TieredJexlScript(jexlEngine, jexlScript, compilationThreshold,
+                    !options.isSingleReads());
+            return facts -> resultType.cast(tieredScript.execute(memoize(facts, memoizationStats)));
+        }
+        return facts -> resultType.cast(evaluate(jexlScript, memoize(facts, memoizationStats)));
     }
 
-    private JexlScript createScript(String script) {
+    private JexlScriptParser<A, B> eager() {
+        return withOptions(options.withLazyCompilation(false));
+    }
+
+    protected JexlScript createScript(String script) {
+        JexlScriptCache scriptCache = options.getScriptCache();
+        return scriptCache == null ? createScript(jexlEngine, script)
+                : scriptCache.get(jexlEngine, script, source -> createScript(jexlEngine, source));
+    }
+
+    static JexlScript createScript(JexlEngine jexlEngine, String script) {
         try {
             return jexlEngine.createScript(script);
         } catch (JexlException e) {
@@ -84,7 +250,15 @@ public class JexlScriptParser<A extends JexlContext, B> implements ConditionPars
         }
     }
 
-    private Object evaluate(JexlScript jexlScript, A facts) {
+    static ASTJexlScript parseSyntaxTree(String script) {
+        return new Parser(new StringReader(";")).parse(null, script, null, false, false);
+    }
+
+    static JexlContext memoize(JexlContext facts, MemoizationStats memoizationStats) {
+        return memoizationStats == null ? facts : MemoizingJexlContext.of(facts, memoizationStats);
+    }
+
+    static Object evaluate(JexlScript jexlScript, JexlContext facts) {
         try {
             return jexlScript.execute(facts);
         } catch (JexlException e) {
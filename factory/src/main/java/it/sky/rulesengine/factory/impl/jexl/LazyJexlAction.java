@@ -0,0 +1,45 @@
+package it.sky.rulesengine.factory.impl.jexl;
+
+import java.util.function.Function;
+
+/**
+ * An action that creates its script when first needed.
+ *
+ * @param <A> the facts type
+ * @param <B> the result type
+ * @see JexlScriptParser#withLazyCompilation()
+ */
+class LazyJexlAction<A, B> implements Function<A, B> {
+
+    private final String source;
+    private final Function<String, Function<A, B>> actionParser;
+    private volatile Function<A, B> action;
+
+    LazyJexlAction(String source, Function<String, Function<A, B>> actionParser) {
+        this.source = source;
+        this.actionParser = actionParser;
+    }
+
+    @Override
+    public B apply(A facts) {
+        return action().apply(facts);
+    }
+
+    /*
+     * A concurrent first use may create the script twice, which is harmless
+     */
+    private Function<A, B> action() {
+        Function<A, B> current = action;
+        if (current == null) {
+            current = actionParser.apply(source);
+            action = current;
+        }
+        return current;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+}
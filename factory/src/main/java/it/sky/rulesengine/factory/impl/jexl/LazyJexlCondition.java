@@ -0,0 +1,81 @@
+package it.sky.rulesengine.factory.impl.jexl;
+
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlScript;
+
+import java.util.function.Function;
+
+/**
+ * A {@link JexlCondition} that creates its script when first needed.
+ *
+ * @param <A> the facts type
+ * @see JexlScriptParser#withLazyCompilation()
+ */
+class LazyJexlCondition<A extends JexlContext> extends JexlCondition<A> {
+
+    private final String source;
+    private final Function<String, JexlCondition<A>> conditionParser;
+    private volatile JexlCondition<A> condition;
+
+    LazyJexlCondition(JexlEngine jexlEngine, String source, MemoizationStats memoizationStats,
+                      Function<String, JexlCondition<A>> conditionParser) {
+        super(jexlEngine, memoizationStats);
+        this.source = source;
+        this.conditionParser = conditionParser;
+    }
+
+    @Override
+    public JexlScript getJexlScript() {
+        return condition().getJexlScript();
+    }
+
+    @Override
+    public String getSourceText() {
+        return condition().getSourceText();
+    }
+
+    @Override
+    public JexlCost getCost() {
+        return condition().getCost();
+    }
+
+    @Override
+    public boolean isCompiled() {
+        JexlCondition<A> current = condition;
+        return current != null && current.isCompiled();
+    }
+
+    @Override
+    public boolean test(A facts) {
+        return condition().test(facts);
+    }
+
+    @Override
+    Object evaluate(A facts) {
+        return condition().evaluate(facts);
+    }
+
+    @Override
+    JexlCondition<A> derive(JexlScript jexlScript) {
+        return condition().derive(jexlScript);
+    }
+
+    /*
+     * A concurrent first use may create the script twice, which is harmless
+     */
+    private JexlCondition<A> condition() {
+        JexlCondition<A> current = condition;
+        if (current == null) {
+            current = conditionParser.apply(source);
+            condition = current;
+        }
+        return current;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+}
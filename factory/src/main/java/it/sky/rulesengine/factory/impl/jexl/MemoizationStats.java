@@ -0,0 +1,63 @@
+package it.sky.rulesengine.factory.impl.jexl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe hit and miss counters of some {@link MemoizingJexlContext memoizing contexts}.
+ */
+public class MemoizationStats {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Returns the number of lookups served by a cache.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups delegated to the decorated contexts.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the ratio of hits to lookups.
+     *
+     * @return the hit ratio, 0 if there were no lookups
+     */
+    public double getHitRatio() {
+        long hitCount = getHits();
+        long lookups = hitCount + getMisses();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Resets the counters.
+     */
+    public void reset() {
+        hits.reset();
+        misses.reset();
+    }
+
+    void hit() {
+        hits.increment();
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d", getHits(), getMisses());
+    }
+
+}
@@ -0,0 +1,130 @@
+package it.sky.rulesengine.factory.impl.jexl;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.apache.commons.jexl3.JexlContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link JexlContext} decorator that resolves each variable once,
+ * caching the results of {@link #get(String)} and {@link #has(String)}.
+ *
+ * <p>It's meant to live for a single evaluation of some rules, since changes made to the
+ * decorated context afterwards are not seen. Changes made through {@link #set(String, Object)}
+ * are seen instead. Namespaces are resolved by the decorated context, if it's a
+ * {@link JexlContext.NamespaceResolver}.
+ *
+ * <p>This class is thread safe, so that the rules of an evaluation can be tested in parallel,
+ * provided the decorated context is safe to read concurrently. Threads that read the same
+ * variable for the first time at the same time may all resolve it.
+ *
+ * @see MemoizingRulesEngine
+ */
+public class MemoizingJexlContext implements JexlContext, JexlContext.NamespaceResolver {
+
+    /*
+     * Stands for the null values, which a concurrent map cannot hold
+     */
+    private static final Object NULL = new Object();
+
+    @Getter
+    private final JexlContext delegate;
+    private final MemoizationStats stats;
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> presences = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public MemoizingJexlContext(@NonNull JexlContext delegate, @NonNull MemoizationStats stats) {
+        this.delegate = delegate;
+        this.stats = stats;
+    }
+
+    /**
+     * Returns the given context if it's already memoizing, a new memoizing decorator otherwise.
+     *
+     * @param context the context
+     * @param stats   the stats to update
+     * @return the memoizing context
+     */
+    public static MemoizingJexlContext of(@NonNull JexlContext context, MemoizationStats stats) {
+        return context instanceof MemoizingJexlContext ? (MemoizingJexlContext) context
+                : new MemoizingJexlContext(context, stats);
+    }
+
+    /**
+     * Returns the number of lookups served by this context's cache.
+     *
+     * @return the number of hits
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups delegated to the decorated context.
+     *
+     * @return the number of misses
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public Object get(String name) {
+        Object value = values.get(name);
+        if (value != null) {
+            hit();
+            return value == NULL ? null : value;
+        }
+        miss();
+        value = delegate.get(name);
+        // a value set meanwhile wins over the resolved one
+        Object previous = values.putIfAbsent(name, value == null ? NULL : value);
+        return previous == null ? value : previous == NULL ? null : previous;
+    }
+
+    @Override
+    public void set(String name, Object value) {
+        delegate.set(name, value);
+        values.put(name, value == null ? NULL : value);
+        presences.put(name, true);
+    }
+
+    @Override
+    public boolean has(String name) {
+        Boolean presence = presences.get(name);
+        if (presence != null) {
+            hit();
+            return presence;
+        }
+        miss();
+        presence = delegate.has(name);
+        Boolean previous = presences.putIfAbsent(name, presence);
+        return previous == null ? presence : previous;
+    }
+
+    @Override
+    public Object resolveNamespace(String name) {
+        return delegate instanceof NamespaceResolver ? ((NamespaceResolver) delegate).resolveNamespace(name) : null;
+    }
+
+    private void hit() {
+        hits.incrementAndGet();
+        stats.hit();
+    }
+
+    private void miss() {
+        misses.incrementAndGet();
+        stats.miss();
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+}
@@ -0,0 +1,188 @@
+package it.sky.rulesengine.factory.impl.jexl;
+
+import it.sky.rulesengine.core.api.ResultSink;
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.api.RuleSet;
+import it.sky.rulesengine.core.api.RulesEngine;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.jexl3.JexlContext;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link RulesEngine} decorator that installs a new {@link MemoizingJexlContext} for every
+ * evaluation, so that each variable of the facts is resolved at most once across all the rules
+ * of a single <code>applyFirst</code> or <code>applyAll</code> call. The cached values are
+ * discarded at the end of the call.
+ *
+ * <p>The delegate may evaluate the rules of a call in parallel, since the memoizing context
+ * is thread safe, but a variable read for the first time by several threads at once may be resolved
+ * by each of them.
+ *
+ * <p>Facts that are not a {@link JexlContext} are passed to the delegate as they are.
+ * The rules are given a {@link MemoizingJexlContext} in place of the original facts, so they must
+ * accept any {@link JexlContext}, as the ones created by a {@link JexlScriptParser} do.
+ *
+ * @see JexlScriptParser#withMemoization(MemoizationStats)
+ */
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemoizingRulesEngine implements RulesEngine {
+
+    @NonNull
+    @Getter
+    protected final RulesEngine delegate;
+    @NonNull
+    @Getter
+    protected final MemoizationStats stats;
+
+    /**
+     * Creates a memoizing decorator of the given engine.
+     *
+     * @param delegate the engine
+     * @return the memoizing engine
+     */
+    public static MemoizingRulesEngine create(RulesEngine delegate) {
+        return create(delegate, new MemoizationStats());
+    }
+
+    /**
+     * Creates a memoizing decorator of the given engine that updates the given stats.
+     *
+     * @param delegate the engine
+     * @param stats    the stats to update
+     * @return the memoizing engine
+     */
+    public static MemoizingRulesEngine create(RulesEngine delegate, MemoizationStats stats) {
+        return new MemoizingRulesEngine(delegate, stats);
+    }
+
+    @Override
+    public <A, B> Optional<B> applyFirst(Collection<Rule<A, B>> rules, A facts) {
+        return delegate.applyFirst(rules, memoize(facts));
+    }
+
+    @Override
+    public <A, B> Map<String, B> applyAll(Collection<Rule<A, B>> rules, A facts) {
+        return delegate.applyAll(rules, memoize(facts));
+    }
+
+    @Override
+    public <A, B> Optional<B> applyFirst(RuleSet<A, B> rules, A facts) {
+        return delegate.applyFirst(rules, memoize(facts));
+    }
+
+    @Override
+    public <A, B> Map<String, B> applyAll(RuleSet<A, B> rules, A facts) {
+        return delegate.applyAll(rules, memoize(facts));
+    }
+
+    @Override
+    public <A, B> void applyAll(Collection<Rule<A, B>> rules, A facts, BiConsumer<String, ? super B> sink) {
+        delegate.applyAll(rules, memoize(facts), sink);
+    }
+
+    @Override
+    public <A, B> void applyAll(RuleSet<A, B> rules, A facts, ResultSink<? super B> sink) {
+        delegate.applyAll(rules, memoize(facts), sink);
+    }
+
+    @Override
+    public <A, B> void applyFirstBatch(Collection<Rule<A, B>> rules, Iterable<? extends A> facts,
+                                       BiConsumer<? super A, ? super Optional<B>> sink) {
+        delegate.applyFirstBatch(rules, memoizeAll(facts), (f, result) -> sink.accept(unwrap(f), result));
+    }
+
+    @Override
+    public <A, B> void applyFirstBatch(Collection<Rule<A, B>> rules, List<? extends A> facts, B[] results) {
+        delegate.applyFirstBatch(rules, memoizeAll(facts), results);
+    }
+
+    @Override
+    public <A, B> void applyFirstBatch(Collection<Rule<A, B>> rules, List<? extends A> facts, B[] results,
+                                       ForkJoinPool pool) {
+        delegate.applyFirstBatch(rules, memoizeAll(facts), results, pool);
+    }
+
+    @Override
+    public <A, B> void applyAllBatch(Collection<Rule<A, B>> rules, Iterable<? extends A> facts,
+                                     BiConsumer<? super A, ? super Map<String, B>> sink) {
+        delegate.applyAllBatch(rules, memoizeAll(facts), (f, results) -> sink.accept(unwrap(f), results));
+    }
+
+    @Override
+    public <A, B> void applyAllBatch(Collection<Rule<A, B>> rules, List<? extends A> facts,
+                                     Map<String, B>[] results) {
+        delegate.applyAllBatch(rules, memoizeAll(facts), results);
+    }
+
+    @Override
+    public <A, B> void applyAllBatch(Collection<Rule<A, B>> rules, List<? extends A> facts,
+                                     Map<String, B>[] results, ForkJoinPool pool) {
+        delegate.applyAllBatch(rules, memoizeAll(facts), results, pool);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <A> A memoize(A facts) {
+        return facts instanceof JexlContext ? (A) new MemoizingJexlContext((JexlContext) facts, stats) : facts;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <A> A unwrap(A facts) {
+        return facts instanceof MemoizingJexlContext ? (A) ((MemoizingJexlContext) facts).getDelegate() : facts;
+    }
+
+    private <A> Iterable<A> memoizeAll(Iterable<? extends A> facts) {
+        return () -> new Iterator<A>() {
+
+            private final Iterator<? extends A> iterator = facts.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public A next() {
+                return memoize(iterator.next());
+            }
+
+        };
+    }
+
+    /*
+     * Decorates the facts lazily, so that the memoized values of an element
+     * can be discarded as soon as the element has been evaluated
+     */
+    private <A> List<A> memoizeAll(List<? extends A> facts) {
+        return new MemoizingList<>(facts);
+    }
+
+    @RequiredArgsConstructor
+    private class MemoizingList<A> extends AbstractList<A> implements RandomAccess {
+
+        private final List<? extends A> facts;
+
+        @Override
+        public A get(int index) {
+            return memoize(facts.get(index));
+        }
+
+        @Override
+        public int size() {
+            return facts.size();
+        }
+
+    }
+
+}
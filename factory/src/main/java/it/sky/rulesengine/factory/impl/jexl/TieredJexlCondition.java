@@ -0,0 +1,43 @@
+package it.sky.rulesengine.factory.impl.jexl;
+
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlScript;
+
+/**
+ * A {@link JexlCondition} whose script is compiled once it has been tested a given number of times.
+ *
+ * @param <A> the facts type
+ * @see JexlScriptParser#withTieredCompilation(int)
+ */
+class TieredJexlCondition<A extends JexlContext> extends InterpretedJexlCondition<A> {
+
+    private final int compilationThreshold;
+    private final boolean propertyAccesses;
+    private final TieredJexlScript tieredScript;
+
+    TieredJexlCondition(JexlEngine jexlEngine, JexlScript jexlScript, MemoizationStats memoizationStats,
+                        int compilationThreshold, boolean propertyAccesses) {
+        super(jexlEngine, jexlScript, memoizationStats);
+        this.compilationThreshold = compilationThreshold;
+        this.propertyAccesses = propertyAccesses;
+        this.tieredScript = new TieredJexlScript(jexlEngine, jexlScript, compilationThreshold, propertyAccesses);
+    }
+
+    @Override
+    public boolean isCompiled() {
+        return tieredScript.isCompiled();
+    }
+
+    @Override
+    Object evaluate(A facts) {
+        return tieredScript.execute(JexlScriptParser.memoize(facts, memoizationStats));
+    }
+
+    @Override
+    JexlCondition<A> derive(JexlScript jexlScript) {
+        return new TieredJexlCondition<>(jexlEngine, jexlScript, memoizationStats, compilationThreshold,
+                propertyAccesses);
+    }
+
+}
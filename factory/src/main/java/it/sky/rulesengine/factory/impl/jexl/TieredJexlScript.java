@@ -0,0 +1,90 @@
+package it.sky.rulesengine.factory.impl.jexl;
+
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlScript;
+
+/**
+ * A JEXL script that is interpreted until it has been executed a given number of times,
+ * then compiled by the {@link JexlCompiler} if it belongs to the supported subset.
+ *
+ * <p>Executions that the compiled code cannot handle like the interpreter are interpreted from the start,
+ * reading again what the compiled code read; when most of them are, the script is interpreted for good.
+ * The counters are not synchronized, hence the thresholds are approximate under contention.
+ */
+class TieredJexlScript {
+
+    /**
+     * The number of deoptimizations after which a compiled script that is deoptimized
+     * more often than not is interpreted for good.
+     */
+    static final int DEOPTIMIZATION_LIMIT = 64;
+
+    private static final JexlCompiler.Compiled INTERPRETED = c -> {
+        throw new IllegalStateException("interpreted");
+    };
+
+    private final JexlEngine jexlEngine;
+    private final JexlScript jexlScript;
+    private final int compilationThreshold;
+    private final boolean propertyAccesses;
+    private int invocations;
+    private long compiledExecutions;
+    private int deoptimizations;
+    private volatile JexlCompiler.Compiled compiled;
+
+    TieredJexlScript(JexlEngine jexlEngine, JexlScript jexlScript, int compilationThreshold,
+                     boolean propertyAccesses) {
+        this.jexlEngine = jexlEngine;
+        this.jexlScript = jexlScript;
+        this.compilationThreshold = compilationThreshold;
+        this.propertyAccesses = propertyAccesses;
+    }
+
+    /**
+     * Returns true if the script is currently executed as compiled code.
+     *
+     * @return true if compiled
+     */
+    boolean isCompiled() {
+        JexlCompiler.Compiled current = compiled;
+        return current != null && current != INTERPRETED;
+    }
+
+    /**
+     * Executes the script, as {@link JexlScriptParser#evaluate(JexlScript, JexlContext)} would.
+     *
+     * @param facts the facts
+     * @return the value of the script
+     */
+    Object execute(JexlContext facts) {
+        JexlCompiler.Compiled current = compiled;
+        if (current == null) {
+            if (invocations++ < compilationThreshold) {
+                return JexlScriptParser.evaluate(jexlScript, facts);
+            }
+            current = compile();
+        }
+        if (current != INTERPRETED) {
+            compiledExecutions++;
+            try {
+                return current.evaluate(facts);
+            } catch (RuntimeException e) {
+                if (++deoptimizations >= DEOPTIMIZATION_LIMIT && deoptimizations * 2 > compiledExecutions) {
+                    compiled = INTERPRETED;
+                }
+            }
+        }
+        return JexlScriptParser.evaluate(jexlScript, facts);
+    }
+
+    private synchronized JexlCompiler.Compiled compile() {
+        if (compiled == null) {
+            JexlCompiler.Compiled result = JexlCompiler.compile(jexlEngine, jexlScript.getSourceText(),
+                    propertyAccesses);
+            compiled = result == null ? INTERPRETED : result;
+        }
+        return compiled;
+    }
+
+}
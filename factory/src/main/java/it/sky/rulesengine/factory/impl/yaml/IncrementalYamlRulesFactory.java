@@ -0,0 +1,256 @@
+package it.sky.rulesengine.factory.impl.yaml;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.Parallelism;
+import it.sky.rulesengine.factory.api.RuleParser;
+import it.sky.rulesengine.factory.impl.exception.ParsingException;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link YamlRulesFactory} that remembers the rules parsed from each YAML document, fingerprinted
+ * by the hash of its content, so that reading the same source again only parses the added and changed documents
+ * and reuses the rules of the unchanged ones.
+ *
+ * <p>Each call reports the differences with the previous one, by rule id, as a {@link Diff}.
+ * The documents are split on the <code>---</code> lines before parsing, so the cost of a call is
+ * reading and hashing the source plus parsing the changes, rather than parsing the whole source.
+ *
+ * <p>Calls are serialized. To reload a watched file incrementally, return the same instance for every input,
+ * e.g. <code>ReloadingRulesFactory.watch(path, in -&gt; incrementalFactory)</code>,
+ * where <code>incrementalFactory</code> reads the same path.
+ *
+ * @param <A> the facts type
+ * @param <B> the result type
+ * @param <T> the rule representation type
+ */
+public class IncrementalYamlRulesFactory<A, B, T> extends YamlRulesFactory<A, B, T> {
+
+    private static final Pattern DOCUMENT_SEPARATOR = Pattern.compile("(?m)^---[ \\t]*(?:#.*)?$");
+
+    private Map<Fingerprint, List<Rule<A, B>>> documents = Collections.emptyMap();
+    private Map<String, Fingerprint> fingerprints = Collections.emptyMap();
+    private Diff lastDiff = new Diff(Collections.emptySortedSet(), Collections.emptySortedSet(),
+            Collections.emptySortedSet(), 0);
+
+    protected IncrementalYamlRulesFactory(Supplier<InputStream> inputSupplier, RuleParser<A, B, T> ruleParser,
+                                          JavaType representationType, ObjectMapper yamlMapper,
+                                          Parallelism parallelism) {
+        super(inputSupplier, ruleParser, representationType, yamlMapper, parallelism);
+    }
+
+    /**
+     * Creates an incremental factory with the same source, parser and mapper as the given one.
+     *
+     * @param yamlRulesFactory the factory
+     * @param <A>              the facts type
+     * @param <B>              the result type
+     * @param <T>              the rule representation type
+     * @return the incremental factory
+     */
+    public static <A, B, T> IncrementalYamlRulesFactory<A, B, T> of(@NonNull YamlRulesFactory<A, B, T> yamlRulesFactory) {
+        return new IncrementalYamlRulesFactory<>(yamlRulesFactory.inputSupplier, yamlRulesFactory.ruleParser,
+                yamlRulesFactory.representationType, yamlRulesFactory.yamlMapper, yamlRulesFactory.parallelism);
+    }
+
+    /**
+     * Returns a copy with the given mapper, which does not remember the documents read by this factory.
+     *
+     * @param yamlMapper the mapper
+     * @return the new factory
+     */
+    @Override
+    public IncrementalYamlRulesFactory<A, B, T> withYamlMapper(@NonNull ObjectMapper yamlMapper) {
+        return this.yamlMapper == yamlMapper ? this
+                : new IncrementalYamlRulesFactory<>(inputSupplier, ruleParser, representationType, yamlMapper, parallelism);
+    }
+
+    /**
+     * Returns a copy with the given parallelism, which does not remember the documents read by this factory.
+     *
+     * @param parallelism the parallelism of the parsing of the new documents
+     * @return the new factory
+     */
+    @Override
+    public IncrementalYamlRulesFactory<A, B, T> withParallelism(@NonNull Parallelism parallelism) {
+        return this.parallelism == parallelism ? this
+                : new IncrementalYamlRulesFactory<>(inputSupplier, ruleParser, representationType, yamlMapper, parallelism);
+    }
+
+    /**
+     * Reads the rules, parsing only the documents that were not read by the previous call.
+     * If parsing fails, the previous documents are kept for the next call.
+     *
+     * <p>The rules of all the new documents are parsed together as by {@link YamlRulesFactory#get()},
+     * on the pool if the {@link #withParallelism(Parallelism) parallelism} allows it, and all the parsing
+     * errors are reported by a single exception, which numbers the rules among the parsed ones.
+     *
+     * @return the rules, in document order
+     * @throws ParsingException if the input cannot be read or some rules cannot be parsed
+     */
+    @Override
+    public synchronized List<Rule<A, B>> get() {
+        String source;
+        try (InputStream inputStream = inputSupplier.get()) {
+            source = read(inputStream);
+        } catch (IOException e) {
+            throw new ParsingException("couldn't read from the input", e);
+        }
+        List<Fingerprint> order = new ArrayList<>();
+        Map<Fingerprint, List<Rule<A, B>>> newDocuments = new HashMap<>();
+        Map<Fingerprint, List<T>> newRepresentations = new LinkedHashMap<>();
+        int reused = 0;
+        for (String document : DOCUMENT_SEPARATOR.split(source)) {
+            Fingerprint fingerprint = Fingerprint.of(document);
+            order.add(fingerprint);
+            if (newDocuments.containsKey(fingerprint) || newRepresentations.containsKey(fingerprint)) {
+                continue;
+            }
+            List<Rule<A, B>> documentRules = documents.get(fingerprint);
+            if (documentRules == null) {
+                newRepresentations.put(fingerprint, representations(document));
+            } else {
+                reused += documentRules.size();
+                newDocuments.put(fingerprint, documentRules);
+            }
+        }
+        Iterator<Rule<A, B>> parsed = parse(newRepresentations.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList())).iterator();
+        newRepresentations.forEach((fingerprint, representations) -> {
+            List<Rule<A, B>> documentRules = new ArrayList<>(representations.size());
+            for (int i = 0; i < representations.size(); i++) {
+                documentRules.add(parsed.next());
+            }
+            newDocuments.put(fingerprint, documentRules);
+        });
+
+        Map<String, Fingerprint> newFingerprints = new HashMap<>();
+        List<Rule<A, B>> rules = new ArrayList<>();
+        for (Fingerprint fingerprint : order) {
+            List<Rule<A, B>> documentRules = newDocuments.get(fingerprint);
+            for (Rule<A, B> rule : documentRules) {
+                newFingerprints.put(rule.getId(), fingerprint);
+            }
+            rules.addAll(documentRules);
+        }
+        lastDiff = diff(fingerprints, newFingerprints, reused);
+        documents = newDocuments;
+        fingerprints = newFingerprints;
+        return rules;
+    }
+
+    /**
+     * Returns the differences between the rules read by the last call and the ones read by the call before.
+     *
+     * @return the last diff, empty before the first call
+     */
+    public synchronized Diff getLastDiff() {
+        return lastDiff;
+    }
+
+    private List<T> representations(String document) {
+        try (InputStream inputStream = new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8))) {
+            return ruleModels(inputStream).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new ParsingException("couldn't read from the input", e);
+        }
+    }
+
+    private static Diff diff(Map<String, Fingerprint> before, Map<String, Fingerprint> after, int reused) {
+        SortedSet<String> added = new TreeSet<>(after.keySet());
+        added.removeAll(before.keySet());
+        SortedSet<String> removed = new TreeSet<>(before.keySet());
+        removed.removeAll(after.keySet());
+        SortedSet<String> changed = new TreeSet<>();
+        for (Map.Entry<String, Fingerprint> entry : after.entrySet()) {
+            Fingerprint previous = before.get(entry.getKey());
+            if (previous != null && !previous.equals(entry.getValue())) {
+                changed.add(entry.getKey());
+            }
+        }
+        return new Diff(Collections.unmodifiableSortedSet(added), Collections.unmodifiableSortedSet(removed),
+                Collections.unmodifiableSortedSet(changed), reused);
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; (n = inputStream.read(buffer)) != -1; ) {
+            content.write(buffer, 0, n);
+        }
+        return new String(content.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The differences between two consecutive reads, by rule id.
+     */
+    @Value
+    public static class Diff {
+
+        /**
+         * The ids of the rules that were not read before.
+         */
+        SortedSet<String> added;
+
+        /**
+         * The ids of the rules that are no longer read.
+         */
+        SortedSet<String> removed;
+
+        /**
+         * The ids of the rules whose document changed.
+         */
+        SortedSet<String> changed;
+
+        /**
+         * The number of rules reused from unchanged documents.
+         */
+        int reused;
+
+        /**
+         * Returns true if the rules are the same as before.
+         *
+         * @return true if nothing was added, removed or changed
+         */
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+        }
+
+    }
+
+    /*
+     * The SHA-256 digest of a document
+     */
+    @Value
+    private static class Fingerprint {
+
+        ByteBuffer digest;
+
+        static Fingerprint of(String document) {
+            try {
+                MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+                return new Fingerprint(ByteBuffer.wrap(messageDigest.digest(document.getBytes(StandardCharsets.UTF_8))));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+    }
+
+}
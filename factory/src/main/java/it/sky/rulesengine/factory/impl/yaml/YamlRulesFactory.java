@@ -5,11 +5,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.BatchAction;
+import it.sky.rulesengine.core.impl.Parallelism;
 import it.sky.rulesengine.factory.api.RuleParser;
 import it.sky.rulesengine.factory.api.RulesFactory;
 import it.sky.rulesengine.factory.impl.RuleModel;
 import it.sky.rulesengine.factory.impl.RuleParsers;
 import it.sky.rulesengine.factory.impl.exception.ParsingException;
+import it.sky.rulesengine.factory.impl.jexl.JexlScriptParser;
 import lombok.AccessLevel;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -18,12 +21,16 @@ import org.apache.commons.jexl3.JexlContext;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.IntConsumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -69,6 +76,9 @@ public class YamlRulesFactory<A, B, T> implements RulesFactory<A, B> {
     @Wither
     @NonNull
     protected final ObjectMapper yamlMapper;
+    @Wither
+    @NonNull
+    protected final Parallelism parallelism;
 
     /**
      * Creates a new instance with the given facts and result type using
@@ -87,6 +97,24 @@ public class YamlRulesFactory<A, B, T> implements RulesFactory<A, B> {
         return create(inputSupplier, RuleParsers.jexlRuleParser(resultType), representationType);
     }
 
+    /**
+     * Creates a new instance with the given facts and result type using
+     * a {@link RuleParsers#indexableJexlRuleParser(Class resultType)} parser,
+     * so that attribute/value map conditions can be indexed.
+     *
+     * @param inputSupplier the input supplier
+     * @param resultType    the result type
+     * @param <A>           the facts type
+     * @param <B>           the result type
+     * @return the factory
+     */
+    public static <A extends JexlContext, B> YamlRulesFactory<A, B, RuleModel<B, Object, String>> createIndexable(
+            Supplier<InputStream> inputSupplier, Class<B> resultType) {
+        JavaType representationType = TypeFactory.defaultInstance().constructParametricType(RuleModel.class, resultType,
+                Object.class, String.class);
+        return create(inputSupplier, RuleParsers.indexableJexlRuleParser(resultType), representationType);
+    }
+
     /**
      * Creates a new instance using the given arguments.
      *
@@ -126,15 +154,114 @@ public class YamlRulesFactory<A, B, T> implements RulesFactory<A, B> {
     public static <A, B, T> YamlRulesFactory<A, B, T> create(Supplier<InputStream> inputSupplier,
                                                              RuleParser<A, B, T> ruleParser,
                                                              JavaType representationType) {
-        return new YamlRulesFactory<>(inputSupplier, ruleParser, representationType, new ObjectMapper(new YAMLFactory()));
+        return new YamlRulesFactory<>(inputSupplier, ruleParser, representationType, new ObjectMapper(new YAMLFactory()),
+                Parallelism.SEQUENTIAL);
     }
 
+    /**
+     * Reads and parses the rules.
+     *
+     * <p>With a parallel {@link #withParallelism(Parallelism) parallelism}, the YAML documents are read first,
+     * then parsed on the pool if they are at least as many as the threshold; all the parsing errors
+     * are reported by a single exception, in document order.
+     *
+     * @return the rules, in document order
+     * @throws ParsingException if the input cannot be read or some rules cannot be parsed
+     */
     @Override
     public List<Rule<A, B>> get() {
-        try (InputStream inputStream = inputSupplier.get()) {
-            return ruleModels(inputStream).map(ruleParser::parseRule).collect(Collectors.toList());
+        if (parallelism == Parallelism.SEQUENTIAL) {
+            try (Stream<Rule<A, B>> rules = stream()) {
+                return rules.collect(Collectors.toList());
+            }
+        }
+        try (Stream<T> representations = representations()) {
+            return parse(representations.collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Returns a stream that reads and parses the rules one at a time, as they are consumed,
+     * so that only the current YAML document is held in memory besides the rules kept by the caller.
+     * Combined with a lazy parser, e.g. {@link JexlScriptParser#withLazyCompilation()},
+     * the conditions and actions are compiled only when first evaluated.
+     *
+     * <p>The input is closed when the stream is closed.
+     *
+     * @return the rules stream, to be closed
+     * @throws ParsingException if the input cannot be read
+     */
+    @Override
+    public Stream<Rule<A, B>> stream() {
+        return representations().map(ruleParser::parseRule);
+    }
+
+    /**
+     * Parses the given rule representations, on the pool if they are at least as many as
+     * the parallelism threshold, collecting all the parsing errors.
+     *
+     * @param representations the rule representations
+     * @return the rules, in the given order
+     * @throws ParsingException if some rules cannot be parsed, with the exception of each one suppressed
+     */
+    protected List<Rule<A, B>> parse(@NonNull List<T> representations) {
+        int size = representations.size();
+        List<Rule<A, B>> rules = new ArrayList<>(Collections.nCopies(size, null));
+        ParsingException[] errors = new ParsingException[size];
+        IntConsumer parser = i -> {
+            try {
+                rules.set(i, ruleParser.parseRule(representations.get(i)));
+            } catch (ParsingException e) {
+                errors[i] = e;
+            }
+        };
+        if (parallelism.isParallel(size)) {
+            BatchAction.invoke(parallelism.getPool(), size, parser);
+        } else {
+            for (int i = 0; i < size; i++) {
+                parser.accept(i);
+            }
+        }
+        List<Integer> failed = IntStream.range(0, size).filter(i -> errors[i] != null).boxed()
+                .collect(Collectors.toList());
+        if (!failed.isEmpty()) {
+            ParsingException exception = new ParsingException(String.format(
+                    "couldn't parse %d of %d rules, documents %s: %s", failed.size(), size, failed,
+                    errors[failed.get(0)].getMessage()), errors[failed.get(0)]);
+            failed.stream().skip(1).forEach(i -> exception.addSuppressed(errors[i]));
+            throw exception;
+        }
+        return rules;
+    }
+
+    /*
+     * Reads the rule representations as they are consumed, closing the input with the stream
+     */
+    private Stream<T> representations() {
+        InputStream inputStream = inputSupplier.get();
+        try {
+            return ruleModels(inputStream).onClose(() -> close(inputStream));
+        } catch (IOException e) {
+            throw closing(inputStream, new ParsingException("couldn't read from the input", e));
+        } catch (RuntimeException e) {
+            throw closing(inputStream, e);
+        }
+    }
+
+    private static RuntimeException closing(InputStream inputStream, RuntimeException e) {
+        try {
+            inputStream.close();
+        } catch (IOException closeException) {
+            e.addSuppressed(closeException);
+        }
+        return e;
+    }
+
+    private static void close(InputStream inputStream) {
+        try {
+            inputStream.close();
         } catch (IOException e) {
-            throw new ParsingException("couldn't read from the input", e);
+            throw new ParsingException("couldn't close the input", e);
         }
     }
 
@@ -1,6 +1,7 @@
 package it.sky.rulesengine.factory.examples;
 
 import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.StreamingRulesEngine;
 import it.sky.rulesengine.factory.impl.RuleParsers;
 import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
 import lombok.SneakyThrows;
@@ -28,7 +29,7 @@ class MathFunctionsTestCases {
     void shouldLoadRulesFromYaml(Number x, Number expectedInverse, Number expectedSquare) {
         List<Rule<JexlContext, Number>> rules = rulesWithResultType(Number.class);
 
-        Map<String, Number> results = DefaultRulesEngine.create().applyAll(rules, valueIs(x));
+        Map<String, Number> results = StreamingRulesEngine.create().applyAll(rules, valueIs(x));
 
         assertEquals(x, results.get("identity"));
         assertEquals(expectedInverse, results.get("inverse"));
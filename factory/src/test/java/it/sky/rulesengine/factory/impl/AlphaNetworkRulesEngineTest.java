@@ -0,0 +1,188 @@
+package it.sky.rulesengine.factory.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.StreamingRulesEngine;
+import it.sky.rulesengine.core.impl.exception.RuleEvaluationException;
+import it.sky.rulesengine.factory.examples.NextDestinationRules;
+import it.sky.rulesengine.factory.impl.RuleAssertions.CountingContext;
+import it.sky.rulesengine.factory.impl.jexl.AlphaNetworkRulesEngine;
+import it.sky.rulesengine.factory.impl.jexl.MemoizationStats;
+import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.MapContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlphaNetworkRulesEngineTest {
+
+    private final GenericRuleParser<JexlContext, String, String, String> ruleParser =
+            RuleParsers.jexlRuleParser(String.class);
+
+    @Test
+    void shouldShareSubConditions() {
+        List<Rule<JexlContext, String>> rules = YamlRulesFactory.<JexlContext, String>create(
+                () -> NextDestinationRules.class.getClassLoader().getResourceAsStream("examples/weather-rules.yaml"),
+                String.class).get();
+
+        AlphaNetworkRulesEngine rulesEngine = AlphaNetworkRulesEngine.create(rules);
+
+        assertEquals(5, rulesEngine.getNetwork().getAlphaCount());
+        assertEquals(6, rulesEngine.getNetwork().getReferenceCount());
+    }
+
+    @Test
+    void shouldEvaluateSharedSubConditionsOnce() {
+        List<Rule<JexlContext, String>> rules = Arrays.asList(
+                rule("beach", "!isRaining && temperature > 20"),
+                rule("mountain", "!isRaining && temperature < 10"),
+                rule("museum", "isRaining || temperature < 0"));
+        AlphaNetworkRulesEngine rulesEngine = AlphaNetworkRulesEngine.create(rules);
+        CountingContext facts = new CountingContext();
+        facts.set("temperature", 15);
+        facts.set("isRaining", false);
+
+        assertTrue(rulesEngine.applyAll(rules, facts).isEmpty());
+        assertEquals(1, (int) facts.reads.get("isRaining"));
+        assertEquals(3, (int) facts.reads.get("temperature"));
+
+        facts.reads.clear();
+        StreamingRulesEngine.create().applyAll(rules, facts);
+        assertEquals(3, (int) facts.reads.get("isRaining"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "a && b || c",
+            "a || b && c",
+            "!(a || b) && c",
+            "not (a and b) or c",
+            "(a || b) && !c",
+            "!a == b",
+            "x > 1 && (x < 3 || c)",
+            "a ? b : c",
+            "s == 'a && b' || c",
+            "s =~ ['x', 'y'] && !b",
+            "var t = a; t && b",
+            "x > 1 && x < 3 ## a comment",
+            "((a)) && (b || (c && !a))"
+    })
+    void shouldMatchJexlSemantics(String condition) {
+        List<Rule<JexlContext, String>> rules = Arrays.asList(
+                rule("shared", "a && b"),
+                rule("tested", condition),
+                rule("negated", "!c"));
+        AlphaNetworkRulesEngine rulesEngine = AlphaNetworkRulesEngine.create(rules);
+
+        for (int i = 0; i < 16; i++) {
+            MapContext facts = new MapContext();
+            facts.set("a", (i & 1) != 0);
+            facts.set("b", (i & 2) != 0);
+            facts.set("c", (i & 4) != 0);
+            facts.set("x", i % 5);
+            facts.set("s", (i & 8) != 0 ? "x" : "a && b");
+            assertEquals(StreamingRulesEngine.create().applyAll(rules, facts), rulesEngine.applyAll(rules, facts),
+                    () -> "facts " + facts);
+        }
+    }
+
+    @Test
+    void shouldSeeTheFactsChangedByActions() {
+        List<Rule<JexlContext, String>> rules = Arrays.asList(
+                rule("r1", "x == 1 && a", "x = 2; 'one'"),
+                rule("r2", "x == 1 && b", "'two'"),
+                rule("r3", "x == 2 && b", "'three'"));
+        AlphaNetworkRulesEngine rulesEngine = AlphaNetworkRulesEngine.create(rules);
+
+        for (StreamingRulesEngine engine : Arrays.asList(StreamingRulesEngine.create(), rulesEngine)) {
+            MapContext facts = new MapContext();
+            facts.set("x", 1);
+            facts.set("a", true);
+            facts.set("b", true);
+            Map<String, String> expected = new HashMap<>();
+            expected.put("r1", "one");
+            expected.put("r3", "three");
+            assertEquals(expected, engine.applyAll(rules, facts));
+        }
+    }
+
+    @Test
+    void shouldRequireBooleanConditions() {
+        List<Rule<JexlContext, String>> rules = Arrays.asList(rule("number", "x"), rule("operand", "x && true"));
+        AlphaNetworkRulesEngine rulesEngine = AlphaNetworkRulesEngine.create(rules);
+        MapContext facts = new MapContext();
+        facts.set("x", 1);
+
+        for (StreamingRulesEngine engine : Arrays.asList(StreamingRulesEngine.create(), rulesEngine)) {
+            RuleEvaluationException e = assertThrows(RuleEvaluationException.class,
+                    () -> engine.applyFirst(rules, facts));
+            assertTrue(e.getCause() instanceof ClassCastException);
+            assertEquals(Optional.of("operand"), engine.applyFirst(rules.subList(1, 2), facts));
+        }
+    }
+
+    @Test
+    void shouldEvaluateOperandsAsTheirConditions() {
+        MemoizationStats stats = new MemoizationStats();
+        GenericRuleParser<JexlContext, String, String, String> memoizingParser =
+                RuleParsers.jexlRuleParser(String.class, new JexlBuilder().create(), stats);
+        RuleModel<String, String, String> ruleModel = new RuleModel<>();
+        ruleModel.setId("range");
+        ruleModel.setCondition("x > 1 && x < 3");
+        ruleModel.setResult("range");
+        List<Rule<JexlContext, String>> rules = Collections.singletonList(memoizingParser.parseRule(ruleModel));
+        MapContext facts = new MapContext();
+        facts.set("x", 2);
+
+        assertEquals(Optional.of("range"), AlphaNetworkRulesEngine.create(rules).applyFirst(rules, facts));
+        assertEquals(2, stats.getMisses());
+    }
+
+    @Test
+    void shouldMapEvaluationErrors() {
+        List<Rule<JexlContext, String>> rules = Arrays.asList(rule("broken", "a && undefined.size() > 0"));
+        AlphaNetworkRulesEngine rulesEngine = AlphaNetworkRulesEngine.create(rules);
+        MapContext facts = new MapContext();
+        facts.set("a", true);
+
+        assertThrows(RuleEvaluationException.class, () -> rulesEngine.applyFirst(rules, facts));
+        RuntimeException mappedException = new RuntimeException();
+        assertSame(mappedException, assertThrows(RuntimeException.class,
+                () -> rulesEngine.withExceptionMapping(e -> mappedException).applyFirst(rules, facts)));
+    }
+
+    @Test
+    void shouldPlugIntoRulesBooks() {
+        RulesBook<JexlContext, String> rulesBook = new RulesBook<>(new ArrayList<>(Arrays.asList(
+                rule("first", "a && b"),
+                rule("second", "a && !b"))));
+        rulesBook = rulesBook.withRulesEngine(AlphaNetworkRulesEngine.create(rulesBook));
+        MapContext facts = new MapContext();
+        facts.set("a", true);
+        facts.set("b", false);
+
+        assertEquals(Optional.of("second"), rulesBook.applyFirst(facts));
+    }
+
+    private Rule<JexlContext, String> rule(String id, String condition) {
+        RuleModel<String, String, String> ruleModel = new RuleModel<>();
+        ruleModel.setId(id);
+        ruleModel.setCondition(condition);
+        ruleModel.setResult(id);
+        return ruleParser.parseRule(ruleModel);
+    }
+
+    private Rule<JexlContext, String> rule(String id, String condition, String action) {
+        RuleModel<String, String, String> ruleModel = new RuleModel<>();
+        ruleModel.setId(id);
+        ruleModel.setCondition(condition);
+        ruleModel.setAction(action);
+        return ruleParser.parseRule(ruleModel);
+    }
+
+}
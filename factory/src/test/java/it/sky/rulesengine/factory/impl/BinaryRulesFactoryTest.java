@@ -0,0 +1,134 @@
+package it.sky.rulesengine.factory.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.factory.examples.NextDestinationRules;
+import it.sky.rulesengine.factory.impl.binary.BinaryRulesCompiler;
+import it.sky.rulesengine.factory.impl.binary.BinaryRulesFactory;
+import it.sky.rulesengine.factory.impl.exception.ParsingException;
+import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.MapContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static it.sky.rulesengine.factory.impl.RuleAssertions.assertSameOutcome;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryRulesFactoryTest {
+
+    Path rulesBook;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        rulesBook = Files.createTempFile("rules", ".rbk");
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        Files.delete(rulesBook);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"examples/weather-rules.yaml, java.lang.Object", "examples/math-functions.yaml, java.lang.Object",
+            "binary-rules-scalars.yaml, java.lang.String"})
+    void shouldLoadSameRulesAsYaml(String fixture, Class<?> resultType) throws IOException {
+        try (InputStream yaml = NextDestinationRules.class.getClassLoader().getResourceAsStream(fixture)) {
+            Files.write(rulesBook, compile(yaml));
+        }
+        assertSameRules(fixture, resultType);
+    }
+
+    @Test
+    void shouldRejectInvalidInput() throws IOException {
+        assertThrows(ParsingException.class, () -> compile(yaml("condition: 'true'")));
+        assertThrows(ParsingException.class, () -> compile(yaml("id: a\ncondition: x >")));
+        assertThrows(ParsingException.class, () -> compile(yaml("id: a\naction: x +")));
+
+        byte[] compiled = compile(yaml("id: a\npriority: 3\ncondition: x > 1\nresult: 7"));
+        Files.write(rulesBook, compiled);
+        List<Rule<JexlContext, Integer>> rules = BinaryRulesFactory.<JexlContext, Integer>create(rulesBook, Integer.class)
+                .get();
+        assertEquals(3, rules.get(0).getPriority());
+        assertEquals(Integer.valueOf(7), rules.get(0).apply(new MapContext()));
+
+        compiled[7] = 2;
+        Files.write(rulesBook, compiled);
+        ParsingException exception = assertThrows(ParsingException.class,
+                () -> BinaryRulesFactory.create(rulesBook, Integer.class).get());
+        assertEquals("unsupported binary rules book version 2, expected 1", exception.getMessage());
+        Files.write(rulesBook, "id: a".getBytes(StandardCharsets.UTF_8));
+        assertThrows(ParsingException.class, () -> BinaryRulesFactory.create(rulesBook, Integer.class).get());
+    }
+
+    @Test
+    void shouldRejectCorruptBooks() throws IOException {
+        byte[] compiled = compile(yaml("id: a\ncondition: x > 1\nresult: 7\n---\nid: b\ncondition: x < 1\nresult: 8"));
+        // count at 8, record offsets at 12 and 16, then rule a's id length at 20 and document length at 25
+        List<byte[]> corrupt = Arrays.asList(
+                Arrays.copyOf(compiled, 14),
+                Arrays.copyOf(compiled, compiled.length - 1),
+                Arrays.copyOf(compiled, 30),
+                withInt(compiled, 8, 1000),
+                withInt(compiled, 8, -1),
+                withInt(compiled, 12, compiled.length + 1),
+                withInt(compiled, 16, -4),
+                withInt(compiled, 20, Integer.MAX_VALUE),
+                withInt(compiled, 25, -1));
+        for (byte[] book : corrupt) {
+            Files.write(rulesBook, book);
+            ParsingException exception = assertThrows(ParsingException.class,
+                    () -> BinaryRulesFactory.create(rulesBook, Integer.class).get());
+            assertEquals("corrupt binary rules book", exception.getMessage());
+        }
+    }
+
+    private <B> void assertSameRules(String fixture, Class<B> resultType) {
+        List<Rule<JexlContext, B>> expected = YamlRulesFactory.<JexlContext, B>create(
+                () -> NextDestinationRules.class.getClassLoader().getResourceAsStream(fixture), resultType).get();
+        List<Rule<JexlContext, B>> actual = BinaryRulesFactory.<JexlContext, B>create(rulesBook, resultType).get();
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getPriority(), actual.get(i).getPriority());
+            for (Object value : Arrays.asList(null, -5, 0, 3, 30, 2.5, true, false, "home")) {
+                MapContext facts = new MapContext();
+                for (String name : Arrays.asList("temperature", "isRaining", "partyLocation", "x")) {
+                    facts.set(name, value);
+                }
+                assertSameOutcome(expected.get(i), actual.get(i), facts);
+            }
+        }
+    }
+
+    private static InputStream yaml(String yaml) {
+        return new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] compile(InputStream yaml) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BinaryRulesCompiler.compile(yaml, output);
+        return output.toByteArray();
+    }
+
+    private static byte[] withInt(byte[] bytes, int offset, int value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).putInt(offset, value);
+        return copy;
+    }
+
+}
@@ -0,0 +1,105 @@
+package it.sky.rulesengine.factory.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.factory.api.RulesFactory;
+import it.sky.rulesengine.factory.impl.exception.ParsingException;
+import it.sky.rulesengine.factory.impl.jexl.JexlScriptCache;
+import it.sky.rulesengine.factory.impl.jexl.JexlScriptParser;
+import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.MapContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingRulesFactoryTest {
+
+    private static final String RULES = "id: a\npriority: 0\ncondition: x > 1\naction: x\n"
+            + "---\nid: b\npriority: 1\ncondition: x > 2\nresult: 3\n";
+
+    @Test
+    void shouldMemoizeUntilVersionChanges() {
+        AtomicInteger loads = new AtomicInteger();
+        AtomicInteger version = new AtomicInteger();
+        RulesFactory<Object, Object> rulesFactory = () -> {
+            loads.incrementAndGet();
+            return Collections.emptyList();
+        };
+        CachingRulesFactory<Object, Object, Integer> cachingFactory = CachingRulesFactory.of(rulesFactory, version::get);
+
+        List<Rule<Object, Object>> rules = cachingFactory.get();
+        assertSame(rules, cachingFactory.get());
+        assertEquals(1, loads.get());
+        version.incrementAndGet();
+        assertNotSame(rules, cachingFactory.get());
+        assertEquals(2, loads.get());
+        cachingFactory.invalidate();
+        cachingFactory.get();
+        assertEquals(3, loads.get());
+        assertEquals(1, cachingFactory.getHits());
+        assertEquals(3, cachingFactory.getMisses());
+        assertThrows(UnsupportedOperationException.class, () -> cachingFactory.get().add(null));
+    }
+
+    @Test
+    void shouldReloadOnlyChangedContent() {
+        AtomicReference<String> content = new AtomicReference<>(RULES);
+        JexlScriptCache scriptCache = new JexlScriptCache(1024);
+        JexlScriptParser<JexlContext, Integer> parser = JexlScriptParser.create(Integer.class).withScriptCache(scriptCache);
+        CachingRulesFactory<JexlContext, Integer, ?> cachingFactory = CachingRulesFactory.ofContent(
+                () -> new ByteArrayInputStream(content.get().getBytes(StandardCharsets.UTF_8)),
+                in -> YamlRulesFactory.create(in, GenericRuleParser.create(parser, parser), Integer.class));
+
+        List<Rule<JexlContext, Integer>> rules = cachingFactory.get();
+        assertSame(rules, cachingFactory.get());
+        assertEquals(3, scriptCache.getMisses());
+
+        content.set(RULES.replace("x > 2", "x > 3"));
+        List<Rule<JexlContext, Integer>> reloaded = cachingFactory.get();
+        assertNotSame(rules, reloaded);
+        assertEquals(4, scriptCache.getMisses());
+        assertEquals(2, scriptCache.getHits());
+        MapContext facts = new MapContext();
+        facts.set("x", 3);
+        assertTrue(rules.get(1).test(facts));
+        assertFalse(reloaded.get(1).test(facts));
+        assertEquals(Integer.valueOf(3), reloaded.get(0).apply(facts));
+
+        content.set("id: broken\ncondition: x >\n");
+        assertThrows(ParsingException.class, cachingFactory::get);
+        assertEquals(3, cachingFactory.getMisses());
+        content.set(RULES.replace("x > 2", "x > 3"));
+        assertSame(reloaded, cachingFactory.get());
+    }
+
+    @Test
+    void shouldReloadChangedFile() throws IOException {
+        Path path = Files.createTempFile("rules", ".yaml");
+        try {
+            Files.write(path, RULES.getBytes(StandardCharsets.UTF_8));
+            CachingRulesFactory<JexlContext, Integer, ?> cachingFactory = CachingRulesFactory.ofFile(path,
+                    in -> YamlRulesFactory.create(in, Integer.class));
+            List<Rule<JexlContext, Integer>> rules = cachingFactory.get();
+            assertEquals(2, rules.size());
+            assertSame(rules, cachingFactory.get());
+
+            Files.write(path, RULES.split("---")[0].getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(path, FileTime.fromMillis(0));
+            assertEquals(1, cachingFactory.get().size());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+}
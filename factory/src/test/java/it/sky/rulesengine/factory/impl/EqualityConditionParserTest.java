@@ -0,0 +1,61 @@
+package it.sky.rulesengine.factory.impl;
+
+import it.sky.rulesengine.core.api.EqualityCondition;
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.IndexedRuleSet;
+import it.sky.rulesengine.core.impl.IndexedRulesEngine;
+import it.sky.rulesengine.factory.examples.NextDestinationRules;
+import it.sky.rulesengine.factory.impl.exception.ParsingException;
+import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.MapContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EqualityConditionParserTest {
+
+    @Test
+    void shouldCreateEqualityConditionsFromMaps() {
+        EqualityConditionParser<JexlContext> parser = EqualityConditionParser.create(JexlContext::get);
+
+        Predicate<JexlContext> condition = parser.parseCondition(Collections.singletonMap("country", "IT"));
+
+        assertTrue(condition instanceof EqualityCondition);
+        assertTrue(condition.test(context("country", "IT")));
+        assertFalse(condition.test(context("country", "DE")));
+        assertThrows(ParsingException.class, () -> parser.parseCondition("country == 'IT'"));
+    }
+
+    @Test
+    void shouldIndexYamlRules() {
+        List<Rule<JexlContext, String>> rules = YamlRulesFactory.<JexlContext, String>createIndexable(
+                () -> NextDestinationRules.class.getClassLoader().getResourceAsStream("indexable-rules-test.yaml"),
+                String.class).get();
+        IndexedRuleSet<JexlContext, String> ruleSet = IndexedRuleSet.of(rules, JexlContext::get);
+        IndexedRulesEngine rulesEngine = IndexedRulesEngine.create();
+
+        assertEquals(3, ruleSet.indexedCount());
+        assertEquals(Optional.of("italian app"), rulesEngine.applyFirst(ruleSet, context("country", "IT", "channel", "app")));
+        assertEquals(Optional.of("german"), rulesEngine.applyFirst(ruleSet, context("country", "DE", "channel", "app")));
+        assertEquals(Optional.of("fallback"), rulesEngine.applyFirst(ruleSet, context("country", "FR")));
+        Map<String, String> results = rulesEngine.applyAll(ruleSet, context("country", "IT", "channel", "web"));
+        assertEquals(2, results.size());
+        assertEquals("italian web", results.get("italianWeb"));
+    }
+
+    private static JexlContext context(String... keyValues) {
+        MapContext context = new MapContext();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            context.set(keyValues[i], keyValues[i + 1]);
+        }
+        return context;
+    }
+
+}
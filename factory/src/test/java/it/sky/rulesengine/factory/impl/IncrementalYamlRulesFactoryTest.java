@@ -0,0 +1,115 @@
+package it.sky.rulesengine.factory.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.Parallelism;
+import it.sky.rulesengine.factory.api.RuleParser;
+import it.sky.rulesengine.factory.examples.NextDestinationRules;
+import it.sky.rulesengine.factory.impl.exception.ParsingException;
+import it.sky.rulesengine.factory.impl.yaml.IncrementalYamlRulesFactory;
+import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
+import org.apache.commons.jexl3.JexlContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalYamlRulesFactoryTest {
+
+    @Test
+    void shouldParseOnlyChangedDocuments() {
+        AtomicReference<String> content = new AtomicReference<>(rules("a: x > 1", "b: x > 2", "c: x > 3"));
+        AtomicInteger parsed = new AtomicInteger();
+        RuleParser<JexlContext, String, RuleModel<String, String, String>> jexlRuleParser = RuleParsers.jexlRuleParser(String.class);
+        IncrementalYamlRulesFactory<JexlContext, String, RuleModel<String, String, String>> rulesFactory =
+                IncrementalYamlRulesFactory.of(YamlRulesFactory.create(
+                        () -> new ByteArrayInputStream(content.get().getBytes(StandardCharsets.UTF_8)), model -> {
+                            parsed.incrementAndGet();
+                            return jexlRuleParser.parseRule(model);
+                        }, String.class));
+        assertTrue(rulesFactory.getLastDiff().isEmpty());
+
+        List<Rule<JexlContext, String>> rules = rulesFactory.get();
+        assertEquals(3, parsed.get());
+        assertEquals(Arrays.asList("a", "b", "c"), ids(rules));
+        assertEquals("[a, b, c]", rulesFactory.getLastDiff().getAdded().toString());
+
+        assertEquals(rules, rulesFactory.get());
+        assertEquals(3, parsed.get());
+        assertTrue(rulesFactory.getLastDiff().isEmpty());
+        assertEquals(3, rulesFactory.getLastDiff().getReused());
+
+        content.set(rules("d: x > 4", "a: x > 1", "c: x > 30"));
+        List<Rule<JexlContext, String>> reloaded = rulesFactory.get();
+        assertEquals(5, parsed.get());
+        assertEquals(Arrays.asList("d", "a", "c"), ids(reloaded));
+        assertSame(rules.get(0), reloaded.get(1));
+        IncrementalYamlRulesFactory.Diff diff = rulesFactory.getLastDiff();
+        assertEquals("[d]", diff.getAdded().toString());
+        assertEquals("[b]", diff.getRemoved().toString());
+        assertEquals("[c]", diff.getChanged().toString());
+        assertEquals(1, diff.getReused());
+
+        content.set(rules("d: x > 4", "a: x > 1", "e: x >"));
+        assertThrows(ParsingException.class, rulesFactory::get);
+        assertEquals(6, parsed.get());
+        content.set(rules("d: x > 4", "a: x > 1", "c: x > 30"));
+        assertEquals(reloaded, rulesFactory.get());
+        assertEquals(6, parsed.get());
+    }
+
+    @Test
+    void shouldReadLikeYamlRulesFactory() {
+        YamlRulesFactory<JexlContext, Object, RuleModel<Object, String, String>> yamlRulesFactory = YamlRulesFactory.create(
+                () -> NextDestinationRules.class.getClassLoader().getResourceAsStream("examples/weather-rules.yaml"),
+                Object.class);
+        assertEquals(ids(yamlRulesFactory.get()), ids(IncrementalYamlRulesFactory.of(yamlRulesFactory).get()));
+    }
+
+    @Test
+    void shouldParseChangedDocumentsInParallel() {
+        AtomicReference<String> content = new AtomicReference<>(rules("a: x > 1", "b: x > 2"));
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            IncrementalYamlRulesFactory<JexlContext, String, RuleModel<String, String, String>> rulesFactory =
+                    IncrementalYamlRulesFactory.of(YamlRulesFactory.<JexlContext, String>create(
+                            () -> new ByteArrayInputStream(content.get().getBytes(StandardCharsets.UTF_8)),
+                            String.class))
+                            .withParallelism(Parallelism.of(pool, 1));
+            assertEquals(Arrays.asList("a", "b"), ids(rulesFactory.get()));
+
+            content.set(rules("a: x > 1", "c: x >", "d: x > 4", "e: x <"));
+            ParsingException e = assertThrows(ParsingException.class, rulesFactory::get);
+            assertTrue(e.getMessage().startsWith("couldn't parse 2 of 3 rules, documents [0, 2]"), e.getMessage());
+            assertEquals(1, e.getSuppressed().length);
+
+            content.set(rules("a: x > 1", "c: x > 3", "d: x > 4"));
+            assertEquals(Arrays.asList("a", "c", "d"), ids(rulesFactory.get()));
+            assertEquals(1, rulesFactory.getLastDiff().getReused());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /*
+     * One document per "id: condition" pair, preceded by a comment
+     */
+    private static String rules(String... rules) {
+        return "# rules\n" + Arrays.stream(rules)
+                .map(rule -> rule.split(": ", 2))
+                .map(rule -> "id: " + rule[0] + "\ncondition: " + rule[1] + "\nresult: " + rule[0] + "\n")
+                .collect(Collectors.joining("---\n", "---\n", ""));
+    }
+
+    private static List<String> ids(List<? extends Rule<?, ?>> rules) {
+        return rules.stream().map(rule -> rule.getId()).collect(Collectors.toList());
+    }
+
+}
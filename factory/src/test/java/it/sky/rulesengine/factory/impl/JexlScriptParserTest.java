@@ -2,7 +2,12 @@ package it.sky.rulesengine.factory.impl;
 
 import it.sky.rulesengine.core.impl.exception.RulesEngineException;
 import it.sky.rulesengine.factory.impl.exception.ParsingException;
+import it.sky.rulesengine.factory.impl.jexl.JexlCondition;
+import it.sky.rulesengine.factory.impl.jexl.JexlCost;
+import it.sky.rulesengine.factory.impl.jexl.JexlScriptCache;
 import it.sky.rulesengine.factory.impl.jexl.JexlScriptParser;
+import it.sky.rulesengine.factory.impl.jexl.MemoizationStats;
+import org.apache.commons.jexl3.JexlBuilder;
 import org.apache.commons.jexl3.JexlContext;
 import org.apache.commons.jexl3.JexlEngine;
 import org.apache.commons.jexl3.MapContext;
@@ -73,4 +78,68 @@ class JexlScriptParserTest {
         verify(jexlEngine, times(2)).createScript("true");
     }
 
+    @Test
+    void shouldEstimateCost() {
+        JexlCost cost = jexlScriptParser.parseCondition("user.age > 18 && size(roles) > 0 && now.plusDays(1) != null").getCost();
+        assertEquals(1, cost.getMethodCalls());
+        assertEquals(4, cost.getVariableReads());
+        assertFalse(cost.isSideEffectFree());
+        assertTrue(JexlCost.of("flag").getWeight() < cost.getWeight());
+        assertTrue(JexlCost.of("a == 1 || !b").isSideEffectFree());
+        assertFalse(JexlCost.of("a = 1").isSideEffectFree());
+    }
+
+    @Test
+    void shouldReorderIndependentOperands() {
+        JexlScriptParser<? super JexlContext, ?> reorderingParser = jexlScriptParser.withOperandReordering();
+        JexlCondition<? super JexlContext> condition = reorderingParser
+                .parseCondition("a.b.c > 1 && (x != null && x.y > 0) && flag");
+        assertEquals("((flag) && (a.b.c > 1) && ((x != null) && (x.y > 0)))", condition.getSourceText());
+        assertTrue(reorderingParser.parseCondition("x.y > 0 && x != null").getSourceText().startsWith("x.y"));
+        assertEquals("a.foo() > 1 && flag", reorderingParser.parseCondition("a.foo() > 1 && flag").getSourceText());
+
+        MapContext facts = new MapContext();
+        facts.set("flag", false);
+        assertFalse(condition.test(facts));
+    }
+
+    @Test
+    void shouldCacheScripts() {
+        JexlScriptCache scriptCache = new JexlScriptCache(20);
+        JexlScriptParser<? super JexlContext, ?> cachingParser = jexlScriptParser.withScriptCache(scriptCache);
+        assertSame(cachingParser, cachingParser.withScriptCache(scriptCache));
+
+        JexlCondition<? super JexlContext> condition = cachingParser.parseCondition("number == 42");
+        assertSame(condition.getJexlScript(), cachingParser.parseCondition("number == 42").getJexlScript());
+        assertSame(condition.getJexlScript(), cachingParser.withMemoization(new MemoizationStats())
+                .parseCondition("number == 42").getJexlScript());
+        assertNotSame(condition.getJexlScript(), cachingParser.withEngine(new JexlBuilder().create())
+                .parseCondition("number == 42").getJexlScript());
+        assertThrows(ParsingException.class, () -> cachingParser.parseCondition("an illegal expression"));
+        assertEquals(2, scriptCache.getHits());
+        assertEquals(3, scriptCache.getMisses());
+        assertEquals(1, scriptCache.size());
+        assertEquals(12, scriptCache.getWeight());
+        assertEquals(1, scriptCache.getEvictions());
+
+        cachingParser.parseAction("number");
+        assertEquals(2, scriptCache.size());
+        assertEquals(18, scriptCache.getWeight());
+        assertEquals(1, scriptCache.getEvictions());
+        assertThrows(IllegalArgumentException.class, () -> new JexlScriptCache(0));
+    }
+
+    @Test
+    void shouldReturnItselfForUnchangedOptions() {
+        MemoizationStats stats = new MemoizationStats();
+        JexlScriptParser<? super JexlContext, ?> parser = jexlScriptParser.withMemoization(stats)
+                .withTieredCompilation(2).withOperandReordering().withLazyCompilation();
+        assertSame(parser, parser.withMemoization(stats));
+        assertSame(parser, parser.withTieredCompilation(2));
+        assertSame(parser, parser.withOperandReordering());
+        assertSame(parser, parser.withLazyCompilation());
+        assertNotSame(parser, parser.withMemoization(new MemoizationStats()));
+        assertNotSame(parser, parser.withTieredCompilation(3));
+    }
+
 }
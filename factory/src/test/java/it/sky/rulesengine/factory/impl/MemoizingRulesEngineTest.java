@@ -0,0 +1,127 @@
+package it.sky.rulesengine.factory.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.ImmutableRuleSet;
+import it.sky.rulesengine.core.impl.Parallelism;
+import it.sky.rulesengine.core.impl.StreamingRulesEngine;
+import it.sky.rulesengine.factory.impl.RuleAssertions.CountingContext;
+import it.sky.rulesengine.factory.impl.jexl.MemoizationStats;
+import it.sky.rulesengine.factory.impl.jexl.MemoizingJexlContext;
+import it.sky.rulesengine.factory.impl.jexl.MemoizingRulesEngine;
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoizingRulesEngineTest {
+
+    private final MemoizationStats stats = new MemoizationStats();
+    private final GenericRuleParser<JexlContext, String, String, String> ruleParser =
+            RuleParsers.jexlRuleParser(String.class, new JexlBuilder().create(), stats);
+    private final List<Rule<JexlContext, String>> rules = Arrays.asList(
+            rule("beach", "!isRaining && temperature > 20", "'beach'"),
+            rule("mountain", "!isRaining && temperature < 10", "'mountain'"),
+            rule("home", "true", "temperature > 0 ? 'home' : 'bed'"));
+    private final MemoizingRulesEngine rulesEngine = MemoizingRulesEngine.create(StreamingRulesEngine.create(), stats);
+
+    @Test
+    void shouldResolveEachVariableOncePerEvaluation() {
+        CountingContext facts = facts(15, false);
+
+        assertEquals(Collections.singletonMap("home", "home"), rulesEngine.applyAll(rules, facts));
+        assertEquals(1, (int) facts.reads.get("isRaining"));
+        assertEquals(1, (int) facts.reads.get("temperature"));
+        assertEquals(2, stats.getMisses());
+        assertEquals(3, stats.getHits());
+
+        assertEquals(Optional.of("home"), rulesEngine.applyFirst(ImmutableRuleSet.of(rules), facts));
+        assertEquals(2, (int) facts.reads.get("isRaining"));
+        assertEquals(2, (int) facts.reads.get("temperature"));
+    }
+
+    @Test
+    void shouldMemoizeEachScriptWithoutMemoizingEngine() {
+        CountingContext facts = facts(15, false);
+
+        StreamingRulesEngine.create().applyAll(rules, facts);
+        assertEquals(2, (int) facts.reads.get("isRaining"));
+        assertEquals(3, (int) facts.reads.get("temperature"));
+        assertEquals(5, stats.getMisses());
+        assertEquals(0, stats.getHits());
+    }
+
+    @Test
+    void shouldMemoizeEachFactsOfABatch() {
+        List<CountingContext> facts = Arrays.asList(facts(25, false), facts(-5, true));
+        String[] results = new String[2];
+
+        rulesEngine.applyFirstBatch(rules, facts, results);
+        assertArrayEquals(new String[]{"beach", "bed"}, results);
+        facts.forEach(f -> f.reads.values().forEach(reads -> assertEquals(1, (int) reads)));
+
+        Map<JexlContext, Map<String, String>> allResults = new IdentityHashMap<>();
+        rulesEngine.applyAllBatch(rules, facts, allResults::put);
+        assertEquals(new HashSet<>(facts), allResults.keySet());
+        assertEquals(Collections.singletonMap("home", "bed"), allResults.get(facts.get(1)));
+    }
+
+    @Test
+    void shouldSeeChangesMadeThroughTheContext() {
+        CountingContext delegate = facts(15, false);
+        MemoizingJexlContext facts = new MemoizingJexlContext(delegate, stats);
+
+        assertEquals(15, facts.get("temperature"));
+        facts.set("temperature", 30);
+        assertEquals(30, facts.get("temperature"));
+        assertEquals(30, delegate.get("temperature"));
+        assertFalse(facts.has("undefined"));
+        assertFalse(facts.has("undefined"));
+        facts.set("undefined", null);
+        assertTrue(facts.has("undefined"));
+        assertEquals(3, facts.getHits());
+        assertEquals(2, facts.getMisses());
+    }
+
+    @Test
+    void shouldMemoizeForParallelDelegates() {
+        List<Rule<JexlContext, String>> manyRules = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            manyRules.add(rule("rule-" + i, "temperature > " + i % 40 + " && !isRaining", "'rule-" + i + "'"));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            MemoizingRulesEngine parallelEngine = MemoizingRulesEngine.create(
+                    StreamingRulesEngine.create().withParallelism(Parallelism.of(pool, 1)), stats);
+            for (int temperature = 0; temperature < 50; temperature++) {
+                CountingContext facts = facts(temperature, temperature % 7 == 0);
+                Map<String, String> expected = StreamingRulesEngine.create().applyAll(manyRules, facts);
+                facts.reads.clear();
+
+                assertEquals(expected, parallelEngine.applyAll(manyRules, facts));
+                assertTrue(facts.reads.values().stream().allMatch(reads -> reads <= 4), facts.reads::toString);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private CountingContext facts(int temperature, boolean isRaining) {
+        CountingContext facts = new CountingContext();
+        facts.set("temperature", temperature);
+        facts.set("isRaining", isRaining);
+        return facts;
+    }
+
+    private Rule<JexlContext, String> rule(String id, String condition, String action) {
+        RuleModel<String, String, String> ruleModel = new RuleModel<>();
+        ruleModel.setId(id);
+        ruleModel.setCondition(condition);
+        ruleModel.setAction(action);
+        return ruleParser.parseRule(ruleModel);
+    }
+
+}
@@ -0,0 +1,144 @@
+package it.sky.rulesengine.factory.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.factory.impl.exception.ParsingException;
+import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
+import org.apache.commons.jexl3.JexlContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReloadingRulesFactoryTest {
+
+    Path directory;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        directory = Files.createTempDirectory("rules");
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void shouldReloadChangedFile() throws Exception {
+        Path file = write("rules.yaml", "a", "b");
+        try (ReloadingRulesFactory<JexlContext, String> rulesFactory = ReloadingRulesFactory.watch(file,
+                in -> YamlRulesFactory.create(in, String.class))) {
+            List<Rule<JexlContext, String>> rules = rulesFactory.get();
+            assertEquals(2, rules.size());
+            assertSame(rules, rulesFactory.get());
+
+            write("rules.yaml", "a", "b", "c");
+            awaitReloads(rulesFactory, 1);
+            assertEquals(3, rulesFactory.get().size());
+            assertEquals(2, rules.size());
+            assertEquals(0, rulesFactory.getFailures());
+        }
+    }
+
+    @Test
+    void shouldKeepPreviousSnapshotOnFailure() throws Exception {
+        Path file = write("rules.yaml", "a");
+        try (ReloadingRulesFactory<JexlContext, String> rulesFactory = ReloadingRulesFactory.watch(file,
+                in -> YamlRulesFactory.create(in, String.class), rules -> {
+                    if (rules.isEmpty()) {
+                        throw new IllegalStateException("no rules");
+                    }
+                })) {
+            List<Rule<JexlContext, String>> rules = rulesFactory.get();
+
+            Files.write(file, "id: broken\ncondition: x >\n".getBytes(StandardCharsets.UTF_8));
+            assertFalse(rulesFactory.reload());
+            assertSame(rules, rulesFactory.get());
+            assertTrue(rulesFactory.getLastFailure().orElse(null) instanceof ParsingException);
+
+            Files.write(file, new byte[0]);
+            assertFalse(rulesFactory.reload());
+            assertSame(rules, rulesFactory.get());
+            assertTrue(rulesFactory.getLastFailure().orElse(null) instanceof IllegalStateException);
+            assertTrue(rulesFactory.getFailures() >= 2);
+            assertTrue(rulesFactory.getLastReloadLatency(TimeUnit.NANOSECONDS) > 0);
+        }
+    }
+
+    @Test
+    void shouldKeepWatchingAfterAnError() throws Exception {
+        Path file = write("rules.yaml", "a");
+        AtomicBoolean failing = new AtomicBoolean();
+        try (ReloadingRulesFactory<JexlContext, String> rulesFactory = ReloadingRulesFactory.watch(file,
+                in -> YamlRulesFactory.create(in, String.class), rules -> {
+                    if (failing.getAndSet(false)) {
+                        throw new AssertionError("failure");
+                    }
+                })) {
+            failing.set(true);
+            write("rules.yaml", "a", "b");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (rulesFactory.getFailures() == 0) {
+                assertTrue(System.nanoTime() < deadline, "no failure");
+                Thread.sleep(50);
+            }
+            assertTrue(rulesFactory.getLastFailure().orElse(null) instanceof AssertionError);
+
+            write("rules.yaml", "a", "b", "c");
+            awaitReloads(rulesFactory, 1);
+            assertEquals(3, rulesFactory.get().size());
+        }
+    }
+
+    @Test
+    void shouldLoadDirectoryInNameOrder() throws Exception {
+        write("2.yaml", "c");
+        write("1.yml", "a", "b");
+        write("ignored.txt", "d");
+        try (ReloadingRulesFactory<JexlContext, String> rulesFactory = ReloadingRulesFactory.watch(directory,
+                in -> YamlRulesFactory.create(in, String.class))) {
+            assertEquals("[a, b, c]", ids(rulesFactory.get()));
+
+            write("3.yaml", "e");
+            awaitReloads(rulesFactory, 1);
+            assertEquals("[a, b, c, e]", ids(rulesFactory.get()));
+        }
+        assertThrows(ParsingException.class, () -> ReloadingRulesFactory.watch(directory.resolve("missing.yaml"),
+                in -> YamlRulesFactory.create(in, String.class)));
+    }
+
+    private Path write(String name, String... ids) throws IOException {
+        String content = Stream.of(ids).map(id -> "id: " + id + "\ncondition: 'true'\nresult: " + id + "\n")
+                .collect(Collectors.joining("---\n"));
+        return Files.write(directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String ids(List<Rule<JexlContext, String>> rules) {
+        return rules.stream().map(Rule::getId).collect(Collectors.toList()).toString();
+    }
+
+    private static void awaitReloads(ReloadingRulesFactory<?, ?> rulesFactory, long reloads) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (rulesFactory.getReloads() < reloads) {
+            assertTrue(System.nanoTime() < deadline, "no reload");
+            Thread.sleep(50);
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package it.sky.rulesengine.factory.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import org.apache.commons.jexl3.MapContext;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The fixtures shared by the tests that compare two evaluations of the same rules.
+ */
+final class RuleAssertions {
+
+    private RuleAssertions() {
+    }
+
+    /**
+     * Asserts that the given rules test and apply the given facts with the same outcome.
+     *
+     * @param expected the expected rule
+     * @param actual   the actual rule
+     * @param facts    the facts
+     * @see #assertSameOutcome(Callable, Callable)
+     */
+    static <A, B> void assertSameOutcome(Rule<A, B> expected, Rule<A, B> actual, A facts) {
+        assertSameOutcome(() -> expected.test(facts), () -> actual.test(facts));
+        assertSameOutcome(() -> expected.apply(facts), () -> actual.apply(facts));
+    }
+
+    /**
+     * Asserts that the given calls return equal results of the same class, or throw exceptions
+     * of the same class with the same message and cause.
+     *
+     * @param expected the expected call
+     * @param actual   the actual call
+     */
+    static void assertSameOutcome(Callable<?> expected, Callable<?> actual) {
+        Object expectedValue;
+        try {
+            expectedValue = expected.call();
+        } catch (Exception e) {
+            Exception actualException = assertThrows(e.getClass(), actual::call);
+            if (!(e instanceof ClassCastException)) {
+                // the JIT drops the message of hot implicit exceptions
+                assertEquals(e.getMessage(), actualException.getMessage());
+            }
+            assertEquals(String.valueOf(e.getCause()), String.valueOf(actualException.getCause()));
+            return;
+        }
+        Object actualValue = assertDoesNotThrow(actual::call);
+        assertEquals(expectedValue, actualValue);
+        assertEquals(expectedValue == null ? null : expectedValue.getClass(),
+                actualValue == null ? null : actualValue.getClass());
+    }
+
+    /**
+     * A context that counts the reads of each variable, safe to read concurrently.
+     */
+    static class CountingContext extends MapContext {
+
+        final Map<String, Integer> reads = new ConcurrentHashMap<>();
+
+        @Override
+        public Object get(String name) {
+            reads.merge(name, 1, Integer::sum);
+            return super.get(name);
+        }
+
+    }
+
+}
@@ -0,0 +1,152 @@
+package it.sky.rulesengine.factory.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.factory.examples.NextDestinationRules;
+import it.sky.rulesengine.factory.impl.RuleAssertions.CountingContext;
+import it.sky.rulesengine.factory.impl.jexl.JexlCondition;
+import it.sky.rulesengine.factory.impl.jexl.JexlScriptParser;
+import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.MapContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.*;
+
+import static it.sky.rulesengine.factory.impl.RuleAssertions.assertSameOutcome;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredCompilationTest {
+
+    private static final Object[] VALUES = {null, true, false, 0, 1, -3, 25, 2.5, 7L, "15", "a", Collections.emptyMap()};
+
+    private static final List<String> CONDITIONS = Arrays.asList(
+            "a && b || c",
+            "!(a || b) && c",
+            "not (a and b) or c",
+            "x > 1 && (x < 3 || c)",
+            "x == y || x != b",
+            "x <= y && x >= -1",
+            "x + y * 2 > x - y / 2",
+            "x % 2 == 1 || -x < -2.0",
+            "s == 'a' || m.k == s",
+            "m.k.v == 1 && m.k != null",
+            "a ? b : c",
+            "size(s) > 0");
+
+    @ParameterizedTest
+    @ValueSource(strings = {"false", "true"})
+    void shouldMatchInterpreterOnFixtures(boolean strict) {
+        JexlEngine jexlEngine = new JexlBuilder().strict(strict).create();
+        JexlScriptParser<JexlContext, Object> interpreter = JexlScriptParser.create(Object.class).withEngine(jexlEngine);
+        JexlScriptParser<JexlContext, Object> compiler = interpreter.withTieredCompilation(0);
+
+        for (String fixture : Arrays.asList("examples/weather-rules.yaml", "examples/math-functions.yaml")) {
+            List<Rule<JexlContext, Object>> interpretedRules = rules(fixture, interpreter);
+            List<Rule<JexlContext, Object>> compiledRules = rules(fixture, compiler);
+            for (MapContext facts : facts("temperature", "isRaining", "partyLocation", "x")) {
+                for (int i = 0; i < interpretedRules.size(); i++) {
+                    assertSameOutcome(interpretedRules.get(i), compiledRules.get(i), facts);
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"false", "true"})
+    void shouldMatchInterpreterOnConditions(boolean strict) {
+        JexlEngine jexlEngine = new JexlBuilder().strict(strict).create();
+        JexlScriptParser<JexlContext, Object> interpreter = JexlScriptParser.create(Object.class).withEngine(jexlEngine);
+        JexlScriptParser<JexlContext, Object> compiler = interpreter.withTieredCompilation(0);
+
+        Set<String> compiledConditions = new HashSet<>();
+        for (String condition : CONDITIONS) {
+            JexlCondition<JexlContext> interpreted = interpreter.parseCondition(condition);
+            JexlCondition<JexlContext> compiled = compiler.parseCondition(condition);
+            for (MapContext facts : facts("a", "b", "c", "x", "y", "s", "m")) {
+                assertSameOutcome(() -> interpreted.test(facts), () -> compiled.test(facts));
+            }
+            if (compiled.isCompiled()) {
+                compiledConditions.add(condition);
+            }
+        }
+        assertTrue(compiledConditions.containsAll(CONDITIONS.subList(0, 6)));
+        assertFalse(compiledConditions.contains("a ? b : c"));
+        assertFalse(compiledConditions.contains("size(s) > 0"));
+    }
+
+    @Test
+    void shouldCompileSupportedScriptsAfterThreshold() {
+        JexlScriptParser<JexlContext, Object> compiler = JexlScriptParser.create(Object.class).withTieredCompilation(2);
+        JexlCondition<JexlContext> supported = compiler.parseCondition("x.y > 1 && !flag");
+        JexlCondition<JexlContext> unsupported = compiler.parseCondition("x.y > 1 && size(list) > 0");
+        MapContext facts = new MapContext();
+        facts.set("x", Collections.singletonMap("y", 2));
+        facts.set("flag", false);
+        facts.set("list", Collections.singletonList(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertFalse(supported.isCompiled());
+            assertTrue(supported.test(facts));
+            assertTrue(unsupported.test(facts));
+        }
+        assertTrue(supported.isCompiled());
+        assertFalse(unsupported.isCompiled());
+        assertFalse(JexlScriptParser.create(Object.class).parseCondition("true").isCompiled());
+        assertThrows(IllegalArgumentException.class, () -> compiler.withTieredCompilation(-1));
+    }
+
+    @Test
+    void shouldNotReadAgainWithoutRepeatedReads() {
+        JexlScriptParser<JexlContext, Object> compiler = JexlScriptParser.create(Object.class).withTieredCompilation(0);
+        CountingContext facts = new CountingContext();
+        facts.set("x", 2);
+
+        // y is undefined, so the compiled code deoptimizes after reading x
+        JexlCondition<JexlContext> condition = compiler.parseCondition("x > 1 && y > 1");
+        assertThrows(RuntimeException.class, () -> condition.test(facts));
+        assertTrue(condition.isCompiled());
+        assertEquals(2, (int) facts.reads.get("x"));
+
+        facts.reads.clear();
+        JexlCondition<JexlContext> singleReads = compiler.withoutRepeatedReads().parseCondition("x > 1 && y > 1");
+        assertThrows(RuntimeException.class, () -> singleReads.test(facts));
+        assertTrue(singleReads.isCompiled());
+        assertEquals(1, (int) facts.reads.get("x"));
+
+        JexlCondition<JexlContext> property = compiler.withoutRepeatedReads().parseCondition("m.k > 1");
+        facts.set("m", Collections.singletonMap("k", 2));
+        assertTrue(property.test(facts));
+        assertFalse(property.isCompiled());
+    }
+
+    private static List<Rule<JexlContext, Object>> rules(String fixture, JexlScriptParser<JexlContext, Object> parser) {
+        return YamlRulesFactory.create(() -> NextDestinationRules.class.getClassLoader().getResourceAsStream(fixture),
+                GenericRuleParser.create(parser, parser), Object.class).get();
+    }
+
+    /*
+     * All the combinations of the values of the given variables, including undefined ones
+     */
+    private static List<MapContext> facts(String... names) {
+        List<MapContext> facts = new ArrayList<>();
+        Random random = new Random(42);
+        for (int n = 0; n < 1000; n++) {
+            MapContext context = new MapContext();
+            for (String name : names) {
+                int index = random.nextInt(VALUES.length + 2);
+                if (index < VALUES.length) {
+                    context.set(name, VALUES[index]);
+                } else if (index == VALUES.length) {
+                    context.set(name, Collections.singletonMap("k", Collections.singletonMap("v", random.nextInt(2))));
+                }
+            }
+            facts.add(context);
+        }
+        return facts;
+    }
+
+}
@@ -2,20 +2,41 @@ package it.sky.rulesengine.factory.impl;
 
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.type.TypeFactory;
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.Parallelism;
 import it.sky.rulesengine.factory.api.RuleParser;
 import it.sky.rulesengine.factory.examples.NextDestinationRules;
+import it.sky.rulesengine.factory.impl.exception.ParsingException;
+import it.sky.rulesengine.factory.impl.jexl.JexlScriptCache;
+import it.sky.rulesengine.factory.impl.jexl.JexlScriptParser;
 import it.sky.rulesengine.factory.impl.yaml.YamlRulesFactory;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.SneakyThrows;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.MapContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.verify;
 
 class YamlRulesFactoryTest {
@@ -35,6 +56,72 @@ class YamlRulesFactoryTest {
         verify(ruleParser).parseRule(expectedModel(2));
     }
 
+    @Test
+    void shouldStreamRulesLazily() {
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicInteger parsed = new AtomicInteger();
+        JexlScriptCache scriptCache = new JexlScriptCache(1024);
+        JexlScriptParser<JexlContext, String> parser = JexlScriptParser.create(String.class)
+                .withScriptCache(scriptCache).withLazyCompilation();
+        GenericRuleParser<JexlContext, String, String, String> ruleParser = GenericRuleParser.create(parser, parser);
+        YamlRulesFactory<JexlContext, String, RuleModel<String, String, String>> rulesFactory = YamlRulesFactory.create(
+                () -> new FilterInputStream(new ByteArrayInputStream(("id: a\ncondition: x > 1\naction: \"'a'\"\n"
+                        + "---\nid: b\ncondition: an illegal expression\nresult: b\n").getBytes(StandardCharsets.UTF_8))) {
+                    @Override
+                    public void close() throws IOException {
+                        closed.set(true);
+                        super.close();
+                    }
+                }, model -> {
+                    parsed.incrementAndGet();
+                    return ruleParser.parseRule(model);
+                }, String.class);
+
+        try (Stream<Rule<JexlContext, String>> rules = rulesFactory.stream()) {
+            Rule<JexlContext, String> first = rules.findFirst().orElseThrow(IllegalStateException::new);
+            assertEquals("a", first.getId());
+            assertEquals(1, parsed.get());
+            assertEquals(0, scriptCache.getMisses());
+            MapContext facts = new MapContext();
+            facts.set("x", 2);
+            assertTrue(first.test(facts));
+            assertEquals(1, scriptCache.getMisses());
+            assertEquals("a", first.apply(facts));
+            assertEquals(2, scriptCache.getMisses());
+            assertFalse(closed.get());
+        }
+        assertTrue(closed.get());
+
+        List<Rule<JexlContext, String>> rules = rulesFactory.get();
+        assertEquals(2, rules.size());
+        assertThrows(ParsingException.class, () -> rules.get(1).test(new MapContext()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 1000})
+    void shouldParseInParallel(int threshold) {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            YamlRulesFactory<JexlContext, Object, RuleModel<Object, String, String>> rulesFactory = YamlRulesFactory.create(
+                    () -> NextDestinationRules.class.getClassLoader().getResourceAsStream("examples/math-functions.yaml"),
+                    Object.class);
+            List<String> ids = rulesFactory.get().stream().map(Rule::getId).collect(Collectors.toList());
+            assertEquals(ids, rulesFactory.withParallelism(Parallelism.of(pool, threshold)).get().stream()
+                    .map(Rule::getId).collect(Collectors.toList()));
+
+            String yaml = IntStream.range(0, 10)
+                    .mapToObj(i -> "id: r" + i + "\ncondition: " + (i % 3 == 1 ? "x >" : "x > " + i) + "\nresult: r" + i)
+                    .collect(Collectors.joining("\n---\n"));
+            ParsingException exception = assertThrows(ParsingException.class, () -> YamlRulesFactory.create(
+                    () -> new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)), Object.class)
+                    .withParallelism(Parallelism.of(pool, threshold)).get());
+            assertTrue(exception.getMessage().startsWith("couldn't parse 3 of 10 rules, documents [1, 4, 7]: "));
+            assertEquals(2, exception.getSuppressed().length);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     @SneakyThrows
     private void parseYaml() {
         try (InputStream is = NextDestinationRules.class.getClassLoader().getResourceAsStream("yaml-rules-factory-test.yaml")) {
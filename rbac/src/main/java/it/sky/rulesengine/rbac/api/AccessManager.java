@@ -3,6 +3,7 @@ package it.sky.rulesengine.rbac.api;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 /**
  *
@@ -19,6 +20,17 @@ public interface AccessManager<A, B extends Role<P>, P> {
      */
     Map<String, B> roles(A facts);
 
+    /**
+     * Passes the {@link Role roles} for the given facts to the given sink,
+     * without collecting them into a map.
+     *
+     * @param facts the facts to check
+     * @param sink  the consumer of the roles' ids and roles
+     */
+    default void roles(A facts, BiConsumer<String, ? super B> sink) {
+        roles(facts).forEach(sink);
+    }
+
     /**
      * Returns the resulting capabilities from the given roles.
      *
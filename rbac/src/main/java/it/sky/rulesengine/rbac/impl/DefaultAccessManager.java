@@ -12,6 +12,7 @@ import lombok.RequiredArgsConstructor;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -21,6 +22,10 @@ import java.util.stream.Stream;
  * An {@link AccessManager} based on {@link Rule rules}, that is
  * on facts and conditions, with a customizable permission accumulation strategy.
  *
+ * <p>The rules are requested from the factory on every call: use a
+ * {@link it.sky.rulesengine.factory.impl.CachingRulesFactory caching factory}
+ * to parse them only when their source changes.
+ *
  * @param <A> the facts type
  * @param <P> the permissions type
  */
@@ -41,6 +46,11 @@ public class DefaultAccessManager<A, B extends Role<P>, P> implements AccessMana
         return rulesEngine.applyAll(rulesFactory.get(), facts);
     }
 
+    @Override
+    public void roles(A facts, @NonNull BiConsumer<String, ? super B> sink) {
+        rulesEngine.applyAll(rulesFactory.get(), facts, sink);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -53,6 +53,28 @@ public interface RulesGraph<A, B> extends Collection<Rule<EvaluationContext<A, B
      */
     Map<String, B> applyAll(A facts);
 
+    /**
+     * Declares that the rule with the given id depends on the rules with the given ids,
+     * i.e. that its condition or action reads their outcome.
+     *
+     * @param ruleId        the rule's id
+     * @param dependencyIds the ids of the rules it depends on
+     * @return <code>this</code>
+     */
+    RulesGraph<A, B> dependsOn(String ruleId, String... dependencyIds);
+
+    /**
+     * Applies all the applicable rules on the given facts, like {@link #applyAll(Object)},
+     * and declares the dependencies found along the way.
+     *
+     * <p>Only the dependencies that the given facts exercise are found: e.g. those read by an action
+     * whose condition is false are not.
+     *
+     * @param facts the facts to test
+     * @return <code>this</code>
+     */
+    RulesGraph<A, B> trace(A facts);
+
     /**
      * Creates an rules graph with the given rules.
      *
@@ -5,26 +5,32 @@ import it.sky.rulesengine.core.impl.exception.RulesEngineException;
 import it.sky.rulesengine.x.api.EvaluationContext;
 import lombok.Data;
 import lombok.NonNull;
-import org.jgrapht.Graph;
-import org.jgrapht.alg.cycle.SzwarcfiterLauerSimpleCycles;
-import org.jgrapht.graph.DefaultDirectedGraph;
-import org.jgrapht.graph.DefaultEdge;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 public class EvaluationContextImpl<A, B> implements EvaluationContext<A, B> {
 
-    private final Graph<Node, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
-    private final SzwarcfiterLauerSimpleCycles<Node, DefaultEdge> cycleDetector = new SzwarcfiterLauerSimpleCycles<>(graph);
+    private final IncrementalCycleDetector<Node> cycleDetector = new IncrementalCycleDetector<>();
     private final A facts;
     private final Map<String, RuleEvaluationContextImpl<A, B>> rules;
+    private final boolean tracing;
 
     EvaluationContextImpl(@NonNull final Collection<Rule<EvaluationContext<A, B>, B>> rules, A facts) {
+        this(rules, facts, false);
+    }
+
+    /*
+     * When tracing, every dependency is recorded, including those on rules already evaluated
+     */
+    EvaluationContextImpl(@NonNull final Collection<Rule<EvaluationContext<A, B>, B>> rules, A facts,
+                          boolean tracing) {
         this.facts = facts;
+        this.tracing = tracing;
         this.rules = rules.stream().collect(Collectors.toMap(Rule::getId, r -> new RuleEvaluationContextImpl<>(r, this)));
     }
 
@@ -39,17 +45,33 @@ public class EvaluationContextImpl<A, B> implements EvaluationContext<A, B> {
                 () -> new IllegalArgumentException(String.format("rule '%s' not found", ruleId)));
     }
 
+    boolean isTracing() {
+        return tracing;
+    }
+
+    /*
+     * Records that evaluating a node requires evaluating another one, failing if the dependency closes a cycle
+     */
     void addEdge(Node from, Node to) {
-        synchronized (graph) {
-            graph.addVertex(from);
-            graph.addVertex(to);
-            graph.addEdge(from, to);
-            List<List<Node>> cycles = cycleDetector.findSimpleCycles().stream()
-                    .filter(cycle -> cycle.contains(from))
-                    .collect(Collectors.toList());
-            if (!cycles.isEmpty()) {
-                throw new CyclicDependencyException(cycles);
-            }
+        List<Node> cycle;
+        synchronized (cycleDetector) {
+            cycle = cycleDetector.addEdge(from, to);
+        }
+        if (cycle != null) {
+            throw new CyclicDependencyException(cycle);
+        }
+    }
+
+    /*
+     * Passes the id of each rule that required evaluating another one so far, together with the other rule's id
+     */
+    void forEachDependency(BiConsumer<String, String> consumer) {
+        synchronized (cycleDetector) {
+            cycleDetector.forEachEdge((from, to) -> {
+                if (!from.getRuleId().equals(to.getRuleId())) {
+                    consumer.accept(from.getRuleId(), to.getRuleId());
+                }
+            });
         }
     }
 
@@ -73,19 +95,15 @@ public class EvaluationContextImpl<A, B> implements EvaluationContext<A, B> {
         }
     }
 
-    private static class CyclicDependencyException extends RulesEngineException {
+    static class CyclicDependencyException extends RulesEngineException {
 
-        public CyclicDependencyException(@NonNull List<List<Node>> cycles) {
-            super("cyclic dependency found: " + cycles.stream()
-                    .map(CyclicDependencyException::renderCycle)
-                    .collect(Collectors.joining(", "))
+        public CyclicDependencyException(@NonNull List<?> cycle) {
+            super("cyclic dependency found: " + cycle.stream()
+                    .map(Object::toString)
+                    .collect(Collectors.joining(" -> "))
             );
         }
 
-        private static String renderCycle(List<Node> nodes) {
-            return nodes.stream().map(Node::toString).collect(Collectors.joining(" -> "));
-        }
-
     }
 
 }
@@ -0,0 +1,45 @@
+package it.sky.rulesengine.x.impl;
+
+import it.sky.rulesengine.x.api.EvaluationContext;
+import it.sky.rulesengine.x.api.RuleEvaluationContext;
+import it.sky.rulesengine.x.impl.EvaluationContextImpl.Node;
+import lombok.NonNull;
+
+/**
+ * The evaluation context passed to the condition or the action of a rule of a graph, which reads
+ * the other rules on behalf of that node, so that the dependencies are tracked explicitly:
+ * a node can hand the reads to another thread, or to an asynchronous task, and still be their source.
+ *
+ * @param <A> the facts type
+ * @param <B> the result type
+ */
+final class EvaluationFrame<A, B> implements EvaluationContext<A, B> {
+
+    private final EvaluationContextImpl<A, B> evaluationContext;
+    private final Node node;
+
+    EvaluationFrame(@NonNull EvaluationContextImpl<A, B> evaluationContext, @NonNull Node node) {
+        this.evaluationContext = evaluationContext;
+        this.node = node;
+    }
+
+    @Override
+    public A getFacts() {
+        return evaluationContext.getFacts();
+    }
+
+    @Override
+    public RuleEvaluationContext<B> getRule(@NonNull String ruleId) {
+        return evaluationContext.getRule(ruleId).readBy(node);
+    }
+
+    Node getNode() {
+        return node;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s of %s", node, evaluationContext);
+    }
+
+}
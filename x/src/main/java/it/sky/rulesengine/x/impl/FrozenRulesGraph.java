@@ -0,0 +1,772 @@
+package it.sky.rulesengine.x.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.Parallelism;
+import it.sky.rulesengine.core.impl.exception.RuleEvaluationException;
+import it.sky.rulesengine.core.impl.exception.RulesEngineException;
+import it.sky.rulesengine.x.api.EvaluationContext;
+import it.sky.rulesengine.x.api.RuleEvaluationContext;
+import it.sky.rulesengine.x.api.RuleEvaluationContext.RuleStatus;
+import it.sky.rulesengine.x.api.RulesGraph;
+import it.sky.rulesengine.x.impl.EvaluationContextImpl.CyclicDependencyException;
+import it.sky.rulesengine.x.impl.EvaluationContextImpl.Node;
+import it.sky.rulesengine.x.impl.EvaluationContextImpl.Node.NodeType;
+import lombok.NonNull;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.*;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An immutable graph of rules whose dependencies are known in advance, either
+ * {@link RulesGraph#dependsOn(String, String...) declared} or {@link RulesGraph#trace(Object) traced},
+ * rather than discovered while evaluating.
+ *
+ * <p>The rules are sorted once in a topological schedule, so that {@link #applyAll(Object)} evaluates
+ * every rule after its dependencies, and the state of an evaluation is just a status and a result
+ * for each rule, held in arrays indexed by the rule's position.
+ * A dependency that is not known, e.g. one that the traced facts did not exercise,
+ * is still evaluated on demand, as in a {@link RulesGraph}.
+ *
+ * <p>The rules are evaluated with the stream mapping and the exception mapping of a {@link RulesGraphEngine}:
+ * {@link #applyFirst(Object)} tests the rules in the order of the mapped stream, both methods skip the rules
+ * that the mapping filters out, unless another rule reads them, and the {@link RuleEvaluationException}
+ * are mapped before being thrown. The mapping is applied once, when the graph is frozen.
+ *
+ * <p>With a {@link #withParallelism(Parallelism) parallelism}, the rules are evaluated concurrently instead,
+ * each one as soon as its dependencies are.
+ *
+ * @param <A> the facts type
+ * @param <B> the result type
+ */
+public final class FrozenRulesGraph<A, B> {
+
+    private final List<Rule<EvaluationContext<A, B>, B>> rules;
+    private final Map<String, Integer> positions;
+    private final int[] schedule;
+    private final int[] ranks;
+    private final int[] order;
+    private final boolean[] selected;
+    private final int[] dependencyCounts;
+    private final int[][] dependents;
+    private final RulesGraphEngine rulesEngine;
+    private final Parallelism parallelism;
+
+    private FrozenRulesGraph(List<Rule<EvaluationContext<A, B>, B>> rules, Map<String, Integer> positions,
+                             int[] schedule, int[] order, int[] dependencyCounts, int[][] dependents,
+                             RulesGraphEngine rulesEngine) {
+        this.rules = rules;
+        this.positions = positions;
+        this.schedule = schedule;
+        this.order = order;
+        this.dependencyCounts = dependencyCounts;
+        this.dependents = dependents;
+        this.rulesEngine = rulesEngine;
+        this.parallelism = Parallelism.SEQUENTIAL;
+        this.ranks = new int[schedule.length];
+        for (int rank = 0; rank < schedule.length; rank++) {
+            ranks[schedule[rank]] = rank;
+        }
+        this.selected = new boolean[rules.size()];
+        for (int i : order) {
+            selected[i] = true;
+        }
+    }
+
+    private FrozenRulesGraph(FrozenRulesGraph<A, B> graph, Parallelism parallelism) {
+        this.rules = graph.rules;
+        this.positions = graph.positions;
+        this.schedule = graph.schedule;
+        this.ranks = graph.ranks;
+        this.order = graph.order;
+        this.selected = graph.selected;
+        this.dependencyCounts = graph.dependencyCounts;
+        this.dependents = graph.dependents;
+        this.rulesEngine = graph.rulesEngine;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Creates a frozen graph of the current rules of the given graph and their declared dependencies,
+     * evaluated sequentially.
+     *
+     * <p>The frozen graph keeps the stream mapping and the exception mapping of the graph's engine,
+     * if it's a {@link RulesGraphEngine} as by default, but not its parallelism,
+     * see {@link #withParallelism(Parallelism)}.
+     *
+     * @param rulesGraph the graph
+     * @param <A>        the facts type
+     * @param <B>        the result type
+     * @return the frozen graph
+     * @throws IllegalArgumentException if the dependencies refer to a missing rule
+     * @throws RulesEngineException     if the dependencies are cyclic
+     */
+    public static <A, B> FrozenRulesGraph<A, B> of(@NonNull RulesGraph<A, B> rulesGraph) {
+        return rulesGraph instanceof RulesGraphImpl
+                ? ((RulesGraphImpl<A, B>) rulesGraph).freeze()
+                : of(rulesGraph, Collections.emptyMap());
+    }
+
+    /**
+     * Creates a frozen graph of the given rules, evaluated sequentially.
+     *
+     * @param rules        the rules
+     * @param dependencies the ids of the rules that each rule, by id, depends on
+     * @param <A>          the facts type
+     * @param <B>          the result type
+     * @return the frozen graph
+     * @throws IllegalArgumentException if two rules have the same id or a dependency refers to a missing rule
+     * @throws RulesEngineException     if the dependencies are cyclic
+     */
+    public static <A, B> FrozenRulesGraph<A, B> of(@NonNull Collection<Rule<EvaluationContext<A, B>, B>> rules,
+                                                   @NonNull Map<String, ? extends Collection<String>> dependencies) {
+        return of(rules, dependencies, RulesGraphEngine.INSTANCE);
+    }
+
+    /**
+     * Creates a frozen graph of the given rules, evaluated sequentially with the stream mapping
+     * and the exception mapping of the given engine.
+     *
+     * @param rules        the rules
+     * @param dependencies the ids of the rules that each rule, by id, depends on
+     * @param rulesEngine  the engine
+     * @param <A>          the facts type
+     * @param <B>          the result type
+     * @return the frozen graph
+     * @throws IllegalArgumentException if two rules have the same id, or a dependency or a mapped rule
+     *                                  refers to a missing rule
+     * @throws RulesEngineException     if the dependencies are cyclic
+     */
+    public static <A, B> FrozenRulesGraph<A, B> of(@NonNull Collection<Rule<EvaluationContext<A, B>, B>> rules,
+                                                   @NonNull Map<String, ? extends Collection<String>> dependencies,
+                                                   @NonNull RulesGraphEngine rulesEngine) {
+        List<Rule<EvaluationContext<A, B>, B>> rulesList = Collections.unmodifiableList(new ArrayList<>(rules));
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < rulesList.size(); i++) {
+            if (positions.put(rulesList.get(i).getId(), i) != null) {
+                throw new IllegalArgumentException(String.format("duplicate rule '%s'", rulesList.get(i).getId()));
+            }
+        }
+
+        IncrementalCycleDetector<String> cycleDetector = new IncrementalCycleDetector<>();
+        List<List<Integer>> dependentsLists = new ArrayList<>();
+        int[] dependencyCounts = new int[rulesList.size()];
+        for (int i = 0; i < rulesList.size(); i++) {
+            dependentsLists.add(new ArrayList<>());
+        }
+        for (Map.Entry<String, ? extends Collection<String>> entry : dependencies.entrySet()) {
+            int rule = position(positions, entry.getKey());
+            for (String dependency : new LinkedHashSet<>(entry.getValue())) {
+                List<String> cycle = cycleDetector.addEdge(entry.getKey(), dependency);
+                if (cycle != null) {
+                    throw new CyclicDependencyException(cycle);
+                }
+                dependentsLists.get(position(positions, dependency)).add(rule);
+                dependencyCounts[rule]++;
+            }
+        }
+        int[][] dependents = new int[rulesList.size()][];
+        for (int i = 0; i < dependents.length; i++) {
+            dependents[i] = dependentsLists.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        int[] schedule = new int[rulesList.size()];
+        int[] pending = dependencyCounts.clone();
+        int scheduled = 0;
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < pending.length; i++) {
+            if (pending[i] == 0) {
+                ready.add(i);
+            }
+        }
+        while (!ready.isEmpty()) {
+            int rule = ready.poll();
+            schedule[scheduled++] = rule;
+            for (int dependent : dependents[rule]) {
+                if (--pending[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        int[] order = rulesEngine.mapRules(rulesList).stream()
+                .mapToInt(rule -> position(positions, rule.getId()))
+                .toArray();
+        return new FrozenRulesGraph<>(rulesList, Collections.unmodifiableMap(positions), schedule, order,
+                dependencyCounts, dependents, rulesEngine);
+    }
+
+    private static int position(Map<String, Integer> positions, String ruleId) {
+        Integer position = positions.get(ruleId);
+        if (position == null) {
+            throw new IllegalArgumentException(String.format("rule '%s' not found", ruleId));
+        }
+        return position;
+    }
+
+    /**
+     * Returns a copy that evaluates the rules with the given parallelism.
+     *
+     * <p>With <code>applyAll</code>, each rule is submitted to the pool as soon as its dependencies are evaluated,
+     * so that independent rules are evaluated concurrently, and the statuses of the rules change by
+     * compare and set, without locking.
+     * A rule waits only for a dependency that was not known and is being evaluated by another thread,
+     * and the waits that would close a cycle across threads fail as a cycle does in a sequential evaluation.
+     * The results and the exception thrown are the same as in a sequential evaluation: if several rules fail,
+     * the exception of the first of them in the schedule is thrown.
+     * <code>applyFirst</code> is always sequential.
+     *
+     * <p>Example:
+     * <pre>
+     *     FrozenRulesGraph&lt;A, B&gt; parallelGraph = FrozenRulesGraph.of(rulesGraph.trace(facts))
+     *          .withParallelism(Parallelism.of(ForkJoinPool.commonPool(), 64));
+     * </pre>
+     *
+     * @param parallelism the parallelism
+     * @return the new graph
+     */
+    public FrozenRulesGraph<A, B> withParallelism(@NonNull Parallelism parallelism) {
+        return this.parallelism == parallelism ? this : new FrozenRulesGraph<>(this, parallelism);
+    }
+
+    /**
+     * Applies the first applicable rule, in the graph's order, on the given facts.
+     *
+     * @param facts the facts to test
+     * @return the result of the applied rule
+     */
+    public Optional<B> applyFirst(A facts) {
+        Evaluation evaluation = new SequentialEvaluation(facts);
+        for (int i : order) {
+            if (evaluation.testOrFail(i)) {
+                return Optional.ofNullable(evaluation.applyOrFail(i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Applies all the applicable rules on the given facts, following the schedule.
+     *
+     * @param facts the facts to test
+     * @return the results of the applied rules. The key is the rule's id
+     */
+    public Map<String, B> applyAll(A facts) {
+        if (parallelism.isParallel(rules.size())) {
+            return applyAllParallel(facts);
+        }
+        Evaluation evaluation = new SequentialEvaluation(facts);
+        for (int i : schedule) {
+            if (selected[i]) {
+                evaluation.evaluate(i);
+            }
+        }
+        return evaluation.results();
+    }
+
+    /*
+     * Evaluates the rules on the parallelism's pool, then throws the failure of the first failed rule, if any
+     */
+    private Map<String, B> applyAllParallel(A facts) {
+        ConcurrentEvaluation evaluation = new ConcurrentEvaluation(facts);
+        parallelism.getPool().invoke(new Scheduler(evaluation));
+        int failedRank = evaluation.failedRank.get();
+        if (failedRank < Integer.MAX_VALUE) {
+            throw evaluation.failures[schedule[failedRank]];
+        }
+        return evaluation.results();
+    }
+
+    /**
+     * Returns the ids of the rules in the order {@link #applyAll(Object)} evaluates them:
+     * each rule follows its dependencies, otherwise the graph's order is kept.
+     *
+     * @return the schedule
+     */
+    public List<String> getSchedule() {
+        List<String> ids = new ArrayList<>(schedule.length);
+        for (int i : schedule) {
+            ids.add(rules.get(i).getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the number of rules.
+     *
+     * @return the number of rules
+     */
+    public int size() {
+        return rules.size();
+    }
+
+    /*
+     * The state of the evaluation of the rules on some facts: the result of a rule is its exception,
+     * if it failed. Subclasses tell how the statuses are stored and what happens when a rule is in progress.
+     */
+    private abstract class Evaluation implements EvaluationContext<A, B> {
+
+        private final A facts;
+        final Object[] results;
+
+        Evaluation(A facts) {
+            this.facts = facts;
+            this.results = new Object[rules.size()];
+        }
+
+        abstract RuleStatus status(int i);
+
+        /*
+         * Starts testing or applying the given rule, returning false if its status is not the expected one any more
+         */
+        abstract boolean start(int i, RuleStatus expected, RuleStatus update);
+
+        abstract void end(int i, RuleStatus status);
+
+        /*
+         * Waits until the given rule is not in the given status any more
+         */
+        abstract void await(int i, RuleStatus status, NodeType type);
+
+        @Override
+        public A getFacts() {
+            return facts;
+        }
+
+        @Override
+        public RuleEvaluationContext<B> getRule(@NonNull String ruleId) {
+            return new RuleView(position(positions, ruleId));
+        }
+
+        boolean test(int i) {
+            for (; ; ) {
+                RuleStatus status = status(i);
+                switch (status) {
+                    case WAITING:
+                        if (start(i, RuleStatus.WAITING, RuleStatus.TESTING)) {
+                            boolean applies;
+                            try {
+                                applies = rules.get(i).test(this);
+                            } catch (Throwable t) {
+                                fail(i, RuleStatus.TEST_FAILED, t);
+                                throw t;
+                            }
+                            end(i, applies ? RuleStatus.TEST_TRUE : RuleStatus.TEST_FALSE);
+                            return applies;
+                        }
+                        break;
+                    case TEST_TRUE:
+                    case APPLYING:
+                    case APPLIED:
+                    case APPLY_FAILED:
+                        return true;
+                    case TEST_FALSE:
+                        return false;
+                    case TESTING:
+                        await(i, status, NodeType.CONDITION);
+                        break;
+                    default:
+                        throw failure(i);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        B apply(int i) {
+            for (; ; ) {
+                RuleStatus status = status(i);
+                switch (status) {
+                    case APPLIED:
+                        return (B) results[i];
+                    case TEST_TRUE:
+                        if (start(i, RuleStatus.TEST_TRUE, RuleStatus.APPLYING)) {
+                            B result;
+                            try {
+                                result = rules.get(i).apply(this);
+                            } catch (Throwable t) {
+                                fail(i, RuleStatus.APPLY_FAILED, t);
+                                throw t;
+                            }
+                            results[i] = result;
+                            end(i, RuleStatus.APPLIED);
+                            return result;
+                        }
+                        break;
+                    case APPLYING:
+                        await(i, status, NodeType.ACTION);
+                        break;
+                    case TEST_FAILED:
+                    case APPLY_FAILED:
+                        throw failure(i);
+                    default:
+                        throw new IllegalStateException(String.format("unexpected status '%s'", status));
+                }
+            }
+        }
+
+        /*
+         * Fails the rule with any throwable, so that the threads waiting for it are released
+         */
+        private void fail(int i, RuleStatus status, Throwable t) {
+            results[i] = t;
+            end(i, status);
+        }
+
+        /*
+         * The failure of a rule, thrown as is if unchecked
+         */
+        private RuntimeException failure(int i) {
+            Throwable t = (Throwable) results[i];
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            return t instanceof RuntimeException ? (RuntimeException) t : new UndeclaredThrowableException(t);
+        }
+
+        void evaluate(int i) {
+            if (testOrFail(i)) {
+                applyOrFail(i);
+            }
+        }
+
+        boolean testOrFail(int i) {
+            try {
+                return test(i);
+            } catch (RuntimeException e) {
+                throw rulesEngine.mapException(new RuleEvaluationException(rules.get(i), this, e));
+            }
+        }
+
+        B applyOrFail(int i) {
+            try {
+                return apply(i);
+            } catch (RuntimeException e) {
+                throw rulesEngine.mapException(new RuleEvaluationException(rules.get(i), this, e));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, B> results() {
+            Map<String, B> applied = new HashMap<>();
+            for (int i = 0; i < results.length; i++) {
+                if (selected[i] && status(i) == RuleStatus.APPLIED) {
+                    applied.put(rules.get(i).getId(), (B) results[i]);
+                }
+            }
+            return applied;
+        }
+
+        /*
+         * The context of a rule in this evaluation
+         */
+        private final class RuleView implements RuleEvaluationContext<B> {
+
+            private final int position;
+
+            RuleView(int position) {
+                this.position = position;
+            }
+
+            @Override
+            public RuleStatus getStatus() {
+                if (test(position)) {
+                    apply(position);
+                }
+                return status(position);
+            }
+
+            @Override
+            public boolean applies() {
+                return test(position);
+            }
+
+            @Override
+            public boolean applied() {
+                return getStatus() == RuleStatus.APPLIED;
+            }
+
+            @Override
+            public B getResult() {
+                return test(position) ? apply(position) : null;
+            }
+
+        }
+
+    }
+
+    /*
+     * An evaluation confined to a thread, where a rule in progress is part of a cycle
+     */
+    private final class SequentialEvaluation extends Evaluation {
+
+        private final RuleStatus[] statuses;
+
+        SequentialEvaluation(A facts) {
+            super(facts);
+            this.statuses = new RuleStatus[rules.size()];
+            Arrays.fill(statuses, RuleStatus.WAITING);
+        }
+
+        @Override
+        RuleStatus status(int i) {
+            return statuses[i];
+        }
+
+        @Override
+        boolean start(int i, RuleStatus expected, RuleStatus update) {
+            statuses[i] = update;
+            return true;
+        }
+
+        @Override
+        void end(int i, RuleStatus status) {
+            statuses[i] = status;
+        }
+
+        @Override
+        void await(int i, RuleStatus status, NodeType type) {
+            throw new CyclicDependencyException(Collections.singletonList(new Node(rules.get(i), type)));
+        }
+
+    }
+
+    /*
+     * An evaluation shared by the pool's threads. The statuses are published by compare and set, which also
+     * orders the results and clears the owner of a rule before another thread can start it again;
+     * waiting for a rule in progress on another thread is the only blocking path. The waiting threads park,
+     * and each one is recorded in a wait-for graph, walked before parking: since a thread waits for one rule
+     * at a time, the graph is a chain from each thread, and a chain back to the waiting thread is a cycle.
+     */
+    private final class ConcurrentEvaluation extends Evaluation {
+
+        private final AtomicReferenceArray<RuleStatus> statuses;
+        private final AtomicReferenceArray<Thread> owners;
+        private final AtomicReferenceArray<Waiter> waiters;
+        private final Map<Thread, Wait> waits = new HashMap<>();
+        private final RuntimeException[] failures;
+        private final AtomicIntegerArray pending;
+        private final AtomicInteger failedRank = new AtomicInteger(Integer.MAX_VALUE);
+
+        ConcurrentEvaluation(A facts) {
+            super(facts);
+            RuleStatus[] initialStatuses = new RuleStatus[rules.size()];
+            Arrays.fill(initialStatuses, RuleStatus.WAITING);
+            this.statuses = new AtomicReferenceArray<>(initialStatuses);
+            this.owners = new AtomicReferenceArray<>(rules.size());
+            this.waiters = new AtomicReferenceArray<>(rules.size());
+            this.failures = new RuntimeException[rules.size()];
+            this.pending = new AtomicIntegerArray(dependencyCounts);
+        }
+
+        @Override
+        RuleStatus status(int i) {
+            return statuses.get(i);
+        }
+
+        @Override
+        boolean start(int i, RuleStatus expected, RuleStatus update) {
+            if (statuses.compareAndSet(i, expected, update)) {
+                owners.set(i, Thread.currentThread());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        void end(int i, RuleStatus status) {
+            owners.set(i, null);
+            statuses.set(i, status);
+            if (waiters.get(i) != null) {
+                for (Waiter waiter = waiters.getAndSet(i, null); waiter != null; waiter = waiter.next) {
+                    Thread thread = waiter.thread;
+                    if (thread != null) {
+                        waiter.thread = null;
+                        LockSupport.unpark(thread);
+                    }
+                }
+            }
+        }
+
+        @Override
+        void await(int i, RuleStatus status, NodeType type) {
+            Thread thread = Thread.currentThread();
+            Wait wait = new Wait(i, status, type);
+            synchronized (waits) {
+                List<Node> cycle = cycle(thread, wait);
+                if (cycle != null) {
+                    throw new CyclicDependencyException(cycle);
+                }
+                waits.put(thread, wait);
+            }
+            try {
+                ForkJoinPool.managedBlock(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RulesEngineException(String.format("interrupted while waiting for rule '%s'",
+                        rules.get(i).getId()), e);
+            } finally {
+                synchronized (waits) {
+                    waits.remove(thread);
+                }
+            }
+        }
+
+        /*
+         * Follows the owners of the awaited rules, returning the rules read along the way
+         * if the chain leads back to the given thread, or null
+         */
+        private List<Node> cycle(Thread thread, Wait wait) {
+            List<Node> cycle = new ArrayList<>();
+            while (wait != null && statuses.get(wait.rule) == wait.status && cycle.size() <= waits.size()) {
+                cycle.add(new Node(rules.get(wait.rule), wait.type));
+                Thread owner = owners.get(wait.rule);
+                if (owner == thread) {
+                    return cycle;
+                }
+                wait = owner == null ? null : waits.get(owner);
+            }
+            return null;
+        }
+
+        /*
+         * Evaluates a selected rule, unless a rule before it in the schedule failed, keeping the first failure
+         */
+        void evaluateConcurrently(int i) {
+            if (!selected[i] || ranks[i] > failedRank.get()) {
+                return;
+            }
+            try {
+                evaluate(i);
+            } catch (RuntimeException e) {
+                failures[i] = e;
+                int rank = failedRank.get();
+                while (ranks[i] < rank && !failedRank.compareAndSet(rank, ranks[i])) {
+                    rank = failedRank.get();
+                }
+            }
+        }
+
+        /*
+         * A thread waiting for a rule to leave the given status, parked until then and ignoring
+         * interruptions. A waiter dequeued by the end of an earlier status is queued again.
+         */
+        private final class Wait implements ForkJoinPool.ManagedBlocker {
+
+            private final int rule;
+            private final RuleStatus status;
+            private final NodeType type;
+
+            Wait(int rule, RuleStatus status, NodeType type) {
+                this.rule = rule;
+                this.status = status;
+                this.type = type;
+            }
+
+            @Override
+            public boolean block() {
+                Waiter waiter = null;
+                boolean queued = false;
+                boolean interrupted = false;
+                while (!isReleasable()) {
+                    if (waiter == null) {
+                        waiter = new Waiter();
+                    } else if (!queued) {
+                        waiter.next = waiters.get(rule);
+                        queued = waiters.compareAndSet(rule, waiter.next, waiter);
+                    } else if (waiter.thread == null) {
+                        waiter = null;
+                        queued = false;
+                    } else {
+                        LockSupport.park(ConcurrentEvaluation.this);
+                        interrupted |= Thread.interrupted();
+                    }
+                }
+                if (waiter != null) {
+                    waiter.thread = null;
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return statuses.get(rule) != status;
+            }
+
+        }
+
+    }
+
+    /*
+     * A thread parked until a rule leaves its status
+     */
+    private static final class Waiter {
+
+        private volatile Thread thread = Thread.currentThread();
+        private Waiter next;
+
+    }
+
+    /*
+     * Submits the rules without dependencies, then completes when every rule is evaluated
+     */
+    private final class Scheduler extends CountedCompleter<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ConcurrentEvaluation evaluation;
+
+        Scheduler(ConcurrentEvaluation evaluation) {
+            this.evaluation = evaluation;
+        }
+
+        @Override
+        public void compute() {
+            setPendingCount(rules.size());
+            for (int i = 0; i < dependencyCounts.length; i++) {
+                if (dependencyCounts[i] == 0) {
+                    new RuleTask(this, i).fork();
+                }
+            }
+            tryComplete();
+        }
+
+    }
+
+    /*
+     * Evaluates a rule, then submits the dependents whose last dependency it was
+     */
+    private final class RuleTask extends CountedCompleter<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Scheduler scheduler;
+        private final int rule;
+
+        RuleTask(Scheduler scheduler, int rule) {
+            super(scheduler);
+            this.scheduler = scheduler;
+            this.rule = rule;
+        }
+
+        @Override
+        public void compute() {
+            ConcurrentEvaluation evaluation = scheduler.evaluation;
+            evaluation.evaluateConcurrently(rule);
+            for (int dependent : dependents[rule]) {
+                if (evaluation.pending.decrementAndGet(dependent) == 0) {
+                    new RuleTask(scheduler, dependent).fork();
+                }
+            }
+            tryComplete();
+        }
+
+    }
+
+}
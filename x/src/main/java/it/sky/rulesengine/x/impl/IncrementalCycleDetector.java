@@ -0,0 +1,182 @@
+package it.sky.rulesengine.x.impl;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * A directed graph that rejects the edges closing a cycle, built one edge at a time.
+ *
+ * <p>A topological order of the vertices is maintained with the Pearce-Kelly algorithm:
+ * an edge that agrees with the order is added in constant time, otherwise only the vertices whose position lies
+ * between the positions of the edge's ends are visited, looking for a path back to the edge's source,
+ * and reordered.
+ *
+ * <p>Not thread safe.
+ *
+ * @param <V> the vertex type
+ * @see <a href="https://doi.org/10.1145/1187436.1210590">D. J. Pearce, P. H. J. Kelly,
+ * A dynamic topological sort algorithm for directed acyclic graphs</a>
+ */
+final class IncrementalCycleDetector<V> {
+
+    private final Map<V, Vertex<V>> vertices = new HashMap<>();
+    private int epoch;
+
+    /**
+     * Adds an edge, and its vertices if missing, unless it closes a cycle.
+     *
+     * @param from the source vertex
+     * @param to   the target vertex
+     * @return the cycle closed by the edge, starting from its source, or null if the edge was added
+     */
+    List<V> addEdge(V from, V to) {
+        Vertex<V> source = vertex(from);
+        Vertex<V> target = vertex(to);
+        if (source == target) {
+            return Collections.singletonList(from);
+        }
+        if (source.successors.contains(target)) {
+            return null;
+        }
+        if (target.position < source.position) {
+            epoch++;
+            List<Vertex<V>> forward = new ArrayList<>();
+            Vertex<V> last = discoverForward(target, source, forward);
+            if (last != null) {
+                return cycle(source, last);
+            }
+            List<Vertex<V>> backward = new ArrayList<>();
+            discoverBackward(source, target.position, backward);
+            reorder(backward, forward);
+        }
+        source.successors.add(target);
+        target.predecessors.add(source);
+        return null;
+    }
+
+    /**
+     * Returns the number of vertices.
+     *
+     * @return the number of vertices
+     */
+    int size() {
+        return vertices.size();
+    }
+
+    /**
+     * Passes each edge to the given consumer.
+     *
+     * @param consumer the consumer of the source and target of each edge
+     */
+    void forEachEdge(BiConsumer<? super V, ? super V> consumer) {
+        for (Vertex<V> vertex : vertices.values()) {
+            for (Vertex<V> successor : vertex.successors) {
+                consumer.accept(vertex.value, successor.value);
+            }
+        }
+    }
+
+    private Vertex<V> vertex(V value) {
+        return vertices.computeIfAbsent(value, v -> new Vertex<>(v, vertices.size()));
+    }
+
+    /*
+     * Visits the vertices reachable from the start and placed before the source,
+     * returning the vertex that reaches the source, if any
+     */
+    private Vertex<V> discoverForward(Vertex<V> start, Vertex<V> source, List<Vertex<V>> visited) {
+        Deque<Vertex<V>> stack = new ArrayDeque<>();
+        start.forwardEpoch = epoch;
+        start.parent = null;
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Vertex<V> vertex = stack.pop();
+            visited.add(vertex);
+            for (Vertex<V> successor : vertex.successors) {
+                if (successor == source) {
+                    return vertex;
+                }
+                if (successor.forwardEpoch != epoch && successor.position < source.position) {
+                    successor.forwardEpoch = epoch;
+                    successor.parent = vertex;
+                    stack.push(successor);
+                }
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Visits the vertices that reach the start and are placed after the lower bound
+     */
+    private void discoverBackward(Vertex<V> start, int lowerBound, List<Vertex<V>> visited) {
+        Deque<Vertex<V>> stack = new ArrayDeque<>();
+        start.backwardEpoch = epoch;
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Vertex<V> vertex = stack.pop();
+            visited.add(vertex);
+            for (Vertex<V> predecessor : vertex.predecessors) {
+                if (predecessor.backwardEpoch != epoch && predecessor.position > lowerBound) {
+                    predecessor.backwardEpoch = epoch;
+                    stack.push(predecessor);
+                }
+            }
+        }
+    }
+
+    /*
+     * Moves the backward vertices before the forward ones, reusing their positions
+     */
+    private static <V> void reorder(List<Vertex<V>> backward, List<Vertex<V>> forward) {
+        Comparator<Vertex<V>> byPosition = Comparator.comparingInt(v -> v.position);
+        backward.sort(byPosition);
+        forward.sort(byPosition);
+        int[] positions = new int[backward.size() + forward.size()];
+        int i = 0;
+        for (Vertex<V> vertex : backward) {
+            positions[i++] = vertex.position;
+        }
+        for (Vertex<V> vertex : forward) {
+            positions[i++] = vertex.position;
+        }
+        Arrays.sort(positions);
+        i = 0;
+        for (Vertex<V> vertex : backward) {
+            vertex.position = positions[i++];
+        }
+        for (Vertex<V> vertex : forward) {
+            vertex.position = positions[i++];
+        }
+    }
+
+    /*
+     * The source, then the path found from the edge's target to the last vertex before the source
+     */
+    private static <V> List<V> cycle(Vertex<V> source, Vertex<V> last) {
+        LinkedList<V> cycle = new LinkedList<>();
+        for (Vertex<V> vertex = last; vertex != null; vertex = vertex.parent) {
+            cycle.addFirst(vertex.value);
+        }
+        cycle.addFirst(source.value);
+        return cycle;
+    }
+
+    private static class Vertex<V> {
+
+        private final V value;
+        private final Set<Vertex<V>> successors = new LinkedHashSet<>();
+        private final Set<Vertex<V>> predecessors = new LinkedHashSet<>();
+        private int position;
+        private int forwardEpoch = -1;
+        private int backwardEpoch = -1;
+        private Vertex<V> parent;
+
+        Vertex(V value, int position) {
+            this.value = value;
+            this.position = position;
+        }
+
+    }
+
+}
@@ -8,14 +8,52 @@ import it.sky.rulesengine.x.impl.EvaluationContextImpl.Node.NodeType;
 import it.sky.rulesengine.x.impl.decorator.RuleDecorator;
 import lombok.NonNull;
 
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The evaluation context of a rule, which evaluates the rule's condition and action at most once.
+ *
+ * <p>The status of the rule is a single atomic state word: the thread that moves it from
+ * {@link RuleStatus#WAITING} to {@link RuleStatus#TESTING}, or from {@link RuleStatus#TEST_TRUE} to
+ * {@link RuleStatus#APPLYING}, evaluates the condition or the action, while other threads
+ * park until it's done. Reading the outcome of a completed rule takes no lock.
+ *
+ * <p>The condition and the action are evaluated with an {@link EvaluationFrame} of their own,
+ * so that the rules they read are known to depend on them, whatever thread reads.
+ *
+ * @param <A> the facts type
+ * @param <B> the result type
+ */
 public class RuleEvaluationContextImpl<A, B> implements RuleEvaluationContext<B> {
 
-    private static final ThreadLocal<Node> CURRENT_NODE = new ThreadLocal<>();
+    private static final RuleStatus[] STATUSES = RuleStatus.values();
+    private static final int WAITING = RuleStatus.WAITING.ordinal();
+    private static final int TESTING = RuleStatus.TESTING.ordinal();
+    private static final int TEST_TRUE = RuleStatus.TEST_TRUE.ordinal();
+    private static final int TEST_FALSE = RuleStatus.TEST_FALSE.ordinal();
+    private static final int TEST_FAILED = RuleStatus.TEST_FAILED.ordinal();
+    private static final int APPLYING = RuleStatus.APPLYING.ordinal();
+    private static final int APPLIED = RuleStatus.APPLIED.ordinal();
+    private static final int APPLY_FAILED = RuleStatus.APPLY_FAILED.ordinal();
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<RuleEvaluationContextImpl> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(RuleEvaluationContextImpl.class, "state");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<RuleEvaluationContextImpl, Waiter> WAITERS =
+            AtomicReferenceFieldUpdater.newUpdater(RuleEvaluationContextImpl.class, Waiter.class, "waiters");
 
     private final EvaluationContextImpl<A, B> evaluationContext;
     private final LazyRule lazyRule;
-    private RuleStatus status = RuleStatus.WAITING;
-    private RuntimeException failCause;
+    private volatile int state = WAITING;
+    private volatile Waiter waiters;
+    /*
+     * Written before the state word and read after it
+     */
+    private Throwable failCause;
     private B result;
 
     RuleEvaluationContextImpl(@NonNull final Rule<EvaluationContext<A, B>, B> delegate,
@@ -28,33 +66,202 @@ public class RuleEvaluationContextImpl<A, B> implements RuleEvaluationContext<B>
         return lazyRule;
     }
 
+    /*
+     * This context as read by the given node
+     */
+    RuleEvaluationContext<B> readBy(@NonNull Node source) {
+        return new Dependency(source);
+    }
+
     @Override
     public RuleStatus getStatus() {
-        if (lazyRule.test(evaluationContext)) {
-            lazyRule.apply(evaluationContext);
-        }
-        return status;
+        return getStatus(null);
     }
 
     @Override
     public boolean applies() {
-        return lazyRule.test(evaluationContext);
+        return test(null);
     }
 
     @Override
     public boolean applied() {
-        if (lazyRule.test(evaluationContext)) {
-            lazyRule.apply(evaluationContext);
-        }
-        return status == RuleStatus.APPLIED;
+        return getStatus() == RuleStatus.APPLIED;
     }
 
     @Override
     public B getResult() {
-        if (lazyRule.test(evaluationContext)) {
-            lazyRule.apply(evaluationContext);
+        return getResult(null);
+    }
+
+    private RuleStatus getStatus(Node source) {
+        if (test(source)) {
+            apply(source);
+        }
+        return STATUSES[state];
+    }
+
+    private B getResult(Node source) {
+        return test(source) ? apply(source) : null;
+    }
+
+    /*
+     * Tests the rule, unless already done, on behalf of the given node, if any
+     */
+    private boolean test(Node source) {
+        int s = state;
+        if (s > TESTING && !evaluationContext.isTracing()) {
+            return tested(s);
+        }
+        if (source != null) {
+            evaluationContext.addEdge(source, lazyRule.conditionNode);
+        }
+        for (; ; ) {
+            s = state;
+            if (s == WAITING) {
+                if (STATE.compareAndSet(this, WAITING, TESTING)) {
+                    return lazyRule.testDelegate();
+                }
+            } else if (s == TESTING) {
+                await(TESTING);
+            } else {
+                return tested(s);
+            }
+        }
+    }
+
+    private boolean tested(int s) {
+        if (s == TEST_FALSE) {
+            return false;
+        } else if (s == TEST_FAILED) {
+            throw failure();
+        }
+        return true;
+    }
+
+    /*
+     * Applies the rule, unless already done, on behalf of the given node, if any
+     */
+    private B apply(Node source) {
+        int s = state;
+        if (s == APPLIED && !evaluationContext.isTracing()) {
+            return result;
+        }
+        if (source != null) {
+            evaluationContext.addEdge(source, lazyRule.actionNode);
+        }
+        for (; ; ) {
+            s = state;
+            if (s == TEST_TRUE) {
+                if (STATE.compareAndSet(this, TEST_TRUE, APPLYING)) {
+                    return lazyRule.applyDelegate();
+                }
+            } else if (s == APPLYING) {
+                await(APPLYING);
+            } else if (s == APPLIED) {
+                return result;
+            } else {
+                throw failCause != null ? failure()
+                        : new IllegalStateException(String.format("unexpected status '%s'", STATUSES[s]));
+            }
+        }
+    }
+
+    /*
+     * The failure of the condition or the action, thrown as is if unchecked
+     */
+    private RuntimeException failure() {
+        if (failCause instanceof Error) {
+            throw (Error) failCause;
+        }
+        return failCause instanceof RuntimeException ? (RuntimeException) failCause
+                : new UndeclaredThrowableException(failCause);
+    }
+
+    /*
+     * Publishes the outcome of the condition or the action, then wakes up the threads waiting for it
+     */
+    private void complete(int state) {
+        this.state = state;
+        for (Waiter waiter = WAITERS.getAndSet(this, null); waiter != null; waiter = waiter.next) {
+            Thread thread = waiter.thread;
+            if (thread != null) {
+                waiter.thread = null;
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    /*
+     * Parks until the state is not the given one any more, ignoring interruptions until then.
+     * A waiter dequeued by the completion of an earlier state is queued again
+     */
+    private void await(int inProgress) {
+        Waiter waiter = null;
+        boolean queued = false;
+        boolean interrupted = false;
+        while (state == inProgress) {
+            if (waiter == null) {
+                waiter = new Waiter();
+            } else if (!queued) {
+                waiter.next = waiters;
+                queued = WAITERS.compareAndSet(this, waiter.next, waiter);
+            } else if (waiter.thread == null) {
+                waiter = null;
+                queued = false;
+            } else {
+                LockSupport.park(this);
+                interrupted |= Thread.interrupted();
+            }
+        }
+        if (waiter != null) {
+            waiter.thread = null;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * A thread parked until a rule completes its condition or action
+     */
+    private static final class Waiter {
+
+        private volatile Thread thread = Thread.currentThread();
+        private Waiter next;
+
+    }
+
+    /*
+     * The rule's context as read by another rule's condition or action
+     */
+    private final class Dependency implements RuleEvaluationContext<B> {
+
+        private final Node source;
+
+        Dependency(Node source) {
+            this.source = source;
+        }
+
+        @Override
+        public RuleStatus getStatus() {
+            return RuleEvaluationContextImpl.this.getStatus(source);
         }
-        return result;
+
+        @Override
+        public boolean applies() {
+            return test(source);
+        }
+
+        @Override
+        public boolean applied() {
+            return getStatus() == RuleStatus.APPLIED;
+        }
+
+        @Override
+        public B getResult() {
+            return RuleEvaluationContextImpl.this.getResult(source);
+        }
+
     }
 
     private class LazyRule extends RuleDecorator<EvaluationContext<A, B>, B> {
@@ -68,89 +275,70 @@ public class RuleEvaluationContextImpl<A, B> implements RuleEvaluationContext<B>
 
         @Override
         public boolean test(EvaluationContext<A, B> evaluationContext) {
-            Node sourceNode = CURRENT_NODE.get();
-            try {
-                if (sourceNode != null) {
-                    RuleEvaluationContextImpl.this.evaluationContext.addEdge(CURRENT_NODE.get(), conditionNode);
-                }
-                CURRENT_NODE.set(conditionNode);
-                synchronized (conditionNode) {
-                    if (status == RuleStatus.TEST_TRUE || status == RuleStatus.APPLYING
-                            || status == RuleStatus.APPLIED || status == RuleStatus.APPLY_FAILED) {
-                        return true;
-                    } else if (status != RuleStatus.WAITING) {
-                        throw failCause != null ? failCause : new IllegalStateException(String.format("unexpected status '%s'", status));
-                    }
-                    return super.test(evaluationContext);
-                }
-            } finally {
-                if (sourceNode != null) {
-                    CURRENT_NODE.set(sourceNode);
-                } else {
-                    CURRENT_NODE.remove();
-                }
-            }
+            return RuleEvaluationContextImpl.this.test(sourceOf(evaluationContext));
         }
 
         @Override
         public B apply(EvaluationContext<A, B> evaluationContext) {
-            Node sourceNode = CURRENT_NODE.get();
+            return RuleEvaluationContextImpl.this.apply(sourceOf(evaluationContext));
+        }
+
+        private Node sourceOf(EvaluationContext<A, B> evaluationContext) {
+            return evaluationContext instanceof EvaluationFrame ? ((EvaluationFrame<?, ?>) evaluationContext).getNode()
+                    : null;
+        }
+
+        /*
+         * The callbacks complete the condition and the action, except when an error skips them
+         */
+        boolean testDelegate() {
             try {
-                if (sourceNode != null) {
-                    RuleEvaluationContextImpl.this.evaluationContext.addEdge(CURRENT_NODE.get(), actionNode);
-                }
-                CURRENT_NODE.set(actionNode);
-                synchronized (actionNode) {
-                    if (status == RuleStatus.APPLIED) {
-                        return result;
-                    } else if (status != RuleStatus.TEST_TRUE) {
-                        throw failCause != null ? failCause : new IllegalStateException(String.format("unexpected status '%s'", status));
-                    }
-                    return super.apply(evaluationContext);
-                }
-            } finally {
-                if (sourceNode != null) {
-                    CURRENT_NODE.set(sourceNode);
-                } else {
-                    CURRENT_NODE.remove();
-                }
+                return super.test(new EvaluationFrame<>(RuleEvaluationContextImpl.this.evaluationContext, conditionNode));
+            } catch (Throwable t) {
+                failIfInProgress(TESTING, TEST_FAILED, t);
+                throw t;
             }
         }
 
-        @Override
-        protected boolean beforeTest(EvaluationContext<A, B> evaluationContext) {
-            status = RuleStatus.TESTING;
-            return true;
+        B applyDelegate() {
+            try {
+                return super.apply(new EvaluationFrame<>(RuleEvaluationContextImpl.this.evaluationContext, actionNode));
+            } catch (Throwable t) {
+                failIfInProgress(APPLYING, APPLY_FAILED, t);
+                throw t;
+            }
+        }
+
+        private void failIfInProgress(int inProgress, int failed, Throwable t) {
+            if (state == inProgress) {
+                failCause = t;
+                complete(failed);
+            }
         }
 
         @Override
         protected void afterTest(EvaluationContext<A, B> evaluationContext, boolean applies) {
-            status = applies ? RuleStatus.TEST_TRUE : RuleStatus.TEST_FALSE;
+            complete(applies ? TEST_TRUE : TEST_FALSE);
         }
 
         @Override
         protected boolean onTestError(EvaluationContext<A, B> evaluationContext, RuntimeException e) {
-            status = RuleStatus.TEST_FAILED;
             failCause = e;
+            complete(TEST_FAILED);
             throw e;
         }
 
-        @Override
-        protected void beforeApply(EvaluationContext<A, B> evaluationContext) {
-            status = RuleStatus.APPLYING;
-        }
-
         @Override
         protected B afterApply(EvaluationContext<A, B> evaluationContext, B result) {
-            status = RuleStatus.APPLIED;
             RuleEvaluationContextImpl.this.result = result;
+            complete(APPLIED);
             return result;
         }
 
         @Override
         protected B onApplyError(EvaluationContext<A, B> evaluationContext, RuntimeException e) {
-            status = RuleStatus.APPLY_FAILED;
             failCause = e;
+            complete(APPLY_FAILED);
             throw e;
         }
 
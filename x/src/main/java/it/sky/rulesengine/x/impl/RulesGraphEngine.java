@@ -1,39 +1,65 @@
 package it.sky.rulesengine.x.impl;
 
 import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.Parallelism;
 import it.sky.rulesengine.core.impl.StreamingRulesEngine;
 import it.sky.rulesengine.core.impl.exception.RuleEvaluationException;
-import it.sky.rulesengine.x.api.EvaluationContext;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 public class RulesGraphEngine extends StreamingRulesEngine {
 
-    public static final RulesGraphEngine INSTANCE = new RulesGraphEngine(s -> s, Function.identity());
+    public static final RulesGraphEngine INSTANCE = new RulesGraphEngine(s -> s, Function.identity(),
+            Parallelism.SEQUENTIAL);
 
     protected RulesGraphEngine(UnaryOperator<Stream<?>> streamMapper,
-                               Function<? super RuleEvaluationException, ? extends RuntimeException> exceptionMapper) {
-        super(streamMapper, exceptionMapper);
+                               Function<? super RuleEvaluationException, ? extends RuntimeException> exceptionMapper,
+                               Parallelism parallelism) {
+        super(streamMapper, exceptionMapper, parallelism);
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     protected <A, B> Stream<Rule<A, B>> stream(Collection<Rule<A, B>> rules, A facts) {
+        return super.stream(rules, facts).map(r -> resolve(r, facts));
+    }
+
+    /**
+     * Returns the context maintainer of the given rule.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <A, B> Rule<A, B> resolve(Rule<A, B> rule, A facts) {
         if (!(facts instanceof EvaluationContextImpl)) {
             throw new IllegalStateException(String.format("%s can be used only with %s facts", RulesGraphEngine.class,
                     EvaluationContextImpl.class));
         }
-        return super.stream(rules, facts)
-                .map(r -> (Rule<A, B>) ((EvaluationContextImpl<?, B>) facts).getRule(r.getId()).getContextMaintainer());
+        return (Rule<A, B>) ((EvaluationContextImpl<?, B>) facts).getRule(rule.getId()).getContextMaintainer();
+    }
+
+    /**
+     * Returns the given rules in the order {@link #applyFirst(Collection, Object)} tests them,
+     * i.e. as the stream mapping sorts and filters them.
+     */
+    <A, B> List<Rule<A, B>> mapRules(Collection<Rule<A, B>> rules) {
+        return prepare(rules);
+    }
+
+    /**
+     * Returns the exception to throw in place of the given one.
+     */
+    RuntimeException mapException(RuleEvaluationException e) {
+        return exceptionMapper.apply(e);
     }
 
     @Override
     protected RulesGraphEngine create(UnaryOperator<Stream<?>> streamMapper,
-                                      Function<? super RuleEvaluationException, ? extends RuntimeException> exceptionMapper) {
-        return new RulesGraphEngine(streamMapper, exceptionMapper);
+                                      Function<? super RuleEvaluationException, ? extends RuntimeException> exceptionMapper,
+                                      Parallelism parallelism) {
+        return new RulesGraphEngine(streamMapper, exceptionMapper, parallelism);
     }
 
 }
@@ -9,9 +9,7 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.Delegate;
 
-import java.util.Collection;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 
@@ -23,6 +21,7 @@ public class RulesGraphImpl<A, B> implements RulesGraph<A, B> {
     @Delegate
     @NonNull
     protected final Collection<Rule<EvaluationContext<A, B>, B>> rules;
+    protected final Map<String, Set<String>> dependencies = new LinkedHashMap<>();
 
     @Override
     public RulesGraphImpl<A, B> setRulesEngine(UnaryOperator<StreamingRulesEngine> mapper) {
@@ -48,4 +47,23 @@ public class RulesGraphImpl<A, B> implements RulesGraph<A, B> {
         return rulesEngine.applyAll(rules, new EvaluationContextImpl<>(rules, facts));
     }
 
+    @Override
+    public RulesGraphImpl<A, B> dependsOn(@NonNull String ruleId, @NonNull String... dependencyIds) {
+        Collections.addAll(dependencies.computeIfAbsent(ruleId, k -> new LinkedHashSet<>()), dependencyIds);
+        return this;
+    }
+
+    @Override
+    public RulesGraphImpl<A, B> trace(A facts) {
+        EvaluationContextImpl<A, B> evaluationContext = new EvaluationContextImpl<>(rules, facts, true);
+        rulesEngine.applyAll(rules, evaluationContext);
+        evaluationContext.forEachDependency((ruleId, dependencyId) -> dependsOn(ruleId, dependencyId));
+        return this;
+    }
+
+    FrozenRulesGraph<A, B> freeze() {
+        return FrozenRulesGraph.of(rules, dependencies,
+                rulesEngine instanceof RulesGraphEngine ? (RulesGraphEngine) rulesEngine : RulesGraphEngine.INSTANCE);
+    }
+
 }
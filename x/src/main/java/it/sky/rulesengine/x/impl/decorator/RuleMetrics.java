@@ -0,0 +1,343 @@
+package it.sky.rulesengine.x.impl.decorator;
+
+import it.sky.rulesengine.core.api.Rule;
+import lombok.NonNull;
+import lombok.Value;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the delegate's {@link Rule#test(Object) test} and {@link Rule#apply(Object) apply} counts,
+ * errors and latencies, cheaply enough to be left on in production.
+ *
+ * <p>Counters are striped {@link LongAdder}s and latencies, in nanoseconds, are recorded
+ * into wait-free HdrHistogram {@link Recorder}s, so concurrent evaluations never contend on a lock.
+ * The metrics are read through {@link #getSnapshot()} or, once {@link #registerMBean() registered},
+ * through JMX.
+ *
+ * <p>Since reading the clock may cost as much as a cheap rule, latencies are sampled:
+ * counters are exact, while only one invocation out of the sampling interval, chosen at random,
+ * is timed. Use a sampling interval of 1 to time every invocation.
+ *
+ * <p>Tests skipped by {@link #beforeTest(Object)} are not counted.
+ *
+ * @param <A> the facts type
+ * @param <B> the result type
+ */
+public class RuleMetrics<A, B> extends RuleDecorator<A, B> {
+
+    /**
+     * The JMX domain of the registered MBeans.
+     */
+    public static final String JMX_DOMAIN = "it.sky.rulesengine";
+
+    /**
+     * The default latency sampling interval.
+     */
+    public static final int DEFAULT_SAMPLING_INTERVAL = 16;
+
+    /**
+     * The default interval between two refreshes of the latencies exposed through JMX.
+     */
+    public static final Duration DEFAULT_MBEAN_REFRESH_INTERVAL = Duration.ofSeconds(1);
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final int samplingMask;
+
+    private final LongAdder tests = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder testErrors = new LongAdder();
+    private final LongAdder applies = new LongAdder();
+    private final LongAdder applyErrors = new LongAdder();
+    private final Recorder testRecorder = new Recorder(SIGNIFICANT_DIGITS);
+    private final Recorder applyRecorder = new Recorder(SIGNIFICANT_DIGITS);
+    private final Histogram testLatency = new Histogram(SIGNIFICANT_DIGITS);
+    private final Histogram applyLatency = new Histogram(SIGNIFICANT_DIGITS);
+
+    /**
+     * Creates new metrics for the given delegate.
+     *
+     * @param delegate the delegate
+     */
+    public RuleMetrics(Rule<A, B> delegate) {
+        this(delegate, DEFAULT_SAMPLING_INTERVAL);
+    }
+
+    /**
+     * Creates new metrics for the given delegate, timing one invocation out of the given interval.
+     *
+     * @param delegate         the delegate
+     * @param samplingInterval the latency sampling interval, a power of 2
+     * @throws IllegalArgumentException if the interval is not a positive power of 2
+     */
+    public RuleMetrics(Rule<A, B> delegate, int samplingInterval) {
+        super(delegate);
+        if (samplingInterval < 1 || Integer.bitCount(samplingInterval) != 1) {
+            throw new IllegalArgumentException("sampling interval must be a positive power of 2: " + samplingInterval);
+        }
+        this.samplingMask = samplingInterval - 1;
+    }
+
+    @Override
+    protected boolean performTest(A facts) {
+        tests.increment();
+        boolean applies;
+        if (isSampled()) {
+            long start = System.nanoTime();
+            try {
+                applies = super.performTest(facts);
+            } finally {
+                testRecorder.recordValue(System.nanoTime() - start);
+            }
+        } else {
+            applies = super.performTest(facts);
+        }
+        if (applies) {
+            matches.increment();
+        }
+        return applies;
+    }
+
+    @Override
+    protected boolean onTestError(A facts, RuntimeException e) {
+        testErrors.increment();
+        return super.onTestError(facts, e);
+    }
+
+    @Override
+    protected B performApply(A facts) {
+        applies.increment();
+        if (!isSampled()) {
+            return super.performApply(facts);
+        }
+        long start = System.nanoTime();
+        try {
+            return super.performApply(facts);
+        } finally {
+            applyRecorder.recordValue(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected B onApplyError(A facts, RuntimeException e) {
+        applyErrors.increment();
+        return super.onApplyError(facts, e);
+    }
+
+    private boolean isSampled() {
+        return (ThreadLocalRandom.current().nextInt() & samplingMask) == 0;
+    }
+
+    /**
+     * Returns the metrics recorded so far.
+     *
+     * <p>Counters are read while evaluations may be running, hence they are
+     * not guaranteed to be consistent with each other.
+     *
+     * @return the snapshot
+     */
+    public synchronized Snapshot getSnapshot() {
+        testLatency.add(testRecorder.getIntervalHistogram());
+        applyLatency.add(applyRecorder.getIntervalHistogram());
+        return new Snapshot(getId(), tests.sum(), matches.sum(), testErrors.sum(), applies.sum(), applyErrors.sum(),
+                testLatency.copy(), applyLatency.copy());
+    }
+
+    /**
+     * Registers an MBean that exposes these metrics to the platform MBean server,
+     * with the name <code>it.sky.rulesengine:type=RuleMetrics,rule=&lt;the rule's id&gt;</code>.
+     *
+     * @return the MBean's name
+     * @throws IllegalStateException if the registration fails, e.g. because of a duplicated rule id
+     */
+    public ObjectName registerMBean() {
+        return registerMBean(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Registers an MBean that exposes these metrics to the given MBean server.
+     *
+     * @param mBeanServer the MBean server
+     * @return the MBean's name
+     * @throws IllegalStateException if the registration fails, e.g. because of a duplicated rule id
+     * @see #registerMBean()
+     */
+    public ObjectName registerMBean(MBeanServer mBeanServer) {
+        return registerMBean(mBeanServer, DEFAULT_MBEAN_REFRESH_INTERVAL);
+    }
+
+    /**
+     * Registers an MBean that exposes these metrics to the given MBean server,
+     * refreshing the latencies at most once per the given interval.
+     *
+     * <p>The counters are always current, while the latencies are read from a snapshot taken
+     * by the first read after the interval elapsed, so that a monitoring tool reading all the attributes
+     * at each poll takes at most one snapshot.
+     *
+     * @param mBeanServer     the MBean server
+     * @param refreshInterval the minimum interval between two refreshes of the latencies
+     * @return the MBean's name
+     * @throws IllegalStateException if the registration fails, e.g. because of a duplicated rule id
+     * @see #registerMBean()
+     */
+    public ObjectName registerMBean(@NonNull MBeanServer mBeanServer, @NonNull Duration refreshInterval) {
+        try {
+            return mBeanServer.registerMBean(new MBean(refreshInterval.toNanos()), objectName()).getObjectName();
+        } catch (InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException e) {
+            throw new IllegalStateException(String.format("cannot register the metrics of the rule '%s'", getId()), e);
+        }
+    }
+
+    /**
+     * Unregisters the MBean of these metrics from the given MBean server, if registered.
+     *
+     * @param mBeanServer the MBean server
+     */
+    public void unregisterMBean(@NonNull MBeanServer mBeanServer) {
+        try {
+            mBeanServer.unregisterMBean(objectName());
+        } catch (InstanceNotFoundException e) {
+            // not registered
+        } catch (MBeanRegistrationException e) {
+            throw new IllegalStateException(String.format("cannot unregister the metrics of the rule '%s'", getId()), e);
+        }
+    }
+
+    private ObjectName objectName() {
+        try {
+            return new ObjectName(JMX_DOMAIN + ":type=RuleMetrics,rule=" + ObjectName.quote(getId()));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The metrics of a rule at a given time. Latencies are sampled and in nanoseconds.
+     */
+    @Value
+    public static class Snapshot {
+
+        String id;
+        long testCount;
+        long matchCount;
+        long testErrorCount;
+        long applyCount;
+        long applyErrorCount;
+        Histogram testLatency;
+        Histogram applyLatency;
+
+        /**
+         * Returns the ratio of the tests that matched.
+         *
+         * @return the hit ratio, 0 if the rule was never tested
+         */
+        public double getHitRatio() {
+            return testCount == 0 ? 0 : (double) matchCount / testCount;
+        }
+
+    }
+
+    /*
+     * The JMX view of the metrics
+     */
+    private class MBean implements RuleMetricsMXBean {
+
+        private final long refreshNanos;
+        private Snapshot snapshot;
+        private long refreshedAt;
+
+        MBean(long refreshNanos) {
+            this.refreshNanos = refreshNanos;
+        }
+
+        @Override
+        public String getRuleId() {
+            return getId();
+        }
+
+        @Override
+        public long getTestCount() {
+            return tests.sum();
+        }
+
+        @Override
+        public long getMatchCount() {
+            return matches.sum();
+        }
+
+        @Override
+        public double getHitRatio() {
+            // matches are counted after tests: reading them first, and capping, keeps concurrent reads below 1
+            long matchCount = matches.sum();
+            long testCount = tests.sum();
+            return testCount == 0 ? 0 : Math.min(1, (double) matchCount / testCount);
+        }
+
+        @Override
+        public long getTestErrorCount() {
+            return testErrors.sum();
+        }
+
+        @Override
+        public long getApplyCount() {
+            return applies.sum();
+        }
+
+        @Override
+        public long getApplyErrorCount() {
+            return applyErrors.sum();
+        }
+
+        @Override
+        public double getTestLatencyMeanMicros() {
+            return micros(snapshot().getTestLatency().getMean());
+        }
+
+        @Override
+        public double getTestLatency99thPercentileMicros() {
+            return micros(snapshot().getTestLatency().getValueAtPercentile(99));
+        }
+
+        @Override
+        public double getApplyLatencyMeanMicros() {
+            return micros(snapshot().getApplyLatency().getMean());
+        }
+
+        @Override
+        public double getApplyLatency99thPercentileMicros() {
+            return micros(snapshot().getApplyLatency().getValueAtPercentile(99));
+        }
+
+        /*
+         * Returns the snapshot of the latencies, taking a new one if the refresh interval elapsed
+         */
+        private synchronized Snapshot snapshot() {
+            long now = System.nanoTime();
+            if (snapshot == null || now - refreshedAt >= refreshNanos) {
+                snapshot = getSnapshot();
+                refreshedAt = now;
+            }
+            return snapshot;
+        }
+
+        private double micros(double nanos) {
+            return nanos / TimeUnit.MICROSECONDS.toNanos(1);
+        }
+
+    }
+
+}
@@ -0,0 +1,30 @@
+package it.sky.rulesengine.x.impl.decorator;
+
+/**
+ * The JMX interface of {@link RuleMetrics}.
+ */
+public interface RuleMetricsMXBean {
+
+    String getRuleId();
+
+    long getTestCount();
+
+    long getMatchCount();
+
+    double getHitRatio();
+
+    long getTestErrorCount();
+
+    long getApplyCount();
+
+    long getApplyErrorCount();
+
+    double getTestLatencyMeanMicros();
+
+    double getTestLatency99thPercentileMicros();
+
+    double getApplyLatencyMeanMicros();
+
+    double getApplyLatency99thPercentileMicros();
+
+}
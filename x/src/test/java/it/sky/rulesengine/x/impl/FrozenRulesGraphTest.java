@@ -0,0 +1,272 @@
+package it.sky.rulesengine.x.impl;
+
+import it.sky.rulesengine.core.api.Rule;
+import it.sky.rulesengine.core.impl.Parallelism;
+import it.sky.rulesengine.core.impl.exception.RuleEvaluationException;
+import it.sky.rulesengine.core.impl.exception.RulesEngineException;
+import it.sky.rulesengine.x.api.EvaluationContext;
+import it.sky.rulesengine.x.api.RulesGraph;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrozenRulesGraphTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    private RulesGraph<Double, Double> rulesGraph() {
+        return RulesGraph.<Double, Double>of()
+                .add(r -> r.withId("triple").then(c -> count(c.getRule("double").getResult() + c.getRule("identity").getResult())))
+                .add(r -> r.withId("double").then(c -> count(c.getRule("identity").getResult() * 2.0)))
+                .add(r -> r.withId("inverse").when(c -> c.getFacts() != 0).then(c -> count(1.0 / c.getFacts())))
+                .add(r -> r.withId("identity").then(c -> count(c.getFacts())));
+    }
+
+    private Double count(Double result) {
+        evaluations.incrementAndGet();
+        return result;
+    }
+
+    @Test
+    void shouldScheduleTheTracedDependencies() {
+        RulesGraph<Double, Double> rulesGraph = rulesGraph();
+        FrozenRulesGraph<Double, Double> frozenRulesGraph = FrozenRulesGraph.of(rulesGraph.trace(2.0));
+
+        assertEquals(Arrays.asList("inverse", "identity", "double", "triple"), frozenRulesGraph.getSchedule());
+        evaluations.set(0);
+        Map<String, Double> results = frozenRulesGraph.applyAll(2.0);
+        assertEquals(rulesGraph.applyAll(2.0), results);
+        assertEquals((Double) 6.0, results.get("triple"));
+        assertEquals((Double) 0.5, results.get("inverse"));
+        assertEquals(4, results.size());
+
+        evaluations.set(0);
+        results = frozenRulesGraph.applyAll(0.0);
+        assertFalse(results.containsKey("inverse"));
+        assertEquals((Double) 0.0, results.get("triple"));
+        assertEquals(3, evaluations.get());
+    }
+
+    @Test
+    void shouldTraceDependenciesOnEvaluatedRules() {
+        FrozenRulesGraph<Integer, Integer> frozenRulesGraph = FrozenRulesGraph.of(RulesGraph.<Integer, Integer>of()
+                .add(r -> r.withId("a").then(c -> c.getRule("b").getResult() + 1))
+                .add(r -> r.withId("c").then(c -> c.getRule("b").getResult() + 2))
+                .add(r -> r.withId("b").then(EvaluationContext::getFacts))
+                .trace(0));
+
+        assertEquals(Arrays.asList("b", "a", "c"), frozenRulesGraph.getSchedule());
+    }
+
+    @Test
+    void shouldEvaluateUndeclaredDependenciesOnDemand() {
+        FrozenRulesGraph<Double, Double> frozenRulesGraph = FrozenRulesGraph.of(rulesGraph().dependsOn("triple", "double"));
+
+        assertEquals(Arrays.asList("double", "triple", "inverse", "identity"), frozenRulesGraph.getSchedule());
+        assertEquals((Double) 9.0, frozenRulesGraph.applyAll(3.0).get("triple"));
+        assertEquals(Optional.of(9.0), frozenRulesGraph.applyFirst(3.0));
+    }
+
+    @Test
+    void shouldRejectCyclicDependencies() {
+        RulesGraph<Double, Double> rulesGraph = rulesGraph().dependsOn("double", "triple");
+
+        assertEquals("cyclic dependency found: identity -> double -> triple",
+                assertThrows(RulesEngineException.class,
+                        () -> FrozenRulesGraph.of(rulesGraph.dependsOn("triple", "identity").dependsOn("identity", "double")))
+                        .getMessage());
+        assertThrows(IllegalArgumentException.class, () -> FrozenRulesGraph.of(rulesGraph().dependsOn("triple", "missing")));
+    }
+
+    @AfterAll
+    static void shutdown() {
+        POOL.shutdown();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"false", "true"})
+    void shouldEvaluateInParallel(boolean traced) {
+        Map<String, AtomicInteger> evaluationsById = new ConcurrentHashMap<>();
+        RulesGraph<Integer, Integer> rulesGraph = RulesGraph.of();
+        int width = 30;
+        for (int i = 0; i < width; i++) {
+            int offset = i;
+            rulesGraph.add(r -> r.withId("base-" + offset).then(c -> counted(evaluationsById, "base-" + offset,
+                    c.getFacts() + offset)));
+        }
+        for (int i = 0; i < width; i++) {
+            int offset = i;
+            rulesGraph.add(r -> r.withId("sum-" + offset).then(c -> {
+                int sum = 0;
+                for (int j = 0; j <= offset; j++) {
+                    sum += c.getRule("base-" + j).getResult();
+                }
+                return counted(evaluationsById, "sum-" + offset, sum);
+            }));
+        }
+        rulesGraph.add(r -> r.withId("total").when(c -> c.getFacts() >= 0).then(c -> {
+            int total = 0;
+            for (int j = 0; j < width; j++) {
+                total += c.getRule("sum-" + j).getResult();
+            }
+            return counted(evaluationsById, "total", total);
+        }));
+        if (traced) {
+            rulesGraph.trace(0);
+        }
+        FrozenRulesGraph<Integer, Integer> frozenRulesGraph = FrozenRulesGraph.of(rulesGraph);
+        FrozenRulesGraph<Integer, Integer> parallelRulesGraph = frozenRulesGraph
+                .withParallelism(Parallelism.of(POOL, 1));
+
+        for (int facts = -10; facts < 10; facts++) {
+            evaluationsById.clear();
+            assertEquals(frozenRulesGraph.applyAll(facts), parallelRulesGraph.applyAll(facts));
+            assertTrue(evaluationsById.values().stream().allMatch(count -> count.get() == 2), evaluationsById::toString);
+        }
+    }
+
+    private static Integer counted(Map<String, AtomicInteger> evaluationsById, String ruleId, Integer result) {
+        evaluationsById.computeIfAbsent(ruleId, k -> new AtomicInteger()).incrementAndGet();
+        return result;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"false", "true"})
+    void shouldReportFailingRules(boolean parallel) {
+        FrozenRulesGraph<Double, Double> frozenRulesGraph = FrozenRulesGraph.of(RulesGraph.<Double, Double>of()
+                .add(r -> r.withId("dependent").then(c -> c.getRule("failing").getResult()))
+                .add(r -> r.withId("failing").then(c -> {
+                    throw new IllegalStateException("failure");
+                }))
+                .add(r -> r.withId("other").then(c -> {
+                    throw new IllegalStateException("other failure");
+                }))
+                .dependsOn("dependent", "failing"))
+                .withParallelism(parallel ? Parallelism.of(POOL, 1) : Parallelism.SEQUENTIAL);
+
+        RuleEvaluationException e = assertThrows(RuleEvaluationException.class, () -> frozenRulesGraph.applyAll(1.0));
+        assertEquals("failing", e.getRule().getId());
+        assertTrue(e.getFacts() instanceof EvaluationContext);
+        assertEquals("failure", e.getCause().getMessage());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"false", "true"})
+    void shouldKeepTheEngineMappings(boolean parallel) {
+        RuntimeException mappedException = new IllegalStateException("mapped");
+        RulesGraph<Integer, Integer> rulesGraph = RulesGraph.<Integer, Integer>of()
+                .add(r -> r.withId("low").withPriority(1).then(c -> 2))
+                .add(r -> r.withId("high").withPriority(2).then(c -> c.getRule("hidden").getResult()))
+                .add(r -> r.withId("hidden").withPriority(3).then(c -> 1 / c.getFacts()))
+                .setRulesEngine(rulesEngine -> rulesEngine
+                        .withStreamMapping(Stream::sorted)
+                        .withStreamMapping(s -> s.filter(r -> !"hidden".equals(((Rule<?, ?>) r).getId())))
+                        .withExceptionMapping(e -> mappedException));
+        FrozenRulesGraph<Integer, Integer> frozenRulesGraph = FrozenRulesGraph.of(rulesGraph)
+                .withParallelism(parallel ? Parallelism.of(POOL, 1) : Parallelism.SEQUENTIAL);
+
+        assertEquals(Optional.of(1), frozenRulesGraph.applyFirst(1));
+        assertEquals(rulesGraph.applyFirst(1), frozenRulesGraph.applyFirst(1));
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("low", 2);
+        expected.put("high", 1);
+        assertEquals(expected, frozenRulesGraph.applyAll(1));
+        assertEquals(rulesGraph.applyAll(1), frozenRulesGraph.applyAll(1));
+        assertSame(mappedException, assertThrows(RuntimeException.class, () -> frozenRulesGraph.applyFirst(0)));
+        assertSame(mappedException, assertThrows(RuntimeException.class, () -> frozenRulesGraph.applyAll(0)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"false", "true"})
+    void shouldFailOnUndeclaredCyclesAcrossThreads(boolean parallel) {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        CountDownLatch started = new CountDownLatch(2);
+        RulesGraph<Integer, Integer> rulesGraph = RulesGraph.<Integer, Integer>of()
+                .add(r -> r.withId("x").when(c -> c.getFacts() > 0).then(c -> read(started, c, "y")))
+                .add(r -> r.withId("y").when(c -> c.getFacts() > 0).then(c -> read(started, c, "x")))
+                .trace(0);
+        FrozenRulesGraph<Integer, Integer> frozenRulesGraph = FrozenRulesGraph.of(rulesGraph)
+                .withParallelism(parallel ? Parallelism.of(pool, 1) : Parallelism.SEQUENTIAL);
+        if (!parallel) {
+            started.countDown();
+            started.countDown();
+        }
+
+        try {
+            RuleEvaluationException e = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> assertThrows(RuleEvaluationException.class, () -> frozenRulesGraph.applyAll(1)));
+            Throwable cause = e;
+            while (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            assertTrue(cause.getMessage().startsWith("cyclic dependency found: "), cause::getMessage);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /*
+     * Reads the given rule once both rules are being applied, on different threads if parallel
+     */
+    private static Integer read(CountDownLatch started, EvaluationContext<Integer, Integer> context, String ruleId) {
+        started.countDown();
+        try {
+            started.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return context.getRule(ruleId).getResult();
+    }
+
+    @Test
+    void shouldReleaseTheRulesWaitingForAnError() {
+        CountDownLatch reading = new CountDownLatch(2);
+        CountDownLatch released = new CountDownLatch(2);
+        FrozenRulesGraph<Integer, Integer> frozenRulesGraph = FrozenRulesGraph.of(RulesGraph.<Integer, Integer>of()
+                .add(r -> r.withId("failing").then(c -> {
+                    try {
+                        reading.await(1, TimeUnit.SECONDS);
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    throw new AssertionError("failure");
+                }))
+                .add(r -> r.withId("a").then(c -> readAndRelease(reading, released, c)))
+                .add(r -> r.withId("b").then(c -> readAndRelease(reading, released, c))))
+                .withParallelism(Parallelism.of(POOL, 1));
+
+        AssertionError e = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(AssertionError.class, () -> frozenRulesGraph.applyAll(1)));
+        // the pool may rethrow a copy of the error, caused by the original one
+        assertEquals("failure", e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> released.await());
+    }
+
+    private static Integer readAndRelease(CountDownLatch reading, CountDownLatch released,
+                                          EvaluationContext<Integer, Integer> context) {
+        try {
+            return read(reading, context, "failing");
+        } finally {
+            released.countDown();
+        }
+    }
+
+}
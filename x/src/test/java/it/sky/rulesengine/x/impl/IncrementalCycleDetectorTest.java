@@ -0,0 +1,40 @@
+package it.sky.rulesengine.x.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IncrementalCycleDetectorTest {
+
+    @Test
+    void shouldReportTheCycleClosedByAnEdge() {
+        IncrementalCycleDetector<String> detector = new IncrementalCycleDetector<>();
+        assertNull(detector.addEdge("c", "d"));
+        assertNull(detector.addEdge("a", "b"));
+        assertNull(detector.addEdge("b", "c"));
+        assertNull(detector.addEdge("x", "a"));
+        assertNull(detector.addEdge("b", "c"));
+
+        assertEquals(Arrays.asList("d", "a", "b", "c"), detector.addEdge("d", "a"));
+        assertEquals(Collections.singletonList("d"), detector.addEdge("d", "d"));
+        assertNull(detector.addEdge("x", "d"));
+        assertEquals(5, detector.size());
+    }
+
+    @Test
+    void shouldReorderLongChains() {
+        IncrementalCycleDetector<Integer> detector = new IncrementalCycleDetector<>();
+        int length = 1_000;
+        for (int i = 0; i < length - 1; i++) {
+            assertNull(detector.addEdge(i + 1, i));
+        }
+
+        assertEquals(length, detector.addEdge(0, length - 1).size());
+        assertNull(detector.addEdge(length - 1, 0));
+    }
+
+}
@@ -0,0 +1,135 @@
+package it.sky.rulesengine.x.impl;
+
+import it.sky.rulesengine.core.impl.exception.RuleEvaluationException;
+import it.sky.rulesengine.x.api.RuleEvaluationContext.RuleStatus;
+import it.sky.rulesengine.x.api.RulesGraph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleEvaluationContextImplTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private EvaluationContextImpl<Integer, Integer> slowRuleContext(int facts) {
+        return slowRuleContext(facts, () -> new IllegalArgumentException("negative facts"));
+    }
+
+    private EvaluationContextImpl<Integer, Integer> slowRuleContext(int facts,
+                                                                    Supplier<? extends Throwable> failure) {
+        RulesGraph<Integer, Integer> rulesGraph = RulesGraph.of();
+        rulesGraph.add(r -> r.withId("slow").then(c -> {
+            evaluations.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            if (c.getFacts() < 0) {
+                throwUnchecked(failure.get());
+            }
+            return c.getFacts();
+        }));
+        return new EvaluationContextImpl<>(rulesGraph, facts);
+    }
+
+    private List<Future<Integer>> readConcurrently(EvaluationContextImpl<Integer, Integer> evaluationContext)
+            throws InterruptedException {
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(() -> evaluationContext.getRule("slow").getResult()));
+        }
+        started.await();
+        release.countDown();
+        return results;
+    }
+
+    @Test
+    void shouldApplyOnceAndWakeUpWaiters() throws Exception {
+        EvaluationContextImpl<Integer, Integer> evaluationContext = slowRuleContext(42);
+
+        for (Future<Integer> result : readConcurrently(evaluationContext)) {
+            assertEquals(Integer.valueOf(42), result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, evaluations.get());
+        assertEquals(RuleStatus.APPLIED, evaluationContext.getRule("slow").getStatus());
+        assertTrue(evaluationContext.getRule("slow").applied());
+    }
+
+    @Test
+    void shouldPropagateFailuresToWaiters() throws Exception {
+        EvaluationContextImpl<Integer, Integer> evaluationContext = slowRuleContext(-1);
+
+        for (Future<Integer> result : readConcurrently(evaluationContext)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertEquals("negative facts", e.getCause().getMessage());
+        }
+        assertEquals(1, evaluations.get());
+        assertTrue(evaluationContext.getRule("slow").applies());
+    }
+
+    @Test
+    void shouldPropagateErrorsToWaiters() throws Exception {
+        EvaluationContextImpl<Integer, Integer> evaluationContext = slowRuleContext(-1,
+                () -> new AssertionError("negative facts"));
+
+        for (Future<Integer> result : readConcurrently(evaluationContext)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+        assertEquals(1, evaluations.get());
+        assertThrows(AssertionError.class, () -> evaluationContext.getRule("slow").getResult());
+    }
+
+    private static void throwUnchecked(Throwable t) {
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw (RuntimeException) t;
+    }
+
+    @Test
+    void shouldTrackDependenciesReadByOtherThreads() {
+        RulesGraph<Integer, Integer> rulesGraph = RulesGraph.<Integer, Integer>of()
+                .add(r -> r.withId("a").then(c -> CompletableFuture.supplyAsync(() -> c.getRule("b").getResult() + 1,
+                        executor).join()))
+                .add(r -> r.withId("b").then(c -> c.getFacts()));
+
+        assertEquals(Arrays.asList("b", "a"), FrozenRulesGraph.of(rulesGraph.trace(1)).getSchedule());
+    }
+
+    @Test
+    void shouldDetectCyclesAcrossThreads() {
+        RulesGraph<Integer, Integer> rulesGraph = RulesGraph.<Integer, Integer>of()
+                .add(r -> r.withId("x").then(c -> CompletableFuture.supplyAsync(() -> c.getRule("y").getResult(),
+                        executor).join()))
+                .add(r -> r.withId("y").then(c -> c.getRule("x").getResult()));
+
+        RuleEvaluationException e = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(RuleEvaluationException.class, () -> rulesGraph.applyAll(1)));
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        assertEquals("cyclic dependency found: y (ACTION) -> x (ACTION)", cause.getMessage());
+    }
+
+}
@@ -0,0 +1,102 @@
+package it.sky.rulesengine.x.impl.decorator;
+
+import it.sky.rulesengine.core.impl.CompositeRule;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleMetricsTest {
+
+    private final RuleMetrics<Integer, Integer> ruleMetrics = new RuleMetrics<>(CompositeRule.<Integer, Integer>create(
+            "half", f -> f % 2 == 0 && 10 / f > 0, f -> {
+                if (f < 0) {
+                    throw new IllegalArgumentException();
+                }
+                return f / 2;
+            }), 1);
+
+    @Test
+    void shouldRecordTestsAndApplies() {
+        for (int f = 1; f <= 10; f++) {
+            if (ruleMetrics.test(f)) {
+                ruleMetrics.apply(f);
+            }
+        }
+        assertThrows(ArithmeticException.class, () -> ruleMetrics.test(0));
+        assertThrows(IllegalArgumentException.class, () -> ruleMetrics.apply(-1));
+
+        RuleMetrics.Snapshot snapshot = ruleMetrics.getSnapshot();
+        assertEquals("half", snapshot.getId());
+        assertEquals(11, snapshot.getTestCount());
+        assertEquals(5, snapshot.getMatchCount());
+        assertEquals(1, snapshot.getTestErrorCount());
+        assertEquals(6, snapshot.getApplyCount());
+        assertEquals(1, snapshot.getApplyErrorCount());
+        assertEquals(5.0 / 11, snapshot.getHitRatio());
+        assertEquals(11, snapshot.getTestLatency().getTotalCount());
+        assertEquals(6, snapshot.getApplyLatency().getTotalCount());
+
+        ruleMetrics.test(1);
+        assertEquals(12, ruleMetrics.getSnapshot().getTestLatency().getTotalCount());
+        assertEquals(11, snapshot.getTestLatency().getTotalCount());
+    }
+
+    @Test
+    void shouldSampleLatencies() {
+        RuleMetrics<Integer, Integer> sampledMetrics = new RuleMetrics<>(CompositeRule.create("rule", f -> true, 0));
+        for (int i = 0; i < 10_000; i++) {
+            sampledMetrics.test(i);
+        }
+
+        RuleMetrics.Snapshot snapshot = sampledMetrics.getSnapshot();
+        assertEquals(10_000, snapshot.getTestCount());
+        assertTrue(snapshot.getTestLatency().getTotalCount() > 0);
+        assertTrue(snapshot.getTestLatency().getTotalCount() < 10_000 / 4);
+        assertThrows(IllegalArgumentException.class, () -> new RuleMetrics<>(CompositeRule.create("rule", f -> true, 0), 3));
+    }
+
+    @Test
+    void shouldExposeMBean() throws Exception {
+        MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        ruleMetrics.test(2);
+
+        ObjectName name = ruleMetrics.registerMBean(mBeanServer);
+        assertEquals(1L, mBeanServer.getAttribute(name, "TestCount"));
+        assertEquals("half", mBeanServer.getAttribute(name, "RuleId"));
+        assertThrows(IllegalStateException.class, () -> ruleMetrics.registerMBean(mBeanServer));
+
+        ruleMetrics.unregisterMBean(mBeanServer);
+        assertFalse(mBeanServer.isRegistered(name));
+    }
+
+    @Test
+    void shouldRefreshTheMBeanLatenciesOncePerInterval() throws Exception {
+        MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        RuleMetrics<Integer, Integer> slowMetrics = new RuleMetrics<>(CompositeRule.<Integer, Integer>create("slow", f -> {
+            try {
+                Thread.sleep(f);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return f > 0;
+        }, 0), 1);
+        ObjectName cached = slowMetrics.registerMBean(mBeanServer, Duration.ofHours(1));
+        slowMetrics.test(0);
+        Object latency = mBeanServer.getAttribute(cached, "TestLatencyMeanMicros");
+
+        slowMetrics.test(10);
+        assertEquals(latency, mBeanServer.getAttribute(cached, "TestLatencyMeanMicros"));
+        assertEquals(2L, mBeanServer.getAttribute(cached, "TestCount"));
+        assertEquals(0.5, mBeanServer.getAttribute(cached, "HitRatio"));
+
+        slowMetrics.unregisterMBean(mBeanServer);
+        ObjectName refreshed = slowMetrics.registerMBean(mBeanServer, Duration.ZERO);
+        assertNotEquals(latency, mBeanServer.getAttribute(refreshed, "TestLatencyMeanMicros"));
+    }
+
+}